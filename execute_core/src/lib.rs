@@ -30,6 +30,16 @@ pub mod entity {
          * 隔离存放的目录
          */
         pub file_dir: String,
+        /**
+         * 只执行其中的部分测试数据 (分片执行), 为空时执行 1..=test_case_num 全部测试数据
+         */
+        #[serde(default)]
+        pub test_case_ids: Option<Vec<u32>>,
+        /**
+         * 执行命令模板, {dir} 替换为 file_dir; 为空时按 lang 选择执行命令
+         */
+        #[serde(default)]
+        pub run_command: Option<Vec<String>>,
     }
 
     /**
@@ -115,4 +125,89 @@ pub mod entity {
             self
         }
     }
+
+    /**
+     * 常驻模式下的作业请求 (每行一个 json)
+     */
+    #[derive(Debug, Serialize, Deserialize, Clone)]
+    pub struct JobRequest {
+        /**
+         * 作业 ID, 由客户端分配, 用于在同一连接上复用多个作业
+         */
+        pub id: u64,
+        /**
+         * request_args.json 所在目录
+         */
+        #[serde(default)]
+        pub file_dir: String,
+        /**
+         * 本作业执行的测试数据 ID (分片执行), 为空时执行全部测试数据
+         */
+        #[serde(default)]
+        pub test_case_ids: Option<Vec<u32>>,
+        /**
+         * 是否逐个返回测试数据的执行结果 (每完成一个测试数据写回一行, 最后写回 done 为 true 的一行)
+         */
+        #[serde(default)]
+        pub stream: bool,
+        /**
+         * 取消同一 ID 的作业 (终止其全部测试数据的执行进程, 不再写回结果)
+         */
+        #[serde(default)]
+        pub cancel: bool,
+    }
+
+    /**
+     * 常驻模式下的作业结果 (每行一个 json)
+     */
+    #[derive(Debug, Serialize, Deserialize, Clone)]
+    pub struct JobResponse {
+        /**
+         * 对应的作业 ID
+         */
+        pub id: u64,
+        /**
+         * 各个测试数据的执行结果
+         */
+        pub responses: Vec<Response>,
+        /**
+         * 作业执行失败的原因, 成功时为空
+         */
+        pub error: Option<String>,
+        /**
+         * 作业是否已结束 (逐个返回时, 未结束的行只包含一个测试数据的执行结果)
+         */
+        pub done: bool,
+    }
+    impl JobResponse {
+        pub fn succeeded(id: u64, responses: Vec<Response>) -> Self {
+            JobResponse {
+                id,
+                responses,
+                error: None,
+                done: true,
+            }
+        }
+
+        pub fn partial(id: u64, response: Response) -> Self {
+            JobResponse {
+                id,
+                responses: vec![response],
+                error: None,
+                done: false,
+            }
+        }
+
+        pub fn failed<S>(id: u64, error: S) -> Self
+        where
+            S: Into<String>,
+        {
+            JobResponse {
+                id,
+                responses: vec![],
+                error: Some(error.into()),
+                done: true,
+            }
+        }
+    }
 }
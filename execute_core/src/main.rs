@@ -1,14 +1,17 @@
 #![allow(unused)]
 use base64::engine::general_purpose;
 use base64::Engine;
-use execute_core::entity::{RequestArgs, Response};
+use execute_core::entity::{JobRequest, JobResponse, RequestArgs, Response};
 use psutil::process::Process;
+use std::collections::HashMap;
+use std::os::unix::fs::{MetadataExt, PermissionsExt};
 use std::process::{exit, Stdio};
 use std::sync::Arc;
 use std::time::{Duration, SystemTime, UNIX_EPOCH};
-use tokio::io::{AsyncReadExt, AsyncWriteExt};
+use tokio::io::{AsyncBufReadExt, AsyncReadExt, AsyncWriteExt, BufReader};
+use tokio::net::{UnixListener, UnixStream};
 use tokio::process::Command;
-use tokio::sync::{mpsc, Mutex};
+use tokio::sync::{mpsc, Semaphore};
 use tokio::task;
 use tokio::time::timeout;
 
@@ -28,7 +31,8 @@ async fn monitor_thread(pid: u32, memory_limit: u64, sender: mpsc::Sender<u64>)
             if use_memory > memory_limit {
                 use_memory = memory_limit + 1;
                 let _ = sender.send(use_memory).await;
-                process_util.kill().unwrap();
+                // 进程可能已自行退出
+                let _ = process_util.kill();
                 break;
             }
             tokio::time::sleep(Duration::from_micros(500)).await;
@@ -43,6 +47,7 @@ async fn monitor_thread(pid: u32, memory_limit: u64, sender: mpsc::Sender<u64>)
 ///     file_dir: 执行进程需要文件所在的目录 <br>
 ///     test_case_id: 当前测试数据 ID <br>
 ///     lang: 编程语言 <br>
+///     run_command_template: 执行命令模板, 为空时按 lang 选择执行命令 <br>
 ///     memory_limit: 内存限制 <br>
 ///     time_limit: 时间限制 <br>
 ///     result_sender: 发送管道 <br>
@@ -50,6 +55,7 @@ async fn child_process(
     file_dir: String,
     test_case_id: u32,
     lang: u32,
+    run_command_template: Option<Vec<String>>,
     memory_limit: u64,
     time_limit: u64,
     result_sender: mpsc::Sender<Response>,
@@ -60,16 +66,19 @@ async fn child_process(
     /* 读取测试数据  */
     let mut input_data = String::new();
     let input_filename = file_dir.clone() + "input-" + &test_case_id.to_string() + ".txt";
+    // 常驻模式下不能直接退出进程, 以 500 结果返回错误信息
     let mut input_file = match tokio::fs::File::open(input_filename).await {
         Ok(file) => file,
         Err(e) => {
-            eprintln!("无法打开测试数据文件: {}", e);
-            exit(1);
+            response.set_output_msg(general_purpose::STANDARD.encode(format!("无法打开测试数据文件: {}", e)));
+            let _ = result_sender.send(response).await;
+            return;
         }
     };
     if let Err(e) = input_file.read_to_string(&mut input_data).await {
-        eprintln!("无法读取测试数据文件: {}", e);
-        exit(1);
+        response.set_output_msg(general_purpose::STANDARD.encode(format!("无法读取测试数据文件: {}", e)));
+        let _ = result_sender.send(response).await;
+        return;
     }
 
     /* 匹配编程语言对应执行命令 */
@@ -81,80 +90,93 @@ async fn child_process(
     let python_file_path = format!("{}main.py", file_dir);
     let python_args = [python_file_path.as_str()];
 
-    match lang {
-        1 => {
-            run_command = Command::new(file_dir.clone() + "main");
-        }
-        2 => {
-            run_command = Command::new("java");
-            command_args = Some(&java_args);
-        }
-        _ => {
-            run_command = Command::new("python3");
-            command_args = Some(&python_args);
+    match run_command_template {
+        /* 使用请求中的执行命令模板 */
+        Some(template) if !template.is_empty() => {
+            let parts: Vec<String> = template.iter().map(|part| part.replace("{dir}", &file_dir)).collect();
+            run_command = Command::new(&parts[0]);
+            run_command.args(&parts[1..]);
         }
+        _ => match lang {
+            1 => {
+                run_command = Command::new(file_dir.clone() + "main");
+            }
+            2 => {
+                run_command = Command::new("java");
+                command_args = Some(&java_args);
+            }
+            _ => {
+                run_command = Command::new("python3");
+                command_args = Some(&python_args);
+            }
+        },
     }
 
     /* 开始执行进程 */
-    let mut run_process = match command_args {
+    let spawn_result = match command_args {
         Some(args) => run_command.args(args),
         None => &mut run_command,
     }
         .stdin(Stdio::piped())
         .stdout(Stdio::piped())
         .stderr(Stdio::piped())
-        .spawn()
-        .expect("执行命令异常");
+        // 作业被取消 (任务被终止) 时结束执行进程
+        .kill_on_drop(true)
+        .spawn();
+    let mut run_process = match spawn_result {
+        Ok(run_process) => run_process,
+        // 常驻模式下不能让任务 panic, 以 500 结果返回错误信息
+        Err(e) => {
+            response.set_output_msg(general_purpose::STANDARD.encode(format!("执行命令异常: {}", e)));
+            let _ = result_sender.send(response).await;
+            return;
+        }
+    };
     if let Some(mut stdin) = run_process.stdin.take() {
-        stdin
+        // 进程未读完输入就退出时写入失败, 不影响结果
+        let _ = stdin
             .write_all(input_data.as_bytes())
             .await;
     }
-    let _current_time = SystemTime::now();
-    let process_spawn_time = _current_time.duration_since(UNIX_EPOCH).expect("获取系统时间错误!").as_millis();
-
-    let pid = run_process.id().expect("无法获取到执行进程 ID");
+    let process_spawn_time = current_millis();
 
     /* 定义监控结果的收发管道 */
     let (sender, mut receiver) = mpsc::channel::<u64>(2);
-    let sender = Arc::new(Mutex::new(sender));
-
-    let cloned_sender = Arc::clone(&sender);
 
-    // 开启监控线程
-    tokio::spawn(monitor_thread(
-        pid,
-        memory_limit,
-        cloned_sender.lock().await.clone(),
-    ));
+    // 开启监控线程 (没有进程 ID 说明进程已经结束)
+    match run_process.id() {
+        Some(pid) => {
+            tokio::spawn(monitor_thread(pid, memory_limit, sender));
+        }
+        None => {
+            let _ = sender.send(0).await;
+        }
+    }
 
     // 设置时间限制
     match timeout(
-        Duration::from_millis(time_limit.try_into().unwrap()),
+        Duration::from_millis(time_limit),
         run_process.wait(),
     ).await
     {
         Ok(process_result) => {
-            let current_time = SystemTime::now();
-            let process_stop_time = current_time.duration_since(UNIX_EPOCH).expect("获取系统时间错误!").as_millis();
+            let process_stop_time = current_millis();
             match process_result {
                 /* 获取进程执行状态 */
                 Ok(process_status) => {
                     /* 正常输出 */
                     if process_status.success() {
-                        let mut normal_output = String::new();
                         if let Some(mut stdout) = run_process.stdout.take() {
                             response.set_exit_code(1000);
-                            stdout.read_to_string(&mut normal_output).await.unwrap();
+                            let normal_output = read_output(&mut stdout).await;
                             response.set_output_msg(general_purpose::STANDARD.encode(normal_output.trim_end_matches('\n')));
                         }
                     }
                     /* 异常输出 */
                     else {
-                        let mut error_output = String::new();
                         if let Some(mut stderr) = run_process.stderr.take() {
                             response.set_exit_code(1002);
-                            stderr.read_to_string(&mut error_output).await.unwrap();
+                            let error_output = read_output(&mut stderr).await;
                             response.set_output_msg(general_purpose::STANDARD.encode(error_output));
                         }
                     }
@@ -168,19 +190,19 @@ async fn child_process(
                             response.set_output_msg(general_purpose::STANDARD.encode("Memory Exceeded Limit"));
                         }
                     }
-                    result_sender.send(response).await.unwrap();
+                    // 作业已取消时接收方不存在
+                    let _ = result_sender.send(response).await;
                 }
                 Err(err) => {
-                    eprintln!("无法获取进程状态: {}", err);
+                    response.set_output_msg(general_purpose::STANDARD.encode(format!("无法获取进程状态: {}", err)));
+                    let _ = result_sender.send(response).await;
                 }
             }
         },
         Err(_) => {
-            if run_process.try_wait().unwrap().is_none() {
-                run_process
-                    .kill()
-                    .await
-                    .expect("超出时间限制后终止线程异常");
+            if let Ok(None) = run_process.try_wait() {
+                // 终止失败时进程随任务结束 (kill_on_drop) 一并终止
+                let _ = run_process.kill().await;
             }
 
             if let Some(use_memory) = receiver.recv().await {
@@ -191,60 +213,290 @@ async fn child_process(
             response.set_time((time_limit + 1).into());
             response.set_output_msg(general_purpose::STANDARD.encode("Time Exceeded Limit"));
 
-            result_sender.send(response).await.unwrap();
+            let _ = result_sender.send(response).await;
         }
     }
 }
 
-#[tokio::main]
-async fn main() {
-    /* 获取 request_args.json 所在目录 */
-    let json_args_dir = task::block_in_place(|| {
-        let mut input = String::new();
-        std::io::stdin()
-            .read_line(&mut input)
-            .expect("无法读取到 request_args.json 的所在目录");
-        input.trim().to_string()
-    });
-    /* 获取执行请求参数 */
-    let mut request_args_file = tokio::fs::File::open(json_args_dir + "request_args.json")
+/// @description: 当前时间戳 (单位: ms) <br>
+fn current_millis() -> u128 {
+    SystemTime::now().duration_since(UNIX_EPOCH).map(|d| d.as_millis()).unwrap_or(0)
+}
+
+/// @description: 读取执行进程的全部输出, 不是合法 UTF-8 的部分以替换字符代替 <br>
+/// @params: <br>
+///     output: 标准输出 / 标准错误 <br>
+async fn read_output<R: AsyncReadExt + Unpin>(output: &mut R) -> String {
+    let mut buffer = Vec::new();
+    let _ = output.read_to_end(&mut buffer).await;
+    String::from_utf8_lossy(&buffer).into_owned()
+}
+
+/// @description: 读取执行请求参数 <br>
+/// @params: <br>
+///     json_args_dir: request_args.json 所在目录 <br>
+async fn read_request_args(json_args_dir: &str) -> Result<RequestArgs, String> {
+    let mut request_args_file = tokio::fs::File::open(format!("{}request_args.json", json_args_dir))
         .await
-        .expect("无法打开 request_args.json 文件");
+        .map_err(|e| format!("无法打开 request_args.json 文件: {}", e))?;
     let mut request_args_string = String::new();
     request_args_file
         .read_to_string(&mut request_args_string)
         .await
-        .expect("无法读取 request_args.json 文件");
-    let request_args: RequestArgs = serde_json::from_str(&request_args_string).unwrap();
+        .map_err(|e| format!("无法读取 request_args.json 文件: {}", e))?;
+    serde_json::from_str(&request_args_string).map_err(|e| format!("request_args.json 格式错误: {}", e))
+}
 
+/// @description: 多线程异步执行全部测试数据 (并发数为可用的 CPU 核心数), 返回按完成顺序接收各个测试数据执行结果的管道, 以及各个执行任务 <br>
+/// @params: <br>
+///     request_args: 执行请求参数 <br>
+fn spawn_test_cases(request_args: RequestArgs) -> (mpsc::Receiver<Response>, Vec<task::JoinHandle<()>>) {
     /* 定义各个测试用例结果的收发管道, 初始化双倍数量的缓冲区, 避免缓冲区阻塞导致部分输出丢失 */
-    let (result_sender, mut result_receiver) =
+    let (result_sender, result_receiver) =
         mpsc::channel::<Response>(request_args.test_case_num as usize + 10);
 
     let file_dir = request_args.file_dir;
+    /* 分片执行时只执行指定的测试数据 */
+    let test_case_ids: Vec<u32> = match request_args.test_case_ids {
+        Some(ids) => ids,
+        None => (1..=request_args.test_case_num as u32).collect(),
+    };
+    /* 同时运行的测试数据不超过本进程可用的 CPU 核心数 (容器/临时服务绑定的 cpuset), 避免多个测试数据分时共用核心导致计时偏大 */
+    let parallelism = std::thread::available_parallelism().map(|n| n.get()).unwrap_or(1);
+    let run_permits = Arc::new(Semaphore::new(parallelism));
     /* 多线程异步执行 */
-    for test_case_id in 1..=request_args.test_case_num {
+    let mut handles = vec![];
+    for test_case_id in test_case_ids {
         let cloned_sender = result_sender.clone();
-        tokio::spawn(child_process(
-            file_dir.clone(),
-            test_case_id as u32,
-            request_args.lang as u32,
-            request_args.memory_limit,
-            request_args.time_limit as u64,
-            cloned_sender,
-        ));
+        let cloned_run_permits = Arc::clone(&run_permits);
+        let file_dir = file_dir.clone();
+        let run_command = request_args.run_command.clone();
+        let lang = request_args.lang as u32;
+        let memory_limit = request_args.memory_limit;
+        let time_limit = request_args.time_limit as u64;
+        handles.push(tokio::spawn(async move {
+            // 等待期间不计时, 信号量不会被关闭
+            let _run_permit = cloned_run_permits.acquire_owned().await;
+            child_process(file_dir, test_case_id, lang, run_command, memory_limit, time_limit, cloned_sender).await;
+        }));
     }
     drop(result_sender); // 销毁管道, 防止阻塞
+    (result_receiver, handles)
+}
 
+/// @description: 多线程异步执行全部测试数据, 返回各个测试数据的执行结果 <br>
+/// @params: <br>
+///     request_args: 执行请求参数 <br>
+async fn execute(request_args: RequestArgs) -> Vec<Response> {
+    let (mut result_receiver, _) = spawn_test_cases(request_args);
     /* 收集结果 */
     let mut responses: Vec<Response> = vec![];
     while let Some(result) = result_receiver.recv().await {
         responses.push(result);
     }
+    responses
+}
+
+/// @description: 常驻模式, 监听 Unix Socket 并处理作业请求 <br>
+/// @params: <br>
+///     socket_path: Unix Socket 文件路径 (位于只挂载到本容器的目录中, 用户代码可见的 /codeStore 中没有该目录) <br>
+async fn serve(socket_path: String) {
+    // 沙箱的 seccomp 配置禁止了 unlink, 残留的 socket 文件由宿主机在启动容器前清理
+    let _ = std::fs::remove_file(&socket_path);
+    let listener = match UnixListener::bind(&socket_path) {
+        Ok(listener) => listener,
+        Err(e) => {
+            eprintln!("无法监听 {}: {}", socket_path, e);
+            exit(1);
+        }
+    };
+    // socket 的属主设为其所在目录的属主 (宿主机上的服务用户), 只允许该用户连接
+    if let Err(e) = restrict_socket_owner(&socket_path) {
+        eprintln!("无法设置 {} 的权限: {}", socket_path, e);
+        exit(1);
+    }
+    loop {
+        match listener.accept().await {
+            Ok((stream, _)) => {
+                tokio::spawn(handle_connection(stream));
+            }
+            Err(e) => {
+                eprintln!("接受连接失败: {}", e);
+            }
+        }
+    }
+}
+
+/// @description: 将 socket 的属主设为其所在目录的属主, 权限设为 0600 <br>
+/// @params: <br>
+///     socket_path: Unix Socket 文件路径 <br>
+fn restrict_socket_owner(socket_path: &str) -> std::io::Result<()> {
+    let socket_dir = std::path::Path::new(socket_path)
+        .parent()
+        .ok_or_else(|| std::io::Error::new(std::io::ErrorKind::InvalidInput, "socket 路径没有所在目录"))?;
+    let dir_metadata = std::fs::metadata(socket_dir)?;
+    std::os::unix::fs::chown(socket_path, Some(dir_metadata.uid()), Some(dir_metadata.gid()))?;
+    std::fs::set_permissions(socket_path, std::fs::Permissions::from_mode(0o600))
+}
+
+/// @description: 连接上作业的状态
+enum JobState {
+    /* 已收到, 尚未开始执行 (正在读取作业参数) */
+    Pending,
+    /* 开始执行前已被取消 */
+    Cancelled,
+    /* 正在执行的测试数据任务 */
+    Running(Vec<task::JoinHandle<()>>),
+}
+
+/// @description: 处理单个连接, 同一连接上的多个作业并发执行, 结果按完成顺序写回, 可按作业 ID 取消作业 <br>
+/// @params: <br>
+///     stream: 客户端连接 <br>
+async fn handle_connection(stream: UnixStream) {
+    let (read_half, mut write_half) = stream.into_split();
+    let (line_sender, mut line_receiver) = mpsc::channel::<String>(64);
+    /* 作业 ID -> 作业状态, 作业在读取请求时登记, 保证随后到达的取消请求不会因作业尚未开始执行而丢失 */
+    let running_jobs: Arc<std::sync::Mutex<HashMap<u64, JobState>>> = Arc::new(std::sync::Mutex::new(HashMap::new()));
+
+    /* 写回任务, 保证每个作业结果完整地占据一行 */
+    let writer = tokio::spawn(async move {
+        while let Some(line) = line_receiver.recv().await {
+            if write_half.write_all(line.as_bytes()).await.is_err() {
+                break;
+            }
+        }
+    });
+
+    let mut lines = BufReader::new(read_half).lines();
+    while let Ok(Some(line)) = lines.next_line().await {
+        let line = line.trim().to_string();
+        if line.is_empty() {
+            continue;
+        }
+        let request = serde_json::from_str::<JobRequest>(&line);
+        match &request {
+            /* 取消作业: 终止其全部执行任务 (执行进程随任务一并结束), 尚未开始执行的作业标记为已取消 */
+            Ok(job) if job.cancel => {
+                let mut jobs = running_jobs.lock().unwrap_or_else(|e| e.into_inner());
+                match jobs.remove(&job.id) {
+                    Some(JobState::Running(handles)) => handles.iter().for_each(|handle| handle.abort()),
+                    Some(_) => {
+                        jobs.insert(job.id, JobState::Cancelled);
+                    }
+                    None => {}
+                }
+                continue;
+            }
+            Ok(job) => {
+                running_jobs
+                    .lock()
+                    .unwrap_or_else(|e| e.into_inner())
+                    .insert(job.id, JobState::Pending);
+            }
+            Err(_) => {}
+        }
+        let cloned_sender = line_sender.clone();
+        let cloned_running_jobs = Arc::clone(&running_jobs);
+        tokio::spawn(async move {
+            let job_response = match request {
+                Ok(job) => match read_request_args(&job.file_dir).await {
+                    Ok(mut request_args) => {
+                        if job.test_case_ids.is_some() {
+                            request_args.test_case_ids = job.test_case_ids;
+                        }
+                        /* 登记执行任务与检查是否已取消在同一次加锁中完成 */
+                        let spawned = {
+                            let mut jobs = cloned_running_jobs.lock().unwrap_or_else(|e| e.into_inner());
+                            if let Some(JobState::Cancelled) = jobs.get(&job.id) {
+                                jobs.remove(&job.id);
+                                None
+                            } else {
+                                let (result_receiver, handles) = spawn_test_cases(request_args);
+                                jobs.insert(job.id, JobState::Running(handles));
+                                Some(result_receiver)
+                            }
+                        };
+                        match spawned {
+                            Some(mut result_receiver) => {
+                                let mut responses: Vec<Response> = vec![];
+                                while let Some(result) = result_receiver.recv().await {
+                                    if job.stream {
+                                        /* 逐个写回测试数据的执行结果, 最后写回结束标记 */
+                                        send_job_response(&cloned_sender, &JobResponse::partial(job.id, result)).await;
+                                    } else {
+                                        responses.push(result);
+                                    }
+                                }
+                                cloned_running_jobs.lock().unwrap_or_else(|e| e.into_inner()).remove(&job.id);
+                                JobResponse::succeeded(job.id, responses)
+                            }
+                            None => JobResponse::failed(job.id, "作业已取消"),
+                        }
+                    }
+                    Err(e) => {
+                        cloned_running_jobs.lock().unwrap_or_else(|e| e.into_inner()).remove(&job.id);
+                        JobResponse::failed(job.id, e)
+                    }
+                },
+                /* 尽量取出作业 ID 写回错误, 避免客户端一直等待该作业 */
+                Err(e) => JobResponse::failed(parse_job_id(&line).unwrap_or(0), format!("作业请求格式错误: {}", e)),
+            };
+            send_job_response(&cloned_sender, &job_response).await;
+        });
+    }
+    drop(line_sender);
+    let _ = writer.await;
+}
+
+/// @description: 从格式错误的作业请求中取出作业 ID <br>
+/// @params: <br>
+///     line: 作业请求 <br>
+fn parse_job_id(line: &str) -> Option<u64> {
+    serde_json::from_str::<serde_json::Value>(line).ok()?.get("id")?.as_u64()
+}
+
+/// @description: 将作业结果序列化为一行交给写回任务 <br>
+/// @params: <br>
+///     line_sender: 写回任务的管道 <br>
+///     job_response: 作业结果 <br>
+async fn send_job_response(line_sender: &mpsc::Sender<String>, job_response: &JobResponse) {
+    if let Ok(output_json) = serde_json::to_string(job_response) {
+        let _ = line_sender.send(output_json + "\n").await;
+    }
+}
+
+#[tokio::main]
+async fn main() {
+    /* 常驻模式: execute_core --server <socket 路径> */
+    let args: Vec<String> = std::env::args().collect();
+    if args.len() >= 3 && args[1] == "--server" {
+        serve(args[2].clone()).await;
+        return;
+    }
+
+    /* 单次模式: 从标准输入获取 request_args.json 所在目录 */
+    let json_args_dir = task::block_in_place(|| {
+        let mut input = String::new();
+        if let Err(e) = std::io::stdin().read_line(&mut input) {
+            eprintln!("无法读取到 request_args.json 的所在目录: {}", e);
+            exit(1);
+        }
+        input.trim().to_string()
+    });
+    /* 获取执行请求参数 */
+    let request_args = match read_request_args(&json_args_dir).await {
+        Ok(request_args) => request_args,
+        Err(e) => {
+            eprintln!("{}", e);
+            exit(1);
+        }
+    };
+
+    let responses = execute(request_args).await;
     if let Ok(output_json) = serde_json::to_string(&responses) {
         println!("{}", general_purpose::STANDARD.encode(output_json));
         // println!("{}", output_json);
     } else {
         eprintln!("Failed to convert responses to JSON");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,229 @@
+package com.app.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import com.app.common.LangType;
+import com.app.config.CompileCacheProperties;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.IdUtil;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 编译缓存 —— 以 代码, 语言, 编译命令和编译器版本 的摘要为键, 在本地磁盘保存编译产物 (main / *.class),
+ *              命中时将编译产物复制到本次提交的目录中并跳过编译; 总大小超出上限时淘汰最久未使用的编译产物.
+ *              编译产物是复制而不是硬链接到提交目录中的, 避免用户程序改写缓存中的文件影响其他提交
+ */
+@Component
+@Slf4j
+public class CompileCache {
+	/* 写入中的编译产物目录前缀 (启动时清理) */
+	private static final String TEMP_PREFIX = "tmp-";
+
+	@Resource
+	private CompileCacheProperties compileCacheProperties;
+
+	private Path cacheDir;
+
+	/* 键 -> 编译产物大小, 按访问顺序排列 (由 this 保护) */
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalSize = 0;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	@PostConstruct
+	public void init() throws IOException {
+		if (!isEnabled()) {
+			return;
+		}
+		cacheDir = Files.createDirectories(
+				Paths.get(System.getProperty("user.dir") + File.separator + compileCacheProperties.getDir()));
+		/* 恢复已有的编译产物, 按最后使用时间排列 */
+		try (Stream<Path> dirs = Files.list(cacheDir)) {
+			List<Path> entryDirs = dirs.filter(Files::isDirectory)
+					.sorted(Comparator.comparingLong(dir -> dir.toFile().lastModified()))
+					.toList();
+			for (Path entryDir : entryDirs) {
+				String key = entryDir.getFileName().toString();
+				if (key.startsWith(TEMP_PREFIX)) {
+					FileUtil.del(entryDir);
+					continue;
+				}
+				long size = FileUtil.size(entryDir.toFile());
+				entries.put(key, size);
+				totalSize += size;
+			}
+		}
+		evict();
+		log.info("编译缓存已加载 " + entries.size() + " 个编译产物, 共 " + totalSize + "B");
+	}
+
+	public boolean isEnabled() {
+		return Boolean.TRUE.equals(compileCacheProperties.getEnabled());
+	}
+
+	/**
+	 * 计算编译缓存的键
+	 *
+	 * @param code            用户提交的代码
+	 * @param langType        编程语言
+	 * @param compileCommand  编译命令 (不含代码目录)
+	 * @param compilerVersion 编译器版本 (编译镜像 ID 或编译器版本信息)
+	 * @return 键 (sha-256)
+	 */
+	public static String key(String code, LangType langType, String[] compileCommand, String compilerVersion) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (String part : List.of(langType.getLangName(), String.join(" ", compileCommand),
+					String.valueOf(compilerVersion), code)) {
+				digest.update(part.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+			return HexUtil.encodeHexStr(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 将缓存的编译产物复制到本次提交的目录中
+	 *
+	 * @param key               键
+	 * @param codeFileParentDir 本次提交的目录
+	 * @return 是否命中 (复制期间被淘汰而没有复制完整时按未命中处理)
+	 */
+	public boolean restore(String key, Path codeFileParentDir) {
+		Long size;
+		synchronized (this) {
+			size = entries.get(key);
+			if (size == null) {
+				misses.increment();
+				return false;
+			}
+		}
+		Path entryDir = cacheDir.resolve(key);
+		try (Stream<Path> artifacts = Files.list(entryDir)) {
+			long restoredSize = 0;
+			for (Path artifact : artifacts.toList()) {
+				Path target = codeFileParentDir.resolve(artifact.getFileName());
+				Files.copy(artifact, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+				restoredSize += Files.size(target);
+			}
+			// 列出目录后该编译产物被淘汰删除时, 列表中会缺少文件
+			if (restoredSize != size) {
+				log.debug("编译缓存 " + key + " 在复制期间被淘汰");
+				misses.increment();
+				return false;
+			}
+			entryDir.toFile().setLastModified(System.currentTimeMillis());
+			hits.increment();
+			return true;
+		} catch (IOException e) {
+			// 复制期间被淘汰, 按未命中处理
+			log.debug("读取编译缓存失败: " + e);
+			misses.increment();
+			return false;
+		}
+	}
+
+	/**
+	 * 保存编译产物
+	 *
+	 * @param key       键
+	 * @param artifacts 编译产物 (本次提交目录中的文件)
+	 */
+	public void save(String key, List<Path> artifacts) {
+		if (artifacts.isEmpty()) {
+			return;
+		}
+		synchronized (this) {
+			if (entries.containsKey(key)) {
+				return;
+			}
+		}
+		Path tempDir = cacheDir.resolve(TEMP_PREFIX + IdUtil.fastSimpleUUID());
+		try {
+			Files.createDirectories(tempDir);
+			long size = 0;
+			for (Path artifact : artifacts) {
+				Files.copy(artifact, tempDir.resolve(artifact.getFileName()), StandardCopyOption.COPY_ATTRIBUTES);
+				size += Files.size(artifact);
+			}
+			synchronized (this) {
+				if (entries.containsKey(key)) {
+					FileUtil.del(tempDir);
+					return;
+				}
+				Files.move(tempDir, cacheDir.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+				entries.put(key, size);
+				totalSize += size;
+				evict();
+			}
+		} catch (IOException e) {
+			log.warn("保存编译产物失败: " + e);
+			FileUtil.del(tempDir);
+		}
+	}
+
+	/**
+	 * 淘汰最久未使用的编译产物, 直至总大小不超过上限
+	 */
+	private synchronized void evict() {
+		var iterator = entries.entrySet().iterator();
+		while (totalSize > compileCacheProperties.getMaxSize() && iterator.hasNext()) {
+			Map.Entry<String, Long> eldest = iterator.next();
+			iterator.remove();
+			totalSize -= eldest.getValue();
+			// 先重命名再删除, 正在复制该编译产物的提交只会读取失败, 不会读到部分文件
+			Path evictedDir = cacheDir.resolve(TEMP_PREFIX + IdUtil.fastSimpleUUID());
+			try {
+				Files.move(cacheDir.resolve(eldest.getKey()), evictedDir, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				log.warn("淘汰编译产物失败: " + e);
+				continue;
+			}
+			FileUtil.del(evictedDir);
+			evictions.increment();
+		}
+	}
+
+	/**
+	 * 编译缓存的运行指标
+	 *
+	 * @return 编译产物数量, 总大小, 命中/未命中/淘汰次数
+	 */
+	public synchronized Map<String, Long> getMetrics() {
+		Map<String, Long> metrics = new LinkedHashMap<>();
+		metrics.put("entries", (long) entries.size());
+		metrics.put("size", totalSize);
+		metrics.put("maxSize", compileCacheProperties.getMaxSize());
+		metrics.put("hits", hits.sum());
+		metrics.put("misses", misses.sum());
+		metrics.put("evictions", evictions.sum());
+		return metrics;
+	}
+}
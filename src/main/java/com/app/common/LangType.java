@@ -1,6 +1,10 @@
 package com.app.common;
 
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import com.app.exception.BusinessException;
 
@@ -22,6 +26,10 @@ public enum LangType {
   /* 解释型语言 */
   PYTHON("python");
 
+  /* 语言名称 (小写) -> 枚举值, 类加载时建立 */
+  private static final Map<String, LangType> BY_LANG_NAME = Arrays.stream(LangType.values())
+      .collect(Collectors.toUnmodifiableMap(e -> e.getLangName().toLowerCase(Locale.ROOT), Function.identity()));
+
   private final String langName;
 
   LangType(String langName) {
@@ -34,16 +42,10 @@ public enum LangType {
 
   // 通过语言名称获取对应的枚举值
   public static LangType getByLangName(String langName) {
-    return Arrays.stream(LangType.values())
-                  .filter(e -> {
-                    if (e.getLangName().equalsIgnoreCase(langName)) {
-                      return true;
-                    }
-                    return false;
-                  })
-                  .findFirst()
-                  .orElseThrow(() -> {
-                    throw new BusinessException(StatusEnum.SYSTEM_NOT_IMPLEMENTED);
-                  });
+    LangType langType = langName == null ? null : BY_LANG_NAME.get(langName.toLowerCase(Locale.ROOT));
+    if (langType == null) {
+      throw new BusinessException(StatusEnum.SYSTEM_NOT_IMPLEMENTED);
+    }
+    return langType;
   }
 }
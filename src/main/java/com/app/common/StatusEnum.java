@@ -19,8 +19,12 @@ public enum StatusEnum {
   PARAMS_ERROR(40000, "请求参数错误", ""),
   NULL_ERROR(40001, "请求数据为空或请求数据字段不正确", ""),
   NO_AUTH(40003, "你没有权限", ""),
+  TOO_MANY_REQUESTS(42900, "请求过于频繁, 请稍后重试", ""),
   SYSTEM_ERROR(50000, "系统内部异常", ""),
-  SYSTEM_NOT_IMPLEMENTED(50001, "系统暂不支持该语言", "");
+  SYSTEM_NOT_IMPLEMENTED(50001, "系统暂不支持该语言", ""),
+  SYSTEM_BUSY(50002, "系统繁忙, 请稍后重试", ""),
+  SANDBOX_NOT_READY(50003, "代码沙箱启动中, 请稍后重试", ""),
+  REQUEST_CANCELLED(50004, "请求已取消或超过截止时间", "");
 
   /**
    * 响应状态码
@@ -0,0 +1,331 @@
+package com.app.compile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+import org.springframework.stereotype.Component;
+
+import com.app.common.StatusEnum;
+import com.app.config.ContainerPoolProperties;
+import com.app.config.JavaCompilerProperties;
+import com.app.exception.BusinessException;
+import com.app.module.ProcessExecuteResult;
+import com.app.scheduler.CancellationContext;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 进程内 java 编译 —— 通过 javax.tools 在本服务进程内编译, 省去每次提交启动 javac 进程 (JVM 冷启动) 的开销.
+ *              源文件和编译产物都在内存中, 只有 .class 文件写入本次提交的目录; 文件管理器 (缓存了平台类的索引)
+ *              在编译之间复用, 每个文件管理器同一时刻只用于一次编译, 其数量即为同时编译的上限.
+ *              编译在单独的编译线程中执行, 提交方最多等待 timeout (或请求的剩余时间), 超时或请求取消时中断编译线程,
+ *              javac 在下一个编译阶段开始时终止; 编译线程结束后才归还文件管理器, 未能及时终止的编译仍计入同时编译的上限.
+ *              编译与服务共用堆内存, 源文件大小受 max-source-size 限制, 但编译本身没有内存上限
+ */
+@Component
+@Slf4j
+public class InProcessJavaCompiler {
+	private static final String JAVA_CODE_FILE_NAME = "Main.java";
+	/* 不执行注解处理器 */
+	private static final List<String> COMPILE_OPTIONS = List.of("-proc:none");
+
+	@Resource
+	private JavaCompilerProperties javaCompilerProperties;
+
+	@Resource
+	private ContainerPoolProperties containerPoolProperties;
+
+	private JavaCompiler compiler;
+
+	/* 空闲的文件管理器 */
+	private BlockingQueue<StandardJavaFileManager> fileManagers;
+
+	/* 编译线程, 数量与文件管理器相同 */
+	private ExecutorService compileExecutor;
+
+	@PostConstruct
+	public void init() throws IOException {
+		if (!Boolean.TRUE.equals(javaCompilerProperties.getInProcess())) {
+			return;
+		}
+		compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			log.warn("运行环境中没有 java 编译器, java 代码将通过 javac 进程编译");
+			return;
+		}
+		int concurrency = javaCompilerProperties.getConcurrency() > 0 ? javaCompilerProperties.getConcurrency()
+				: Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		fileManagers = new ArrayBlockingQueue<>(concurrency);
+		for (int i = 0; i < concurrency; i++) {
+			StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+			// 不使用本服务的类路径
+			fileManager.setLocation(StandardLocation.CLASS_PATH, List.of());
+			fileManagers.add(fileManager);
+		}
+		AtomicInteger threadIndex = new AtomicInteger();
+		compileExecutor = Executors.newFixedThreadPool(concurrency, r -> {
+			Thread thread = new Thread(r, "java-compiler-" + threadIndex.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+		log.info("java 代码在进程内编译, 同时编译的提交数量上限: " + concurrency);
+	}
+
+	/**
+	 * 是否可以在进程内编译
+	 */
+	public boolean isAvailable() {
+		return fileManagers != null;
+	}
+
+	/**
+	 * 是否可以在进程内编译本次提交的代码 (源文件不超过 max-source-size)
+	 *
+	 * @param codeFileParentDir 代码存储路径 (本机)
+	 */
+	public boolean accepts(Path codeFileParentDir) {
+		if (!isAvailable()) {
+			return false;
+		}
+		try {
+			return Files.size(codeFileParentDir.resolve(JAVA_CODE_FILE_NAME)) <= javaCompilerProperties.getMaxSourceSize();
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 编译器版本 (编译缓存使用)
+	 */
+	public String getVersion() {
+		return "javac " + Runtime.version();
+	}
+
+	/**
+	 * 编译本次提交目录中的 Main.java, 编译产物写入同一目录
+	 *
+	 * @param codeFileParentDir 代码存储路径 (本机)
+	 * @return 编译结果, 编译失败或超时时 exitValue 为 1001, errorResult 为 javac 格式的编译错误或超时信息;
+	 *         请求被取消时返回 REQUEST_CANCELLED 错误
+	 */
+	public ProcessExecuteResult compile(Path codeFileParentDir) {
+		CancellationContext context = CancellationContext.current();
+		StandardJavaFileManager fileManager;
+		try {
+			fileManager = fileManagers.poll(context.remainingMillis(containerPoolProperties.getLeaseTimeout()),
+					TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "等待 java 编译器时被中断. " + e);
+		}
+		if (fileManager == null) {
+			context.checkCancelled();
+			throw new BusinessException(StatusEnum.SYSTEM_BUSY, "暂无空闲的 java 编译器");
+		}
+		Future<ProcessExecuteResult> future;
+		try {
+			context.checkCancelled();
+			future = compileExecutor.submit(() -> {
+				try {
+					return compile(fileManager, codeFileParentDir);
+				} finally {
+					fileManagers.offer(fileManager);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			fileManagers.offer(fileManager);
+			throw new BusinessException(StatusEnum.SYSTEM_BUSY, "java 编译器已关闭");
+		} catch (RuntimeException e) {
+			fileManagers.offer(fileManager);
+			throw e;
+		}
+		long timeout = context.remainingMillis(javaCompilerProperties.getTimeout());
+		try (var registration = context.onCancel(() -> future.cancel(true))) {
+			return future.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			context.checkCancelled();
+			return ProcessExecuteResult.builder()
+					.exitValue(1001)
+					.errorResult("编译超时 (" + timeout + "ms)")
+					.build();
+		} catch (CancellationException e) {
+			context.checkCancelled();
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "java 代码编译被中止");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "java 代码编译失败. " + e.getCause());
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "等待 java 代码编译时被中断. " + e);
+		}
+	}
+
+	/**
+	 * 在编译线程中编译, 线程被中断时在下一个编译阶段开始前终止
+	 */
+	private ProcessExecuteResult compile(StandardJavaFileManager fileManager, Path codeFileParentDir) {
+		try {
+			String source = Files.readString(codeFileParentDir.resolve(JAVA_CODE_FILE_NAME), StandardCharsets.UTF_8);
+			Map<String, ByteArrayOutputStream> classFiles = new LinkedHashMap<>();
+			StringWriter output = new StringWriter();
+			var task = compiler.getTask(output, new MemoryFileManager(fileManager, classFiles), null,
+					COMPILE_OPTIONS, null, List.of(new SourceFile(source)));
+			if (task instanceof JavacTask javacTask) {
+				javacTask.addTaskListener(new InterruptListener());
+			}
+			boolean success = task.call();
+			if (!success) {
+				return ProcessExecuteResult.builder()
+						.exitValue(1001)
+						.errorResult(output.toString())
+						.build();
+			}
+			// 提交方已不再等待 (超时或取消) 时不写入编译产物
+			if (Thread.currentThread().isInterrupted()) {
+				throw new CancellationException("java 代码编译被中断");
+			}
+			/* 与 javac Main.java 一致, .class 文件与源文件在同一目录 */
+			for (var classFile : classFiles.entrySet()) {
+				String className = classFile.getKey();
+				String simpleName = className.substring(className.lastIndexOf('.') + 1);
+				Files.write(codeFileParentDir.resolve(simpleName + JavaFileObject.Kind.CLASS.extension),
+						classFile.getValue().toByteArray());
+			}
+			return ProcessExecuteResult.builder()
+					.exitValue(0)
+					.normalResult(output.toString())
+					.build();
+		} catch (IOException e) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "java 代码编译失败. " + e);
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (fileManagers == null) {
+			return;
+		}
+		compileExecutor.shutdownNow();
+		for (StandardJavaFileManager fileManager : fileManagers) {
+			try {
+				fileManager.close();
+			} catch (IOException e) {
+				log.debug("关闭 java 文件管理器失败: " + e);
+			}
+		}
+	}
+
+	/**
+	 * 编译线程被中断 (超时或请求取消) 时终止编译
+	 */
+	private static class InterruptListener implements TaskListener {
+		@Override
+		public void started(TaskEvent e) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new CancellationException("java 代码编译被中断");
+			}
+		}
+	}
+
+	/**
+	 * 内存中的源文件
+	 */
+	private static class SourceFile extends SimpleJavaFileObject {
+		private final String source;
+
+		SourceFile(String source) {
+			super(URI.create("string:///" + JAVA_CODE_FILE_NAME), Kind.SOURCE);
+			this.source = source;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return source;
+		}
+	}
+
+	/**
+	 * 内存中的 .class 文件
+	 */
+	private static class ClassFile extends SimpleJavaFileObject {
+		private final ByteArrayOutputStream content;
+
+		ClassFile(String className, ByteArrayOutputStream content) {
+			super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+			this.content = content;
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return content;
+		}
+	}
+
+	/**
+	 * 编译产物写入内存的文件管理器, 其余请求交给复用的标准文件管理器
+	 */
+	private static class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+		private final Map<String, ByteArrayOutputStream> classFiles;
+
+		MemoryFileManager(JavaFileManager fileManager, Map<String, ByteArrayOutputStream> classFiles) {
+			super(fileManager);
+			this.classFiles = classFiles;
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+				FileObject sibling) {
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			classFiles.put(className, content);
+			return new ClassFile(className, content);
+		}
+
+		/* 编译结束时不关闭复用的标准文件管理器 */
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 异步评审配置 (application.yml 中 sandbox.async)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.async")
+public class AsyncJudgeProperties {
+  /**
+   * 异步评审队列的存放目录 (相对项目根目录)
+   */
+  private String queueDir = "judgeQueue";
+
+  /**
+   * 排队 (含正在评审) 的提交数量上限, 超出后返回系统繁忙
+   */
+  private Integer maxPending = 10000;
+
+  /**
+   * 消费队列的线程数, 0 表示 CPU 核心数
+   */
+  private Integer workers = 0;
+
+  /**
+   * 系统繁忙时重新评审的间隔 (单位: ms)
+   */
+  private Long retryInterval = 1000L;
+
+  /**
+   * 评审结果的回调地址, 为空时只能通过提交 ID 查询结果
+   */
+  private String callbackUrl;
+
+  /**
+   * 单次回调最多推送的评审结果数量
+   */
+  private Integer callbackBatchSize = 50;
+
+  /**
+   * 回调推送间隔 (单位: ms)
+   */
+  private Long callbackInterval = 1000L;
+
+  /**
+   * 评审结果的保留时间 (单位: ms)
+   */
+  private Long resultTtl = 60 * 60 * 1000L;
+
+  /**
+   * 关闭服务时等待正在评审的提交完成的最长时间 (单位: ms)
+   */
+  private Long drainTimeout = 30000L;
+}
@@ -0,0 +1,60 @@
+package com.app.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 调用方配额配置 (application.yml 中 sandbox.quota)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.quota")
+public class CallerQuotaProperties {
+  /**
+   * 需要校验调用方的接口路径前缀
+   */
+  private List<String> paths = new ArrayList<>(List.of("/debug", "/multi-debug", "/judge"));
+
+  /**
+   * 已注册的调用方
+   */
+  private List<CallerConfig> callers = new ArrayList<>();
+
+  /**
+   * 单个调用方配置
+   */
+  @Data
+  public static class CallerConfig {
+    /**
+     * 调用方令牌 (请求头 token)
+     */
+    private String token;
+
+    /**
+     * 调用方名称, 同时作为调度时的调用方标识
+     */
+    private String name;
+
+    /**
+     * 每秒最多提交次数, 0 表示不限制
+     */
+    private Double rate = 0D;
+
+    /**
+     * 允许的突发提交次数, 0 表示与每秒提交次数相同
+     */
+    private Integer burst = 0;
+
+    /**
+     * 同时执行的提交数量上限, 0 表示不限制
+     */
+    private Integer maxConcurrent = 0;
+  }
+}
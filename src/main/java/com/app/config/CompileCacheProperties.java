@@ -0,0 +1,31 @@
+package com.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 编译缓存配置 (application.yml 中 sandbox.compile-cache)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.compile-cache")
+public class CompileCacheProperties {
+  /**
+   * 是否缓存编译产物 (相同代码, 语言, 编译命令和编译器版本的提交不再重复编译)
+   */
+  private Boolean enabled = true;
+
+  /**
+   * 编译产物的存放目录 (相对项目根目录)
+   */
+  private String dir = "compileCache";
+
+  /**
+   * 编译产物的总大小上限 (单位: B), 超出时淘汰最久未使用的编译产物
+   */
+  private Long maxSize = 1024 * 1024 * 1024L;
+}
@@ -0,0 +1,96 @@
+package com.app.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 容器池配置 (application.yml 中 sandbox.pool)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.pool")
+public class ContainerPoolProperties {
+  /**
+   * 租借容器的最长等待时间 (单位: ms)
+   */
+  private Long leaseTimeout = 10000L;
+
+  /**
+   * 空闲容器健康检查间隔 (单位: ms)
+   */
+  private Long healthCheckInterval = 10000L;
+
+  /**
+   * 容器池配置, key 为容器池名称
+   */
+  private Map<String, PoolConfig> pools = new LinkedHashMap<>();
+
+  /**
+   * 编程语言 -> 运行该语言的沙箱容器池名称, 未配置的语言使用 sandbox 容器池
+   */
+  private Map<String, String> langPools = new LinkedHashMap<>();
+
+  /**
+   * 单个容器池配置
+   */
+  @Data
+  public static class PoolConfig {
+    /**
+     * 镜像名
+     */
+    private String image;
+
+    /**
+     * 构建镜像使用的 Dockerfile (相对项目根目录), 为空时按 flag 使用 compile_env/Dockerfile 或 Dockerfile
+     */
+    private String dockerfile;
+
+    /**
+     * 构建镜像的目标阶段 (docker build --target), 为空时构建 Dockerfile 的最后一个阶段
+     */
+    private String target;
+
+    /**
+     * 容器名前缀 (容器名为 前缀-序号)
+     */
+    private String containerPrefix;
+
+    /**
+     * 0: 编译镜像, 1: 运行时镜像
+     */
+    private Integer flag = 1;
+
+    /**
+     * 预先创建并启动的容器数量
+     */
+    private Integer size = 1;
+
+    /**
+     * 单个容器最多被租借的次数, 超出后销毁并重建该容器
+     */
+    private Integer maxUses = 500;
+
+    /**
+     * 单个容器的内存上限 (单位: B)
+     */
+    private Long memory = 256 * 1024 * 1024L;
+
+    /**
+     * 单个容器可使用的 CPU 数量
+     */
+    private Long cpuCount = 1L;
+
+    /**
+     * 编译缓存卷 (Docker 命名卷或本机目录), 挂载到编译容器内的 /ccache, 容器替换后缓存仍然保留;
+     * 为空时不挂载, 并在容器内禁用 ccache
+     */
+    private String cacheVolume;
+  }
+}
@@ -0,0 +1,41 @@
+package com.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 执行槽位配置 (application.yml 中 sandbox.slot)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.slot")
+public class CpuSlotProperties {
+  /**
+   * 是否将沙箱容器绑定到固定的 CPU 核心上执行
+   */
+  private Boolean enabled = true;
+
+  /**
+   * 使用的 CPU 核心数, 0 表示本服务可使用的全部核心 (读取 cgroup 的 cpuset, 核心编号不要求连续)
+   */
+  private Integer cpus = 0;
+
+  /**
+   * 预留给本服务 (JVM) 和编译容器的 CPU 核心数 (从编号最小的可用核心开始)
+   */
+  private Integer reservedCpus = 1;
+
+  /**
+   * 每个执行槽位独占的 CPU 核心数, 即槽位内同时运行的测试数据数量 (execute_core 按可用核心数限制并发)
+   */
+  private Integer cpusPerSlot = 1;
+
+  /**
+   * 每个执行槽位的内存预算 (单位: B), 为空时使用容器池配置的内存上限
+   */
+  private Long memoryPerSlot;
+}
@@ -0,0 +1,28 @@
+package com.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description execute_core 配置 (application.yml 中 sandbox.execute-core)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.execute-core")
+public class ExecuteCoreProperties {
+  /**
+   * 运行模式 <br>
+   * daemon: 连接沙箱容器内常驻的 execute_core (Unix Socket) <br>
+   * exec: 每次提交通过 docker exec 启动一次 execute_core
+   */
+  private String mode = "daemon";
+
+  /**
+   * 常驻模式下单个作业的最长等待时间 (单位: ms)
+   */
+  private Long jobTimeout = 60000L;
+}
@@ -0,0 +1,38 @@
+package com.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description java 编译配置 (application.yml 中 sandbox.java-compiler)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.java-compiler")
+public class JavaCompilerProperties {
+  /**
+   * 是否在本服务进程内通过 javax.tools 编译 java 代码 (否则每次提交启动一个 javac 进程),
+   * 运行环境没有 javac (仅 JRE) 时自动退回 javac 进程. 进程内编译使用本服务的堆内存, 没有单独的内存上限,
+   * 恶意代码 (如深层嵌套的泛型推断) 可能耗尽堆内存而影响整个服务, 因此默认关闭
+   */
+  private Boolean inProcess = false;
+
+  /**
+   * 进程内编译的最长时间 (单位: ms), 超时按编译错误返回
+   */
+  private Long timeout = 10000L;
+
+  /**
+   * 进程内编译的源文件大小上限 (单位: B), 更大的源文件通过 javac 进程编译
+   */
+  private Long maxSourceSize = 64 * 1024L;
+
+  /**
+   * 进程内同时编译的提交数量 (每个编译复用一个文件管理器), 0 表示 CPU 核心数的一半 (至少 1)
+   */
+  private Integer concurrency = 0;
+}
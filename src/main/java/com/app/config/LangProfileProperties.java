@@ -0,0 +1,82 @@
+package com.app.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 编程语言配置 (application.yml 中 sandbox.lang), 命令模板中的 {dir} 替换为本次提交的代码目录
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.lang")
+public class LangProfileProperties {
+  /**
+   * 编程语言名称 (与 LangType 一致) -> 语言配置
+   */
+  private Map<String, LangProfile> profiles = new LinkedHashMap<>();
+
+  /**
+   * 单个编程语言的配置
+   */
+  @Data
+  public static class LangProfile {
+    /**
+     * 代码文件名
+     */
+    private String codeFileName;
+
+    /**
+     * 编译器及其固定参数, 为空表示不需要编译
+     */
+    private List<String> compiler = new ArrayList<>();
+
+    /**
+     * 在编译容器 (compile_env) 中使用的编译器及其固定参数, 为空时与 compiler 相同
+     */
+    private List<String> compileEnvCompiler = new ArrayList<>();
+
+    /**
+     * 编译选项 (优化级别, 语言标准等)
+     */
+    private List<String> compileFlags = new ArrayList<>();
+
+    /**
+     * 编译参数模板 (源文件, 输出文件), 目录模板不以路径分隔符结尾
+     */
+    private List<String> compileArgs = new ArrayList<>();
+
+    /**
+     * execute_core 的执行方式 1: 可执行文件, 2: jvm, 3: python
+     */
+    private Integer executeCoreLang = 1;
+
+    /**
+     * 执行命令模板, 目录模板以路径分隔符结尾; 为空时由 execute_core 按执行方式选择
+     */
+    private List<String> runCommand = new ArrayList<>();
+
+    /**
+     * 同时编译的数量上限, 0 表示只受全部语言共用的编译许可限制
+     */
+    private Integer compileConcurrency = 0;
+
+    /**
+     * 时间限制倍数 (相对于请求中的时间限制)
+     */
+    private Double timeMultiplier = 1.0;
+
+    /**
+     * 内存限制倍数 (相对于请求中的内存限制)
+     */
+    private Double memoryMultiplier = 1.0;
+  }
+}
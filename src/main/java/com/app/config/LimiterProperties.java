@@ -0,0 +1,61 @@
+package com.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 自适应并发限制配置 (application.yml 中 sandbox.limiter)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.limiter")
+public class LimiterProperties {
+  /**
+   * 是否按沙箱开销 (排队等待和用户程序以外的执行耗时) 和剩余内存自动调整同时执行的提交数量
+   */
+  private Boolean enabled = true;
+
+  /**
+   * 初始并发数, 0 表示 CPU 核心数
+   */
+  private Integer initialLimit = 0;
+
+  /**
+   * 最小并发数
+   */
+  private Integer minLimit = 1;
+
+  /**
+   * 最大并发数, 0 表示 CPU 核心数的 4 倍
+   */
+  private Integer maxLimit = 0;
+
+  /**
+   * 可容忍的耗时膨胀比例 (近期耗时 / 长期耗时超过该值时缩小并发数)
+   */
+  private Double tolerance = 1.2;
+
+  /**
+   * 并发数调整的平滑系数 (0 ~ 1)
+   */
+  private Double smoothing = 0.2;
+
+  /**
+   * 单个提交预估占用的内存 (单位: B), 按剩余内存计算并发上限
+   */
+  private Long memoryPerExecution = 256 * 1024 * 1024L;
+
+  /**
+   * 为系统保留的内存 (单位: B)
+   */
+  private Long memoryReserve = 512 * 1024 * 1024L;
+
+  /**
+   * 剩余内存的采样间隔 (单位: ms)
+   */
+  private Long memorySampleInterval = 1000L;
+}
@@ -0,0 +1,72 @@
+package com.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 本机代码沙箱配置 (application.yml 中 sandbox.native, sandbox.backend 为 native 时生效)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.native")
+public class NativeSandBoxProperties {
+  /**
+   * systemd-run 命令 (需要 root 权限或相应的 polkit 授权)
+   */
+  private String systemdRun = "systemd-run";
+
+  /**
+   * systemctl 命令 (请求取消时用于结束临时服务)
+   */
+  private String systemctl = "systemctl";
+
+  /**
+   * 本机 execute_core 可执行文件路径 (相对项目根目录)
+   */
+  private String executeCorePath = "execute_core/target/release/execute_core";
+
+  /**
+   * 编译和运行用户代码的用户, 需能读取代码存放目录和 execute_core
+   */
+  private String user = "nobody";
+
+  /**
+   * 运行时的 seccomp 配置文件 (classpath 下, Docker seccomp profile 格式)
+   */
+  private String seccompProfile = "permission/seccomp_profile_for_container.json";
+
+  /**
+   * 编译时的系统调用过滤规则 (systemd SystemCallFilter 格式), 为空时不过滤. 编译器需要创建和删除临时文件,
+   * 不能使用运行时的 seccomp 配置 (禁止 unlink, rename 等)
+   */
+  private String compileSystemCallFilter = "@system-service";
+
+  /**
+   * 编译进程的内存上限 (单位: B)
+   */
+  private Long compileMemory = 1024 * 1024 * 1024L;
+
+  /**
+   * 编译的最长时间 (单位: s)
+   */
+  private Long compileTimeout = 30L;
+
+  /**
+   * 运行时 execute_core 及用户进程的内存上限 (单位: B), 单个测试数据的内存限制仍由 execute_core 判定
+   */
+  private Long runMemory = 1024 * 1024 * 1024L;
+
+  /**
+   * 运行的最长时间 (单位: s)
+   */
+  private Long runTimeout = 60L;
+
+  /**
+   * 最大进程/线程数 (运行时为 execute_core 及同时运行的全部测试数据, 每个 JVM 测试数据有数十个线程)
+   */
+  private Integer tasksMax = 1024;
+}
@@ -0,0 +1,57 @@
+package com.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 评审流水线配置 (application.yml 中 sandbox.pipeline)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.pipeline")
+public class PipelineProperties {
+  /**
+   * 是否将评审拆分为 代码存储 -> 编译 -> 运行 -> 判题 四个阶段, 不同提交的不同阶段并行执行
+   */
+  private Boolean enabled = true;
+
+  /**
+   * 代码存储阶段 (写入代码和测试数据), workers 为 0 时取核心数的一半 (至少 2)
+   */
+  private StageConfig staging = new StageConfig();
+
+  /**
+   * 编译阶段, workers 为 0 时取核心数
+   */
+  private StageConfig compile = new StageConfig();
+
+  /**
+   * 运行阶段, workers 为 0 时取核心数
+   */
+  private StageConfig run = new StageConfig();
+
+  /**
+   * 判题阶段 (比对输出和清理代码目录), workers 为 0 时取核心数的一半 (至少 2)
+   */
+  private StageConfig verdict = new StageConfig();
+
+  /**
+   * 单个阶段配置
+   */
+  @Data
+  public static class StageConfig {
+    /**
+     * 工作线程数, 0 表示按 CPU 核心数计算
+     */
+    private Integer workers = 0;
+
+    /**
+     * 最大排队数量, 0 表示工作线程数的 4 倍, 排队已满时上一阶段等待 (背压)
+     */
+    private Integer queueSize = 0;
+  }
+}
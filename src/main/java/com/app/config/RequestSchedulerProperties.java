@@ -0,0 +1,77 @@
+package com.app.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 评测请求调度配置 (application.yml 中 sandbox.scheduler)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.scheduler")
+public class RequestSchedulerProperties {
+  /**
+   * 标识调用方的请求头, 没有该请求头时使用客户端地址
+   */
+  private String callerHeader = "X-Caller-Id";
+
+  /**
+   * 请求剩余时间的请求头 (单位: ms), 超过该时间后终止正在执行的编译/运行, 没有该请求头时不限制
+   */
+  private String deadlineHeader = "X-Request-Timeout";
+
+  /**
+   * 执行方式 platform: 固定数量的平台线程, virtual: 每个提交一个虚拟线程 (需要 JDK 21 及以上, 否则退回 platform)
+   */
+  private String executionMode = "platform";
+
+  /**
+   * 同时编译的提交数量上限 (编译是真正占用 CPU 的环节), 0 表示 docker 后端取编译容器池的大小, native 后端取 CPU 核心数;
+   * docker 后端不超过编译容器池的大小, 在本机编译的 java 单独限制 (取配置值, 0 表示 CPU 核心数)
+   */
+  private Integer compilePermits = 0;
+
+  /**
+   * 调用方权重 (默认为 1), 同一通道内按权重公平分配执行机会
+   */
+  private Map<String, Double> callerWeights = new LinkedHashMap<>();
+
+  /**
+   * 交互通道 (/debug, /multi-debug), 对延迟敏感
+   */
+  private LaneConfig interactive = new LaneConfig();
+
+  /**
+   * 批量通道 (/judge), 侧重吞吐量
+   */
+  private LaneConfig batch = new LaneConfig();
+
+  /**
+   * 单个通道配置
+   */
+  @Data
+  public static class LaneConfig {
+    /**
+     * 并发执行的线程数, 0 表示按 CPU 核心数计算
+     */
+    private Integer threads = 0;
+
+    /**
+     * virtual 执行方式下同时执行的提交数量上限, 0 表示 1024
+     * (真正受限的资源由容器池, 执行槽位和编译许可约束)
+     */
+    private Integer virtualConcurrency = 0;
+
+    /**
+     * 最大排队数量, 0 表示线程数的 4 倍, 超出后返回系统繁忙
+     */
+    private Integer queueSize = 0;
+  }
+}
@@ -0,0 +1,31 @@
+package com.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 测试数据分片执行配置 (application.yml 中 sandbox.shard)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.shard")
+public class ShardProperties {
+  /**
+   * 是否将单个提交的测试数据分到多个沙箱容器中并行执行 (仅 execute_core 常驻模式)
+   */
+  private Boolean enabled = true;
+
+  /**
+   * 每个分片至少包含的测试数据数量, 测试数据较少时不分片
+   */
+  private Integer minTestCasesPerShard = 4;
+
+  /**
+   * 单个提交最多使用的沙箱容器数量
+   */
+  private Integer maxShards = 4;
+}
@@ -0,0 +1,26 @@
+package com.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 启动预热配置 (application.yml 中 sandbox.warm-up)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.warm-up")
+public class WarmUpProperties {
+  /**
+   * 容器池启动后是否运行 testCode 中的程序进行预热
+   */
+  private Boolean enabled = true;
+
+  /**
+   * 每种语言的预热轮数 (第一轮为冷启动)
+   */
+  private Integer rounds = 3;
+}
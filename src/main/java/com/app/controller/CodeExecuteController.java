@@ -1,32 +1,45 @@
 package com.app.controller;
 
+import java.net.InetSocketAddress;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.annotation.Resource;
 
-import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 
 import com.app.common.BaseHttpResponse;
 import com.app.common.LangType;
 import com.app.common.StatusEnum;
+import com.app.config.RequestSchedulerProperties;
 import com.app.exception.BusinessException;
 import com.app.module.debug.DebugRequest;
 import com.app.module.debug.DebugResponse;
 import com.app.module.debug.MultiTestCaseDebugRequest;
 import com.app.module.debug.MultiTestCaseDebugResponse;
+import com.app.module.judge.AsyncJudgeResult;
 import com.app.module.judge.JudgeRequest;
 import com.app.module.judge.JudgeResponse;
+import com.app.module.judge.JudgeStreamResponse;
+import com.app.queue.AsyncJudgeQueue;
+import com.app.scheduler.LaneType;
+import com.app.scheduler.SandBoxTaskScheduler;
+import com.app.security.CallerPermit;
 import com.app.service.CodeSandBox;
+import com.app.task.BuildDockerSandBox;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 /**
  * @author HDD
@@ -39,11 +52,17 @@ public class CodeExecuteController {
   @Resource
   public CodeSandBox codeSandBox;
 
-  private static final ThreadPoolExecutor debugPoolExecutor = new ThreadPoolExecutor(10, 10, 1, TimeUnit.MINUTES,
-      new LinkedBlockingQueue<>(10));
+  @Resource
+  private BuildDockerSandBox buildDockerSandBox;
 
-  private static final ThreadPoolExecutor judgePoolExecutor = new ThreadPoolExecutor(10, 10, 1, TimeUnit.MINUTES,
-      new LinkedBlockingQueue<>(10));
+  @Resource
+  private SandBoxTaskScheduler sandBoxTaskScheduler;
+
+  @Resource
+  private RequestSchedulerProperties requestSchedulerProperties;
+
+  @Resource
+  private AsyncJudgeQueue asyncJudgeQueue;
 
   /**
    * 评测机调试接口
@@ -54,18 +73,14 @@ public class CodeExecuteController {
   @PostMapping("/debug")
   public Mono<BaseHttpResponse<DebugResponse>> codeDebug(@RequestBody DebugRequest debugRequest,
       ServerHttpRequest sHttpRequest) {
-    HttpHeaders headers = sHttpRequest.getHeaders();
-    String tokioHeaderValue = headers.getFirst("token");
-    if (tokioHeaderValue == null || !tokioHeaderValue.equals("AuroraOJ-HDD")) {
-      throw new BusinessException(StatusEnum.NO_AUTH);
+    if (!buildDockerSandBox.isReady()) {
+      throw new BusinessException(StatusEnum.SANDBOX_NOT_READY);
     }
     if (debugRequest.isNull()) {
       throw new BusinessException(StatusEnum.NULL_ERROR);
     }
     LangType.getByLangName(debugRequest.getLang());
-    DebugResponse debugResponse = codeSandBox.codeDebug(debugRequest);
-    return BaseHttpResponse.ok(debugResponse, "调试完成")
-        .publishOn(Schedulers.fromExecutor(debugPoolExecutor));
+    return execute(LaneType.INTERACTIVE, sHttpRequest, 1, () -> codeSandBox.codeDebug(debugRequest), "调试完成");
   }
 
   /**
@@ -77,19 +92,35 @@ public class CodeExecuteController {
   @PostMapping("/multi-debug")
   public Mono<BaseHttpResponse<List<MultiTestCaseDebugResponse>>> multiTestCaseCodeDebug(@RequestBody MultiTestCaseDebugRequest debugRequest,
       ServerHttpRequest sHttpRequest) {
-    HttpHeaders headers = sHttpRequest.getHeaders();
-    String tokioHeaderValue = headers.getFirst("token");
-    if (tokioHeaderValue == null || !tokioHeaderValue.equals("AuroraOJ-HDD")) {
-      throw new BusinessException(StatusEnum.NO_AUTH);
+    if (!buildDockerSandBox.isReady()) {
+      throw new BusinessException(StatusEnum.SANDBOX_NOT_READY);
+    }
+    if (debugRequest.isNull()) {
+      throw new BusinessException(StatusEnum.NULL_ERROR);
+    }
+    LangType.getByLangName(debugRequest.getLang());
+    return execute(LaneType.INTERACTIVE, sHttpRequest, debugRequest.getTestCases().size(),
+        () -> codeSandBox.multiTestCaseCodeDebug(debugRequest), "调试完成");
+  }
+
+  /**
+   * 多测试用例评测机调试接口 (逐个返回), 每个测试用例运行完成时返回一行调试结果
+   * 
+   * @param debugRequest 调试请求
+   * @return 调试结果
+   */
+  @PostMapping(value = "/multi-debug/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<MultiTestCaseDebugResponse> multiTestCaseCodeDebugStream(@RequestBody MultiTestCaseDebugRequest debugRequest,
+      ServerHttpRequest sHttpRequest) {
+    if (!buildDockerSandBox.isReady()) {
+      throw new BusinessException(StatusEnum.SANDBOX_NOT_READY);
     }
     if (debugRequest.isNull()) {
       throw new BusinessException(StatusEnum.NULL_ERROR);
     }
     LangType.getByLangName(debugRequest.getLang());
-    List<MultiTestCaseDebugResponse> debugResponse = codeSandBox.multiTestCaseCodeDebug(debugRequest);
-    
-    return BaseHttpResponse.ok(debugResponse, "调试完成")
-        .publishOn(Schedulers.fromExecutor(debugPoolExecutor));
+    return executeStream(LaneType.INTERACTIVE, sHttpRequest, debugRequest.getTestCases().size(),
+        onResult -> CompletableFuture.completedFuture(codeSandBox.multiTestCaseCodeDebug(debugRequest, onResult)), null);
   }
 
   /**
@@ -101,17 +132,149 @@ public class CodeExecuteController {
   @PostMapping("/judge")
   public Mono<BaseHttpResponse<JudgeResponse>> codeJudge(@RequestBody JudgeRequest judgeRequest,
       ServerHttpRequest sHttpRequest) {
-    HttpHeaders headers = sHttpRequest.getHeaders();
-    String tokioHeaderValue = headers.getFirst("token");
-    if (tokioHeaderValue == null || !tokioHeaderValue.equals("AuroraOJ-HDD")) {
-      throw new BusinessException(StatusEnum.NO_AUTH);
+    if (!buildDockerSandBox.isReady()) {
+      throw new BusinessException(StatusEnum.SANDBOX_NOT_READY);
     }
     if (judgeRequest.isNull()) {
       throw new BusinessException(StatusEnum.NULL_ERROR);
     }
     LangType.getByLangName(judgeRequest.getLang());
-    JudgeResponse judgeResponse = codeSandBox.codeJudge(judgeRequest);
-    return BaseHttpResponse.ok(judgeResponse, "评审完成")
-        .publishOn(Schedulers.fromExecutor(judgePoolExecutor));
+    return executeAsync(LaneType.BATCH, sHttpRequest, judgeRequest.getTestCases().size(),
+        () -> codeSandBox.codeJudgeAsync(judgeRequest, null), "评审完成");
+  }
+
+  /**
+   * 异步评审接口, 提交落盘后立即返回提交 ID
+   * 
+   * @param judgeRequest 评测请求
+   * @return 提交 ID
+   */
+  @PostMapping("/judge/async")
+  public Mono<BaseHttpResponse<String>> asyncCodeJudge(@RequestBody JudgeRequest judgeRequest,
+      ServerWebExchange exchange) {
+    if (judgeRequest.isNull()) {
+      throw new BusinessException(StatusEnum.NULL_ERROR);
+    }
+    LangType.getByLangName(judgeRequest.getLang());
+    // 调用方的同时执行名额转交给异步评审队列, 评审完成时才释放
+    CallerPermit permit = exchange.getAttribute(CallerPermit.ATTRIBUTE);
+    return BaseHttpResponse.ok(asyncJudgeQueue.submit(judgeRequest, getCaller(exchange.getRequest()), permit), "提交成功");
+  }
+
+  /**
+   * 异步评审结果查询接口
+   * 
+   * @param submissionId 提交 ID
+   * @return 评测结果 (只能查询本调用方的提交)
+   */
+  @GetMapping("/judge/async/{submissionId}")
+  public Mono<BaseHttpResponse<AsyncJudgeResult>> getAsyncJudgeResult(@PathVariable String submissionId,
+      ServerHttpRequest sHttpRequest) {
+    return BaseHttpResponse.ok(asyncJudgeQueue.getResult(submissionId, getCaller(sHttpRequest)), "查询成功");
+  }
+
+  /**
+   * 评测机评审接口 (逐个返回), 每个测试数据评审完成时返回一行该测试数据的评审结果, 最后一行为最终评审结果
+   * 
+   * @param judgeRequest 评测请求
+   * @return 评测结果
+   */
+  @PostMapping(value = "/judge/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<JudgeStreamResponse> codeJudgeStream(@RequestBody JudgeRequest judgeRequest,
+      ServerHttpRequest sHttpRequest) {
+    if (!buildDockerSandBox.isReady()) {
+      throw new BusinessException(StatusEnum.SANDBOX_NOT_READY);
+    }
+    if (judgeRequest.isNull()) {
+      throw new BusinessException(StatusEnum.NULL_ERROR);
+    }
+    LangType.getByLangName(judgeRequest.getLang());
+    return executeStream(LaneType.BATCH, sHttpRequest, judgeRequest.getTestCases().size(),
+        onResult -> codeSandBox.codeJudgeAsync(judgeRequest,
+            testCase -> onResult.accept(JudgeStreamResponse.builder().testCase(testCase).build())),
+        judgeResponse -> JudgeStreamResponse.builder().judgeResponse(judgeResponse).build());
+  }
+
+  /**
+   * 在指定调度通道中执行沙箱任务, 排队已满时返回系统繁忙
+   *
+   * @param laneType    调度通道
+   * @param request     HTTP 请求 (用于识别调用方)
+   * @param cost        任务代价 (测试数据数量)
+   * @param task        沙箱任务
+   * @param description 响应描述
+   * @return 响应结果
+   */
+  private <T> Mono<BaseHttpResponse<T>> execute(LaneType laneType, ServerHttpRequest request, long cost,
+      Callable<T> task, String description) {
+    return sandBoxTaskScheduler.submit(laneType, getCaller(request), cost, getDeadline(request), task)
+        .flatMap(result -> BaseHttpResponse.ok(result, description));
+  }
+
+  /**
+   * 在指定调度通道中提交异步沙箱任务 (评审流水线), 调度通道的执行线程不等待各阶段执行
+   *
+   * @param laneType    调度通道
+   * @param request     HTTP 请求 (用于识别调用方)
+   * @param cost        任务代价 (测试数据数量)
+   * @param task        提交沙箱任务
+   * @param description 响应描述
+   * @return 响应结果
+   */
+  private <T> Mono<BaseHttpResponse<T>> executeAsync(LaneType laneType, ServerHttpRequest request, long cost,
+      Callable<CompletableFuture<T>> task, String description) {
+    return sandBoxTaskScheduler.submitAsync(laneType, getCaller(request), cost, getDeadline(request), task)
+        .flatMap(result -> BaseHttpResponse.ok(result, description));
+  }
+
+  /**
+   * 在指定调度通道中执行沙箱任务, 任务执行过程中产生的结果立即返回
+   *
+   * @param laneType    调度通道
+   * @param request     HTTP 请求 (用于识别调用方)
+   * @param cost        任务代价 (测试数据数量)
+   * @param task        提交沙箱任务, 参数为单个结果的回调
+   * @param lastElement 由任务返回值生成的最后一个结果, 为 null 时不生成
+   * @return 逐个返回的结果
+   */
+  private <T, R> Flux<T> executeStream(LaneType laneType, ServerHttpRequest request, long cost,
+      Function<Consumer<T>, CompletableFuture<R>> task, Function<R, T> lastElement) {
+    long deadline = getDeadline(request);
+    return Flux.create(sink -> sink.onCancel(sandBoxTaskScheduler
+        .submitAsync(laneType, getCaller(request), cost, deadline, () -> task.apply(sink::next))
+        .subscribe(result -> {
+          if (lastElement != null) {
+            sink.next(lastElement.apply(result));
+          }
+        }, sink::error, sink::complete)));
+  }
+
+  /**
+   * 由剩余时间请求头计算截止时间
+   *
+   * @return 截止时间 (时间戳, 单位: ms), 没有该请求头时为 0
+   */
+  private long getDeadline(ServerHttpRequest request) {
+    String timeout = request.getHeaders().getFirst(requestSchedulerProperties.getDeadlineHeader());
+    if (timeout == null || timeout.isBlank()) {
+      return 0;
+    }
+    try {
+      return System.currentTimeMillis() + Math.max(1, Long.parseLong(timeout.trim()));
+    } catch (NumberFormatException e) {
+      throw new BusinessException(StatusEnum.PARAMS_ERROR, "请求头 " + requestSchedulerProperties.getDeadlineHeader() + " 不正确");
+    }
+  }
+
+  /**
+   * 调用方标识, 没有调用方请求头时使用客户端地址
+   */
+  private String getCaller(ServerHttpRequest request) {
+    String caller = request.getHeaders().getFirst(requestSchedulerProperties.getCallerHeader());
+    if (caller != null && !caller.isBlank()) {
+      return caller;
+    }
+    InetSocketAddress remoteAddress = request.getRemoteAddress();
+    return remoteAddress == null ? "unknown" : remoteAddress.getAddress().getHostAddress();
   }
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+package com.app.controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Resource;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.app.cache.CompileCache;
+import com.app.common.BaseHttpResponse;
+import com.app.common.StatusEnum;
+import com.app.docker.ContainerPoolManager;
+import com.app.docker.CpuSlot;
+import com.app.docker.CpuSlotManager;
+import com.app.exception.BusinessException;
+import com.app.module.warmup.WarmUpReport;
+import com.app.scheduler.AdaptiveConcurrencyLimiter;
+import com.app.scheduler.CompilePermits;
+import com.app.scheduler.CompileSlotMetrics;
+import com.app.scheduler.JudgePipeline;
+import com.app.scheduler.LaneMetrics;
+import com.app.scheduler.SandBoxTaskScheduler;
+import com.app.scheduler.StageMetrics;
+import com.app.security.CallerRegistry;
+import com.app.task.BuildDockerSandBox;
+import com.app.task.SandBoxWarmUp;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 代码沙箱运行状态接口
+ */
+@RestController
+@RequestMapping("/status")
+public class SandBoxStatusController {
+
+  @Resource
+  private CpuSlotManager cpuSlotManager;
+
+  @Resource
+  private ContainerPoolManager containerPoolManager;
+
+  @Resource
+  private BuildDockerSandBox buildDockerSandBox;
+
+  @Resource
+  private SandBoxWarmUp sandBoxWarmUp;
+
+  @Resource
+  private SandBoxTaskScheduler sandBoxTaskScheduler;
+
+  @Resource
+  private AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter;
+
+  @Resource
+  private CallerRegistry callerRegistry;
+
+  @Resource
+  private CompilePermits compilePermits;
+
+  @Resource
+  private JudgePipeline judgePipeline;
+
+  @Resource
+  private CompileCache compileCache;
+
+  /**
+   * 就绪检查 (容器池未就绪或启动预热未结束时返回 SANDBOX_NOT_READY, 可作为负载均衡的健康检查)
+   *
+   * @return 各容器池的容器数量
+   */
+  @GetMapping("/ready")
+  public Mono<BaseHttpResponse<Map<String, Map<String, Integer>>>> ready() {
+    if (!buildDockerSandBox.isReady()) {
+      throw new BusinessException(StatusEnum.SANDBOX_NOT_READY);
+    }
+    return BaseHttpResponse.ok(containerPoolManager.getPoolStatus(), "代码沙箱已就绪");
+  }
+
+  /**
+   * 执行槽位占用情况
+   *
+   * @return 各个执行槽位
+   */
+  @GetMapping("/slots")
+  public Mono<BaseHttpResponse<List<CpuSlot>>> slots() {
+    return BaseHttpResponse.ok(cpuSlotManager.getSlots(), "预留 CPU 核心: " + cpuSlotManager.getReservedCpuset());
+  }
+
+  /**
+   * 启动预热结果
+   *
+   * @return 各语言冷启动与预热后的耗时
+   */
+  @GetMapping("/warm-up")
+  public Mono<BaseHttpResponse<Map<String, WarmUpReport>>> warmUp() {
+    return BaseHttpResponse.ok(sandBoxWarmUp.getReports(), "启动预热结果");
+  }
+
+  /**
+   * 请求调度通道的运行指标
+   *
+   * @return 各通道的并发数, 排队数量和排队等待时间
+   */
+  @GetMapping("/scheduler")
+  public Mono<BaseHttpResponse<Map<String, LaneMetrics>>> scheduler() {
+    return BaseHttpResponse.ok(sandBoxTaskScheduler.getMetrics(), "请求调度指标");
+  }
+
+  /**
+   * 编译许可的使用情况
+   *
+   * @return total (全部语言共用) 及单独限制的各语言 -> 许可总数, 空闲许可数, 等待中的提交数和等待时间;
+   *         docker 后端另有 host (本机编译的 java 共用) 和 lease (租借编译容器的等待时间)
+   */
+  @GetMapping("/compile")
+  public Mono<BaseHttpResponse<Map<String, CompileSlotMetrics>>> compile() {
+    return BaseHttpResponse.ok(compilePermits.getMetrics(), "编译许可");
+  }
+
+  /**
+   * 编译缓存的运行指标
+   *
+   * @return 编译产物数量, 总大小, 命中/未命中/淘汰次数
+   */
+  @GetMapping("/compile-cache")
+  public Mono<BaseHttpResponse<Map<String, Long>>> compileCache() {
+    return BaseHttpResponse.ok(compileCache.getMetrics(), "编译缓存");
+  }
+
+  /**
+   * 评审流水线各阶段的运行指标
+   *
+   * @return 阶段名称 -> 排队数量, 执行中的提交数, 排队等待时间和执行耗时; 未启用流水线时为空
+   */
+  @GetMapping("/pipeline")
+  public Mono<BaseHttpResponse<Map<String, StageMetrics>>> pipeline() {
+    return BaseHttpResponse.ok(judgePipeline.getMetrics(), "评审流水线");
+  }
+
+  /**
+   * 自适应并发限制的运行指标
+   *
+   * @return 当前并发上限, 执行中的提交数, 近期/长期耗时和剩余内存
+   */
+  @GetMapping("/limiter")
+  public Mono<BaseHttpResponse<Map<String, Object>>> limiter() {
+    return BaseHttpResponse.ok(adaptiveConcurrencyLimiter.getMetrics(), "自适应并发限制指标");
+  }
+
+  /**
+   * 各调用方的配额使用情况
+   *
+   * @return 调用方名称 -> 执行中的提交数, 通过/被拒绝的提交次数
+   */
+  @GetMapping("/callers")
+  public Mono<BaseHttpResponse<Map<String, Map<String, Long>>>> callers() {
+    Map<String, Map<String, Long>> callers = new LinkedHashMap<>();
+    callerRegistry.getCallers().forEach(caller -> callers.put(caller.getName(), caller.getMetrics()));
+    return BaseHttpResponse.ok(callers, "调用方配额");
+  }
+}
@@ -0,0 +1,82 @@
+package com.app.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.app.common.StatusEnum;
+import com.app.exception.BusinessException;
+import com.app.module.ProcessExecuteResult;
+import com.app.utils.DockerUtil;
+import com.app.utils.ProcessUtil;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 通过 docker-java exec API (复用 DockerUtil.dockerClient 的连接池) 在容器内执行命令
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "sandbox.exec.backend", havingValue = "api", matchIfMissing = true)
+public class ApiContainerExecutor implements ContainerExecutor {
+
+	@Override
+	public ProcessExecuteResult exec(String containerId, String[] command, File stdinFile) {
+		long startTime = System.currentTimeMillis();
+		ExecCreateCmdResponse execInstance = DockerUtil.dockerClient.execCreateCmd(containerId)
+				.withCmd(command)
+				.withAttachStdin(stdinFile != null)
+				.withAttachStdout(true)
+				.withAttachStderr(true)
+				.exec();
+
+		var stdout = new ByteArrayOutputStream();
+		var stderr = new ByteArrayOutputStream();
+		var execCallback = new ResultCallback.Adapter<Frame>() {
+			@Override
+			public void onNext(Frame frame) {
+				byte[] payload = frame.getPayload();
+				if (StreamType.STDERR.equals(frame.getStreamType())) {
+					stderr.writeBytes(payload);
+				} else {
+					stdout.writeBytes(payload);
+				}
+			}
+		};
+		var execStartCmd = DockerUtil.dockerClient.execStartCmd(execInstance.getId());
+		try (InputStream stdin = stdinFile != null ? new FileInputStream(stdinFile) : null) {
+			if (stdin != null) {
+				execStartCmd.withStdIn(stdin);
+			}
+			execStartCmd.exec(execCallback).awaitCompletion();
+		} catch (IOException e) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "docker exec 执行失败. " + e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "docker exec 执行被中断. " + e);
+		}
+
+		/* 获取执行命令的退出码 */
+		Long exitCode = DockerUtil.dockerClient.inspectExecCmd(execInstance.getId()).exec().getExitCodeLong();
+		int exitValue = exitCode == null ? -1 : exitCode.intValue();
+		var result = ProcessExecuteResult.builder()
+				.exitValue(exitValue)
+				.normalResult(ProcessUtil.getProcessOutput(new ByteArrayInputStream(stdout.toByteArray()), exitValue))
+				.errorResult(ProcessUtil.getProcessOutput(new ByteArrayInputStream(stderr.toByteArray()), exitValue))
+				.build();
+		log.debug("docker exec (api) 耗时: " + (System.currentTimeMillis() - startTime) + "ms");
+		return result;
+	}
+}
@@ -0,0 +1,74 @@
+package com.app.docker;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.app.common.StatusEnum;
+import com.app.exception.BusinessException;
+import com.app.module.ProcessExecuteResult;
+import com.app.utils.ProcessUtil;
+
+import cn.hutool.core.util.ArrayUtil;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 通过 fork docker CLI 进程 (docker exec -i) 在容器内执行命令
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "sandbox.exec.backend", havingValue = "cli")
+public class CliContainerExecutor implements ContainerExecutor {
+	/* 读取 docker CLI 错误输出的线程 (阻塞读取, 不占用公共线程池) */
+	private static final ExecutorService outputReader = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "docker-exec-output");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	@Override
+	public ProcessExecuteResult exec(String containerId, String[] command, File stdinFile) {
+		long startTime = System.currentTimeMillis();
+		String[] commandPrefix = new String[] { "docker", "exec", "-i", containerId };
+		var processBuilder = new ProcessBuilder(ArrayUtil.append(commandPrefix, command));
+		if (stdinFile != null) {
+			processBuilder.redirectInput(stdinFile);
+		}
+		try {
+			Process process = processBuilder.start();
+			// 先同时读完两个输出流再等待进程结束, 避免输出超出管道缓冲区时进程阻塞
+			CompletableFuture<byte[]> stderr = CompletableFuture.supplyAsync(() -> {
+				try {
+					return process.getErrorStream().readAllBytes();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, outputReader);
+			byte[] stdout = process.getInputStream().readAllBytes();
+			int exitValue = process.waitFor();
+			var result = ProcessExecuteResult.builder()
+					.exitValue(exitValue)
+					.normalResult(ProcessUtil.getProcessOutput(new ByteArrayInputStream(stdout), exitValue))
+					.errorResult(ProcessUtil.getProcessOutput(new ByteArrayInputStream(stderr.join()), exitValue))
+					.build();
+			process.destroy();
+			log.debug("docker exec (cli) 耗时: " + (System.currentTimeMillis() - startTime) + "ms");
+			return result;
+		} catch (IOException | CompletionException e) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "docker exec 执行失败. " + e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "docker exec 执行被中断. " + e);
+		}
+	}
+}
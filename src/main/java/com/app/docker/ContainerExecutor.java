@@ -0,0 +1,22 @@
+package com.app.docker;
+
+import java.io.File;
+
+import com.app.module.ProcessExecuteResult;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 在容器内执行命令 (对应 docker exec), 可在 application.yml 中通过 sandbox.exec.backend 切换实现
+ */
+public interface ContainerExecutor {
+	/**
+	 * 在容器内执行命令并等待其结束
+	 *
+	 * @param containerId 容器 ID
+	 * @param command     执行命令
+	 * @param stdinFile   作为标准输入的文件 (本机), 为 null 时不附加标准输入
+	 * @return 执行结果 (exitValue 为命令的退出码, 正常/异常输出分别对应 stdout/stderr)
+	 */
+	ProcessExecuteResult exec(String containerId, String[] command, File stdinFile);
+}
@@ -0,0 +1,44 @@
+package com.app.docker;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 容器租约, 租借期间该容器由单个提交独占, 关闭租约即归还容器
+ */
+public class ContainerLease implements AutoCloseable {
+	private final ContainerPool pool;
+	private final PooledContainer container;
+	private final AtomicBoolean released = new AtomicBoolean(false);
+
+	ContainerLease(ContainerPool pool, PooledContainer container) {
+		this.pool = pool;
+		this.container = container;
+	}
+
+	public String getContainerId() {
+		return container.getContainerId();
+	}
+
+	public String getContainerName() {
+		return container.getContainerName();
+	}
+
+	/**
+	 * 标记容器已损坏, 归还后由容器池替换
+	 */
+	public void markBroken() {
+		container.markBroken();
+	}
+
+	/**
+	 * 归还容器 (重复调用只归还一次)
+	 */
+	@Override
+	public void close() {
+		if (released.compareAndSet(false, true)) {
+			pool.release(container);
+		}
+	}
+}
@@ -0,0 +1,297 @@
+package com.app.docker;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.app.common.StatusEnum;
+import com.app.config.ContainerPoolProperties.PoolConfig;
+import com.app.exception.BusinessException;
+import com.app.utils.DockerUtil;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 同一镜像的预启动容器池, 容器按提交独占租借, 用完归还
+ */
+@Slf4j
+public class ContainerPool {
+	@Getter
+	private final String poolName;
+	private final PoolConfig config;
+	private final DockerUtil dockerUtil;
+	/* 容器挂载目录 (本机) */
+	private final Path codeStoreRootPath;
+	/* 容器替换任务执行器 */
+	private final ExecutorService maintainExecutor;
+	/* 预热任务执行器 (镜像构建, 容器创建并行执行) */
+	private final ExecutorService bootstrapExecutor;
+	/* 执行槽位管理 */
+	private final CpuSlotManager cpuSlotManager;
+
+	/* 空闲容器 */
+	private final BlockingQueue<PooledContainer> idleContainers = new LinkedBlockingQueue<>();
+	/* 池中所有容器, key 为容器名 */
+	private final Map<String, PooledContainer> containers = new ConcurrentHashMap<>();
+	/* 进行中的预热任务 */
+	private CompletableFuture<Void> warmUpFuture;
+
+	public ContainerPool(String poolName, PoolConfig config, DockerUtil dockerUtil, Path codeStoreRootPath,
+			ExecutorService maintainExecutor, ExecutorService bootstrapExecutor, CpuSlotManager cpuSlotManager) {
+		this.poolName = poolName;
+		this.config = config;
+		this.dockerUtil = dockerUtil;
+		this.codeStoreRootPath = codeStoreRootPath;
+		this.maintainExecutor = maintainExecutor;
+		this.bootstrapExecutor = bootstrapExecutor;
+		this.cpuSlotManager = cpuSlotManager;
+	}
+
+	/**
+	 * 异步预热: 确保镜像可用后, 并行创建并启动池中缺少的容器 (预热进行中时返回同一任务)
+	 *
+	 * @return 预热任务, 单个容器启动失败不会导致任务失败, 由健康检查补齐
+	 */
+	public synchronized CompletableFuture<Void> warmUp() {
+		if (warmUpFuture != null && !warmUpFuture.isDone()) {
+			return warmUpFuture;
+		}
+		long startTime = System.currentTimeMillis();
+		warmUpFuture = CompletableFuture.runAsync(() -> dockerUtil.ensureImage(config), bootstrapExecutor)
+				.thenCompose(v -> {
+					List<CompletableFuture<Void>> futures = new ArrayList<>();
+					for (int i = 0; i < config.getSize(); i++) {
+						String containerName = config.getContainerPrefix() + "-" + i;
+						if (containers.containsKey(containerName)) {
+							continue;
+						}
+						futures.add(CompletableFuture.runAsync(() -> addContainer(containerName), bootstrapExecutor)
+								.exceptionally(e -> {
+									log.error("容器池 [" + poolName + "] 启动容器 " + containerName + " 失败", e);
+									return null;
+								}));
+					}
+					return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+				})
+				.whenComplete((v, e) -> {
+					if (e != null) {
+						log.error("容器池 [" + poolName + "] 预热失败", e);
+					} else {
+						log.info("容器池 [" + poolName + "] 预热完成, 容器数量: " + containers.size() + ", 耗时: "
+								+ (System.currentTimeMillis() - startTime) + "ms");
+					}
+				});
+		return warmUpFuture;
+	}
+
+	/**
+	 * 容器池是否可用 (至少有一个容器)
+	 */
+	public boolean isReady() {
+		return !containers.isEmpty();
+	}
+
+	private void addContainer(String containerName) {
+		PooledContainer container = startContainer(containerName);
+		containers.put(containerName, container);
+		idleContainers.offer(container);
+		cpuSlotManager.signalRelease();
+	}
+
+	/**
+	 * 租借一个空闲容器 (绑定了执行槽位的容器需同时占用其槽位)
+	 *
+	 * @param timeout 最长等待时间 (单位: ms)
+	 * @return 容器租约
+	 */
+	public ContainerLease lease(long timeout) {
+		long deadline = System.currentTimeMillis() + timeout;
+		PooledContainer container = null;
+		try {
+			while (container == null) {
+				long observedVersion = cpuSlotManager.currentVersion();
+				container = pollContainerWithFreeSlot();
+				if (container != null) {
+					break;
+				}
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					break;
+				}
+				cpuSlotManager.awaitRelease(observedVersion, remaining);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "等待容器池 [" + poolName + "] 时被中断. " + e);
+		}
+		if (container == null) {
+			throw new BusinessException(StatusEnum.SYSTEM_BUSY, "容器池 [" + poolName + "] 暂无空闲容器");
+		}
+		container.getUses().incrementAndGet();
+		return new ContainerLease(this, container);
+	}
+
+	/**
+	 * 尝试租借一个空闲容器, 不等待
+	 *
+	 * @return 容器租约, 没有空闲容器时返回 null
+	 */
+	public ContainerLease tryLease() {
+		PooledContainer container = pollContainerWithFreeSlot();
+		if (container == null) {
+			return null;
+		}
+		container.getUses().incrementAndGet();
+		return new ContainerLease(this, container);
+	}
+
+	/**
+	 * 归还容器, 损坏或超出使用次数的容器将被替换
+	 *
+	 * @param container 被归还的容器
+	 */
+	void release(PooledContainer container) {
+		if (container.getSlot() != null) {
+			container.getSlot().release();
+		}
+		if (container.isBroken() || container.getUses().get() >= config.getMaxUses()) {
+			replaceAsync(container);
+		} else {
+			idleContainers.offer(container);
+		}
+		cpuSlotManager.signalRelease();
+	}
+
+	/**
+	 * 取出一个槽位空闲的空闲容器
+	 *
+	 * @return 空闲容器, 没有时返回 null
+	 */
+	private PooledContainer pollContainerWithFreeSlot() {
+		for (int i = 0, n = idleContainers.size(); i < n; i++) {
+			PooledContainer container = idleContainers.poll();
+			if (container == null) {
+				return null;
+			}
+			if (container.getSlot() == null || container.getSlot().tryAcquire(container.getContainerName())) {
+				return container;
+			}
+			idleContainers.offer(container);
+		}
+		return null;
+	}
+
+	/**
+	 * 空闲容器健康检查, 替换已停止运行的容器 (运行状态优先取自 Docker 事件流维护的缓存)
+	 */
+	public void healthCheck() {
+		for (PooledContainer container : containers.values()) {
+			// 只检查空闲容器, 从空闲队列中移除成功后该容器不会再被租借
+			if (!idleContainers.remove(container)) {
+				continue;
+			}
+			boolean running = false;
+			try {
+				running = dockerUtil.isContainerRunning(container.getContainerId());
+			} catch (Exception e) {
+				log.error("容器池 [" + poolName + "] 检查容器 " + container.getContainerName() + " 状态失败", e);
+			}
+			if (running) {
+				idleContainers.offer(container);
+			} else {
+				log.warn("容器池 [" + poolName + "] 中的容器 " + container.getContainerName() + " 已停止运行, 准备替换");
+				replaceAsync(container);
+			}
+		}
+		// 之前预热或替换失败的容器重新补齐
+		if (containers.size() < config.getSize()) {
+			warmUp();
+		}
+	}
+
+	/**
+	 * 容器停止运行时的处理: 空闲容器立即替换, 租借中的容器标记损坏, 归还时替换
+	 *
+	 * @param containerId 停止运行的容器 ID
+	 * @return 该容器是否属于本容器池
+	 */
+	public boolean onContainerDied(String containerId) {
+		for (PooledContainer container : containers.values()) {
+			if (!container.getContainerId().equals(containerId)) {
+				continue;
+			}
+			if (idleContainers.remove(container)) {
+				log.warn("容器池 [" + poolName + "] 中的空闲容器 " + container.getContainerName() + " 已停止运行, 准备替换");
+				replaceAsync(container);
+			} else {
+				container.markBroken();
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 池中的容器
+	 */
+	public Collection<PooledContainer> getContainers() {
+		return containers.values();
+	}
+
+	/**
+	 * 空闲容器数量
+	 */
+	public int getIdleCount() {
+		return idleContainers.size();
+	}
+
+	/**
+	 * 异步销毁并重建容器
+	 *
+	 * @param container 待替换的容器
+	 */
+	private void replaceAsync(PooledContainer container) {
+		maintainExecutor.execute(() -> {
+			String containerName = container.getContainerName();
+			try {
+				dockerUtil.removeContainer(container.getContainerId());
+				PooledContainer newContainer = startContainer(containerName);
+				containers.put(containerName, newContainer);
+				idleContainers.offer(newContainer);
+				cpuSlotManager.signalRelease();
+				log.info("容器池 [" + poolName + "] 已替换容器 " + containerName);
+			} catch (Exception e) {
+				containers.remove(containerName);
+				log.error("容器池 [" + poolName + "] 替换容器 " + containerName + " 失败", e);
+			}
+		});
+	}
+
+	private PooledContainer startContainer(String containerName) {
+		/* 沙箱容器绑定执行槽位, 编译容器绑定预留的 CPU 核心 */
+		CpuSlot slot = null;
+		String cpuset = null;
+		Long memory = config.getMemory();
+		if (config.getFlag().equals(1)) {
+			slot = cpuSlotManager.assign(containerName);
+			if (slot != null) {
+				cpuset = slot.getCpuset();
+				memory = slot.getMemory() != null ? slot.getMemory() : memory;
+			}
+		} else {
+			cpuset = cpuSlotManager.getReservedCpuset();
+		}
+		String containerId = dockerUtil.getContainerId(codeStoreRootPath, config, containerName, cpuset, memory);
+		return new PooledContainer(containerName, containerId, slot);
+	}
+}
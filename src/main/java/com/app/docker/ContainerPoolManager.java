@@ -0,0 +1,181 @@
+package com.app.docker;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.app.common.LangType;
+import com.app.common.StatusEnum;
+import com.app.config.ContainerPoolProperties;
+import com.app.exception.BusinessException;
+import com.app.utils.DockerUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 容器池管理 —— 按配置维护编译/沙箱容器池, 并定期做健康检查
+ */
+@Component
+@Slf4j
+public class ContainerPoolManager {
+	/* 未单独配置容器池的语言使用的沙箱容器池 */
+	private static final String DEFAULT_RUNTIME_POOL_NAME = "sandbox";
+
+	@Resource
+	private DockerUtil dockerUtil;
+
+	@Resource
+	private ContainerPoolProperties containerPoolProperties;
+
+	@Resource
+	private ContainerRegistry containerRegistry;
+
+	@Resource
+	private CpuSlotManager cpuSlotManager;
+
+	private final Map<String, ContainerPool> pools = new ConcurrentHashMap<>();
+
+	private final ExecutorService maintainExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "container-pool-maintainer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final ExecutorService bootstrapExecutor = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "container-pool-bootstrap");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/* 所有容器池均已可用 */
+	private volatile boolean ready = false;
+
+	@PostConstruct
+	public void init() {
+		Path codeStoreRootPath = Paths.get(System.getProperty("user.dir") + File.separator + DockerUtil.CODE_STORE_ROOT_PATH);
+		containerPoolProperties.getPools().forEach((poolName, config) -> pools.put(poolName,
+				new ContainerPool(poolName, config, dockerUtil, codeStoreRootPath, maintainExecutor, bootstrapExecutor,
+					cpuSlotManager)));
+		/* 容器停止运行时由所属容器池替换 */
+		containerRegistry.addContainerDiedListener(containerId -> {
+			for (ContainerPool pool : pools.values()) {
+				if (pool.onContainerDied(containerId)) {
+					break;
+				}
+			}
+		});
+	}
+
+	/**
+	 * 在后台并行预热所有容器池, 不阻塞调用线程
+	 *
+	 * @return 全部容器池的预热任务
+	 */
+	public CompletableFuture<Void> warmUp() {
+		long startTime = System.currentTimeMillis();
+		CompletableFuture<?>[] futures = pools.values().stream()
+				.map(ContainerPool::warmUp)
+				.toArray(CompletableFuture[]::new);
+		return CompletableFuture.allOf(futures).whenComplete((v, e) -> {
+			updateReadiness();
+			log.info("代码沙箱启动" + (ready ? "完成" : "未完成, 等待健康检查补齐容器") + ", 耗时: "
+					+ (System.currentTimeMillis() - startTime) + "ms");
+		});
+	}
+
+	/**
+	 * 代码沙箱是否已可接收请求 (所有容器池均已启动至少一个容器)
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * 各容器池的容器数量
+	 *
+	 * @return 容器池名称 -> (容器数量, 空闲容器数量)
+	 */
+	public Map<String, Map<String, Integer>> getPoolStatus() {
+		Map<String, Map<String, Integer>> status = new LinkedHashMap<>();
+		pools.forEach((poolName, pool) -> status.put(poolName,
+				Map.of("containers", pool.getContainers().size(), "idle", pool.getIdleCount())));
+		return status;
+	}
+
+	private void updateReadiness() {
+		boolean allReady = pools.values().stream().allMatch(ContainerPool::isReady);
+		if (allReady != ready) {
+			log.info("代码沙箱" + (allReady ? "已就绪" : "未就绪"));
+		}
+		ready = allReady;
+	}
+
+	/**
+	 * 从指定容器池中租借容器
+	 *
+	 * @param poolName 容器池名称
+	 * @return 容器租约
+	 */
+	public ContainerLease lease(String poolName) {
+		return getPool(poolName).lease(containerPoolProperties.getLeaseTimeout());
+	}
+
+	/**
+	 * 尝试从指定容器池中租借容器, 不等待
+	 *
+	 * @param poolName 容器池名称
+	 * @return 容器租约, 没有空闲容器时返回 null
+	 */
+	public ContainerLease tryLease(String poolName) {
+		return getPool(poolName).tryLease();
+	}
+
+	/**
+	 * 获取运行指定编程语言的沙箱容器池名称
+	 *
+	 * @param lang 编程语言 (不区分大小写)
+	 * @return 容器池名称, 未单独配置的语言使用 sandbox 容器池
+	 */
+	public String getRuntimePoolName(String lang) {
+		return containerPoolProperties.getLangPools().getOrDefault(LangType.getByLangName(lang).getLangName(),
+				DEFAULT_RUNTIME_POOL_NAME);
+	}
+
+	public ContainerPool getPool(String poolName) {
+		ContainerPool pool = pools.get(poolName);
+		if (pool == null) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "未配置容器池: " + poolName);
+		}
+		return pool;
+	}
+
+	/**
+	 * 定期检查空闲容器是否存活
+	 */
+	@Scheduled(initialDelayString = "${sandbox.pool.health-check-interval:10000}", fixedDelayString = "${sandbox.pool.health-check-interval:10000}")
+	public void healthCheck() {
+		pools.values().forEach(ContainerPool::healthCheck);
+		updateReadiness();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		maintainExecutor.shutdownNow();
+		bootstrapExecutor.shutdownNow();
+	}
+}
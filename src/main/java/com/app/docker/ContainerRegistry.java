@@ -0,0 +1,207 @@
+package com.app.docker;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Component;
+
+import com.app.utils.DockerUtil;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 容器/镜像解析结果的内存注册表, 通过 Docker 事件流保持与 Docker 守护进程的状态同步
+ */
+@Component
+@Slf4j
+public class ContainerRegistry {
+	/* 事件流断开后的重连间隔 (单位: s) */
+	private static final long RESUBSCRIBE_DELAY = 5L;
+
+	/* 容器名 -> 容器 ID */
+	private final Map<String, String> containerIds = new ConcurrentHashMap<>();
+	/* 容器 ID -> 是否运行中 */
+	private final Map<String, Boolean> containerRunning = new ConcurrentHashMap<>();
+	/* 已确认存在且与 Dockerfile 一致的镜像, 镜像名 -> 镜像 ID */
+	private final Map<String, String> imageIds = new ConcurrentHashMap<>();
+	/* 容器停止运行的监听器, 参数为容器 ID */
+	private final List<Consumer<String>> containerDiedListeners = new CopyOnWriteArrayList<>();
+
+	private final ScheduledExecutorService subscribeExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "docker-event-subscriber");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private volatile Closeable eventSubscription;
+	private volatile boolean closed = false;
+
+	@PostConstruct
+	public void init() {
+		subscribeExecutor.execute(this::subscribe);
+	}
+
+	/**
+	 * 获取运行中容器的 ID (不访问 Docker API)
+	 *
+	 * @param containerName 容器名
+	 * @return 容器 ID, 未缓存或容器未运行时返回 null
+	 */
+	public String getRunningContainerId(String containerName) {
+		String containerId = containerIds.get(containerName);
+		if (containerId != null && Boolean.TRUE.equals(containerRunning.get(containerId))) {
+			return containerId;
+		}
+		return null;
+	}
+
+	/**
+	 * 获取缓存的容器运行状态
+	 *
+	 * @param containerId 容器 ID
+	 * @return 是否运行中, 未缓存时返回 null
+	 */
+	public Boolean getRunningState(String containerId) {
+		return containerRunning.get(containerId);
+	}
+
+	public void registerContainer(String containerName, String containerId, boolean running) {
+		containerIds.put(containerName, containerId);
+		containerRunning.put(containerId, running);
+	}
+
+	public void removeContainer(String containerId) {
+		containerRunning.remove(containerId);
+		containerIds.values().remove(containerId);
+	}
+
+	public boolean isImageExisted(String imageName) {
+		return imageIds.containsKey(imageName);
+	}
+
+	/**
+	 * 获取缓存的镜像 ID
+	 *
+	 * @param imageName 镜像名
+	 * @return 镜像 ID, 未缓存时返回 null
+	 */
+	public String getImageId(String imageName) {
+		return imageIds.get(imageName);
+	}
+
+	public void registerImage(String imageName, String imageId) {
+		imageIds.put(imageName, imageId);
+	}
+
+	/**
+	 * 注册容器停止运行的监听器
+	 *
+	 * @param listener 参数为容器 ID
+	 */
+	public void addContainerDiedListener(Consumer<String> listener) {
+		containerDiedListeners.add(listener);
+	}
+
+	/**
+	 * 订阅 Docker 事件流, 断开后自动重连
+	 */
+	private void subscribe() {
+		if (closed) {
+			return;
+		}
+		try {
+			eventSubscription = DockerUtil.dockerClient.eventsCmd()
+					.withEventTypeFilter(EventType.CONTAINER, EventType.IMAGE)
+					.exec(new ResultCallback.Adapter<Event>() {
+						@Override
+						public void onNext(Event event) {
+							handleEvent(event);
+						}
+
+						@Override
+						public void onError(Throwable throwable) {
+							log.warn("Docker 事件流异常断开: " + throwable.getMessage());
+							resubscribe();
+						}
+
+						@Override
+						public void onComplete() {
+							resubscribe();
+						}
+					});
+		} catch (Exception e) {
+			log.warn("订阅 Docker 事件流失败: " + e.getMessage());
+			resubscribe();
+		}
+	}
+
+	/**
+	 * 事件流断开期间可能丢失事件, 清空缓存后重新订阅
+	 */
+	private void resubscribe() {
+		if (closed) {
+			return;
+		}
+		containerIds.clear();
+		containerRunning.clear();
+		imageIds.clear();
+		subscribeExecutor.schedule(this::subscribe, RESUBSCRIBE_DELAY, TimeUnit.SECONDS);
+	}
+
+	private void handleEvent(Event event) {
+		String action = event.getAction();
+		if (action == null) {
+			return;
+		}
+		if (EventType.IMAGE.equals(event.getType())) {
+			if ("delete".equals(action) || "untag".equals(action)) {
+				imageIds.clear();
+			}
+			return;
+		}
+		String containerId = event.getId();
+		if ("start".equals(action)) {
+			if (containerRunning.containsKey(containerId)) {
+				containerRunning.put(containerId, true);
+			}
+		}
+		/* 容器停止运行 (kill / oom 不一定导致容器退出, 以 die 为准) */
+		else if ("die".equals(action)) {
+			// 只处理注册表中的容器, 且仅通知一次
+			Boolean running = containerRunning.replace(containerId, false);
+			if (Boolean.TRUE.equals(running)) {
+				log.warn("容器 " + containerId + " 已停止运行 (" + action + ")");
+				containerDiedListeners.forEach(listener -> listener.accept(containerId));
+			}
+		} else if ("destroy".equals(action)) {
+			removeContainer(containerId);
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		closed = true;
+		subscribeExecutor.shutdownNow();
+		try {
+			if (eventSubscription != null) {
+				eventSubscription.close();
+			}
+		} catch (Exception e) {
+			log.warn("关闭 Docker 事件流失败: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.app.docker;
+
+import lombok.Getter;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 执行槽位, 对应一组固定的 CPU 核心 (cpuset) 和内存预算, 同一时刻只运行一个提交
+ */
+@Getter
+public class CpuSlot {
+	/**
+	 * 槽位序号
+	 */
+	private final int index;
+
+	/**
+	 * 绑定的 CPU 核心 (docker cpuset-cpus 格式, 如 "2" 或 "2-3")
+	 */
+	private final String cpuset;
+
+	/**
+	 * 内存预算 (单位: B), 为空时使用容器池配置的内存上限
+	 */
+	private final Long memory;
+
+	/**
+	 * 当前占用该槽位的容器名, 空闲时为 null
+	 */
+	private volatile String occupant;
+
+	public CpuSlot(int index, String cpuset, Long memory) {
+		this.index = index;
+		this.cpuset = cpuset;
+		this.memory = memory;
+	}
+
+	public boolean isBusy() {
+		return occupant != null;
+	}
+
+	/**
+	 * 尝试占用槽位
+	 *
+	 * @param containerName 占用槽位的容器名
+	 * @return 是否占用成功
+	 */
+	synchronized boolean tryAcquire(String containerName) {
+		if (occupant != null) {
+			return false;
+		}
+		occupant = containerName;
+		return true;
+	}
+
+	synchronized void release() {
+		occupant = null;
+	}
+}
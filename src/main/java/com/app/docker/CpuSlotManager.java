@@ -0,0 +1,265 @@
+package com.app.docker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import com.app.common.StatusEnum;
+import com.app.config.CpuSlotProperties;
+import com.app.exception.BusinessException;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 执行槽位管理 —— 将本机 CPU 核心划分为若干个独占的执行槽位, 沙箱容器固定绑定到某个槽位上,
+ *              租借容器时需同时占用其槽位, 保证同一槽位同一时刻只运行一个提交
+ */
+@Component
+@Slf4j
+public class CpuSlotManager {
+	/* 本服务可使用的 CPU 核心 (cgroup v2, cgroup v1, 本机在线核心), 依次尝试 */
+	private static final List<Path> CPUSET_FILES = List.of(
+			Paths.get("/sys/fs/cgroup/cpuset.cpus.effective"),
+			Paths.get("/sys/fs/cgroup/cpuset/cpuset.effective_cpus"),
+			Paths.get("/sys/devices/system/cpu/online"));
+
+	@Resource
+	private CpuSlotProperties cpuSlotProperties;
+
+	@Getter
+	private List<CpuSlot> slots = Collections.emptyList();
+
+	/**
+	 * 预留给本服务和编译容器的 CPU 核心, 未启用槽位时为 null
+	 */
+	@Getter
+	private String reservedCpuset;
+
+	/* 容器名 -> 绑定的槽位, 容器被替换后仍绑定原槽位 */
+	private final Map<String, CpuSlot> containerSlots = new ConcurrentHashMap<>();
+	private final AtomicInteger nextSlot = new AtomicInteger();
+
+	/* 槽位或容器被归还时通知等待者 */
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+	private long version = 0;
+
+	@PostConstruct
+	public void init() {
+		if (!Boolean.TRUE.equals(cpuSlotProperties.getEnabled())) {
+			return;
+		}
+		// 核心编号不一定从 0 开始且连续 (本服务运行在受限的 cgroup 中, 或部分核心离线)
+		List<Integer> cpuIds = readEffectiveCpus();
+		if (cpuSlotProperties.getCpus() > 0 && cpuSlotProperties.getCpus() < cpuIds.size()) {
+			cpuIds = cpuIds.subList(0, cpuSlotProperties.getCpus());
+		}
+		int reservedCpus = cpuSlotProperties.getReservedCpus();
+		int cpusPerSlot = cpuSlotProperties.getCpusPerSlot();
+		if (cpuIds.size() - reservedCpus < cpusPerSlot) {
+			log.warn("CPU 核心数 (" + cpuIds.size() + ") 不足以划分执行槽位, 沙箱容器将不绑定 CPU 核心");
+			return;
+		}
+		List<CpuSlot> cpuSlots = new ArrayList<>();
+		for (int first = reservedCpus; first + cpusPerSlot <= cpuIds.size(); first += cpusPerSlot) {
+			cpuSlots.add(new CpuSlot(cpuSlots.size(), toCpuset(cpuIds.subList(first, first + cpusPerSlot)),
+					cpuSlotProperties.getMemoryPerSlot()));
+		}
+		slots = Collections.unmodifiableList(cpuSlots);
+		reservedCpuset = reservedCpus > 0 ? toCpuset(cpuIds.subList(0, reservedCpus)) : null;
+		log.info("可用 CPU 核心: " + toCpuset(cpuIds) + ", 已划分 " + slots.size() + " 个执行槽位, 预留 CPU 核心: "
+				+ reservedCpuset);
+	}
+
+	public boolean isEnabled() {
+		return !slots.isEmpty();
+	}
+
+	/**
+	 * 为容器分配槽位 (按创建顺序轮流分配, 同名容器始终绑定同一槽位)
+	 *
+	 * @param containerName 容器名
+	 * @return 绑定的槽位, 未启用时返回 null
+	 */
+	public CpuSlot assign(String containerName) {
+		if (!isEnabled()) {
+			return null;
+		}
+		return containerSlots.computeIfAbsent(containerName,
+				name -> slots.get(Math.floorMod(nextSlot.getAndIncrement(), slots.size())));
+	}
+
+	/**
+	 * 占用任意一个空闲槽位 (不经过容器池直接在本机运行时使用)
+	 *
+	 * @param occupant 占用者名称
+	 * @param timeout  最长等待时间 (单位: ms)
+	 * @return 占用的槽位, 未启用时返回 null
+	 */
+	public CpuSlot acquire(String occupant, long timeout) {
+		if (!isEnabled()) {
+			return null;
+		}
+		long deadline = System.currentTimeMillis() + timeout;
+		try {
+			while (true) {
+				long observedVersion = currentVersion();
+				for (CpuSlot slot : slots) {
+					if (slot.tryAcquire(occupant)) {
+						return slot;
+					}
+				}
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					throw new BusinessException(StatusEnum.SYSTEM_BUSY, "暂无空闲的执行槽位");
+				}
+				awaitRelease(observedVersion, remaining);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "等待执行槽位时被中断. " + e);
+		}
+	}
+
+	/**
+	 * 释放由 acquire 占用的槽位
+	 *
+	 * @param slot 槽位, 为 null 时忽略
+	 */
+	public void release(CpuSlot slot) {
+		if (slot == null) {
+			return;
+		}
+		slot.release();
+		signalRelease();
+	}
+
+	/**
+	 * 当前的变更版本号, 与 awaitRelease 配合使用, 避免错过通知
+	 */
+	public long currentVersion() {
+		lock.lock();
+		try {
+			return version;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 等待槽位或容器被归还
+	 *
+	 * @param observedVersion 等待前观察到的版本号
+	 * @param timeout         最长等待时间 (单位: ms)
+	 */
+	public void awaitRelease(long observedVersion, long timeout) throws InterruptedException {
+		long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+		lock.lock();
+		try {
+			while (version == observedVersion && nanos > 0) {
+				nanos = released.awaitNanos(nanos);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 通知等待者槽位或容器已被归还
+	 */
+	public void signalRelease() {
+		lock.lock();
+		try {
+			version++;
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 读取本服务可使用的 CPU 核心编号, 都无法读取时假定为 0 ~ 核心数-1
+	 *
+	 * @return 升序排列的核心编号
+	 */
+	private static List<Integer> readEffectiveCpus() {
+		for (Path cpusetFile : CPUSET_FILES) {
+			try {
+				List<Integer> cpuIds = parseCpuset(Files.readString(cpusetFile));
+				if (!cpuIds.isEmpty()) {
+					return cpuIds;
+				}
+			} catch (IOException | RuntimeException e) {
+				log.debug("无法读取 " + cpusetFile + ": " + e.getMessage());
+			}
+		}
+		List<Integer> cpuIds = new ArrayList<>();
+		for (int i = 0; i < Runtime.getRuntime().availableProcessors(); i++) {
+			cpuIds.add(i);
+		}
+		return cpuIds;
+	}
+
+	/**
+	 * 解析 cpuset 格式的核心列表 (如 "0-3,6,8-9")
+	 *
+	 * @param cpuset cpuset 字符串
+	 * @return 升序排列的核心编号
+	 */
+	static List<Integer> parseCpuset(String cpuset) {
+		TreeSet<Integer> cpuIds = new TreeSet<>();
+		for (String part : cpuset.trim().split(",")) {
+			if (part.isBlank()) {
+				continue;
+			}
+			String[] range = part.trim().split("-");
+			int first = Integer.parseInt(range[0]);
+			int last = range.length > 1 ? Integer.parseInt(range[1]) : first;
+			for (int cpuId = first; cpuId <= last; cpuId++) {
+				cpuIds.add(cpuId);
+			}
+		}
+		return new ArrayList<>(cpuIds);
+	}
+
+	/**
+	 * 将升序排列的核心编号转换为 cpuset 格式, 连续的核心合并为区间
+	 *
+	 * @param cpuIds 核心编号
+	 * @return cpuset 字符串 (如 "2" 或 "2-3,6")
+	 */
+	static String toCpuset(List<Integer> cpuIds) {
+		StringBuilder cpuset = new StringBuilder();
+		for (int i = 0; i < cpuIds.size(); i++) {
+			int first = cpuIds.get(i);
+			while (i + 1 < cpuIds.size() && cpuIds.get(i + 1) == cpuIds.get(i) + 1) {
+				i++;
+			}
+			int last = cpuIds.get(i);
+			if (cpuset.length() > 0) {
+				cpuset.append(',');
+			}
+			cpuset.append(first == last ? String.valueOf(first) : first + "-" + last);
+		}
+		return cpuset.toString();
+	}
+}
@@ -0,0 +1,306 @@
+package com.app.docker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import com.alibaba.fastjson2.JSON;
+import com.app.common.StatusEnum;
+import com.app.config.ExecuteCoreProperties;
+import com.app.exception.BusinessException;
+import com.app.module.execute.JobRequest;
+import com.app.module.execute.JobResponse;
+import com.app.module.execute.Response;
+import com.app.scheduler.CancellationContext;
+import com.app.utils.DockerUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 沙箱容器内常驻 execute_core 的客户端, 每个容器维持一条 Unix Socket 连接, 多个作业在连接上复用
+ */
+@Component
+@Slf4j
+public class ExecuteCoreClient {
+	@Resource
+	private ExecuteCoreProperties executeCoreProperties;
+
+	private final AtomicLong jobIdGenerator = new AtomicLong();
+
+	/* 容器名 -> 连接 */
+	private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+
+	/**
+	 * 容器内的 execute_core 是否可连接 (可连接时会复用该连接)
+	 *
+	 * @param containerName 沙箱容器名
+	 * @return 是否可连接
+	 */
+	public boolean isAvailable(String containerName) {
+		return getConnection(containerName) != null;
+	}
+
+	/**
+	 * 获取 (或建立) 与容器内 execute_core 的连接
+	 *
+	 * @param containerName 沙箱容器名
+	 * @return 连接, 不可连接时返回 null
+	 */
+	private Connection getConnection(String containerName) {
+		Connection connection = connections.get(containerName);
+		if (connection != null) {
+			return connection;
+		}
+		Path socketPath = DockerUtil.getExecuteCoreSocketPath(containerName);
+		if (!Files.exists(socketPath)) {
+			return null;
+		}
+		try {
+			return connections.computeIfAbsent(containerName, name -> new Connection(name, socketPath));
+		} catch (Exception e) {
+			log.warn("无法连接容器 " + containerName + " 中的 execute_core: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * 提交作业并等待执行结果
+	 *
+	 * @param containerName 沙箱容器名
+	 * @param fileDir       request_args.json 所在目录 (容器内路径)
+	 * @return 各个测试数据的执行结果
+	 */
+	public List<Response> execute(String containerName, String fileDir) {
+		return execute(containerName, fileDir, null);
+	}
+
+	/**
+	 * 提交作业并等待执行结果
+	 *
+	 * @param containerName 沙箱容器名
+	 * @param fileDir       request_args.json 所在目录 (容器内路径)
+	 * @param testCaseIds   只执行其中的部分测试数据 (分片执行), 为 null 时执行全部测试数据
+	 * @return 各个测试数据的执行结果
+	 */
+	public List<Response> execute(String containerName, String fileDir, List<Integer> testCaseIds) {
+		return execute(containerName, fileDir, testCaseIds, null);
+	}
+
+	/**
+	 * 提交作业并等待执行结果, 每个测试数据执行完成时立即回调
+	 *
+	 * @param containerName 沙箱容器名
+	 * @param fileDir       request_args.json 所在目录 (容器内路径)
+	 * @param testCaseIds   只执行其中的部分测试数据 (分片执行), 为 null 时执行全部测试数据
+	 * @param onResult      单个测试数据执行完成时的回调 (在连接的读线程中调用), 为 null 时不逐个返回
+	 * @return 各个测试数据的执行结果
+	 */
+	public List<Response> execute(String containerName, String fileDir, List<Integer> testCaseIds,
+			Consumer<Response> onResult) {
+		// 只取一次连接, 检查与使用之间连接可能被其他线程移除 (容器退出或重连)
+		Connection connection = getConnection(containerName);
+		if (connection == null) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "容器 " + containerName + " 中的 execute_core 不可用");
+		}
+		JobRequest jobRequest = JobRequest.builder()
+				.id(jobIdGenerator.incrementAndGet())
+				.fileDir(fileDir)
+				.testCaseIds(testCaseIds)
+				.stream(onResult != null)
+				.build();
+		/* 逐个返回时, 作业结束的那一行不再包含执行结果, 由这里收集 */
+		List<Response> streamedResponses = Collections.synchronizedList(new ArrayList<>());
+		Consumer<Response> listener = onResult == null ? null : response -> {
+			streamedResponses.add(response);
+			onResult.accept(response);
+		};
+		CancellationContext context = CancellationContext.current();
+		CompletableFuture<JobResponse> future = connection.submit(jobRequest, listener);
+		JobResponse jobResponse;
+		/* 请求取消时终止 execute_core 中的作业 */
+		try (var registration = context.onCancel(() -> {
+			connection.cancel(jobRequest.getId());
+			future.cancel(false);
+		})) {
+			jobResponse = future.get(context.remainingMillis(executeCoreProperties.getJobTimeout()), TimeUnit.MILLISECONDS);
+		} catch (CancellationException e) {
+			throw new BusinessException(StatusEnum.REQUEST_CANCELLED);
+		} catch (TimeoutException e) {
+			connection.cancel(jobRequest.getId());
+			if (context.isCancelled()) {
+				throw new BusinessException(StatusEnum.REQUEST_CANCELLED);
+			}
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "execute_core 作业执行超时");
+		} catch (ExecutionException e) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "execute_core 作业执行失败. " + e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			connection.pendingJobs.remove(jobRequest.getId());
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "等待 execute_core 作业结果时被中断. " + e);
+		}
+		if (jobResponse.getError() != null) {
+			log.info("execute_core 出错: \n" + jobResponse.getError());
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, jobResponse.getError());
+		}
+		if (onResult != null) {
+			synchronized (streamedResponses) {
+				return new ArrayList<>(streamedResponses);
+			}
+		}
+		return jobResponse.getResponses();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		connections.values().forEach(Connection::close);
+	}
+
+	/**
+	 * 与单个容器内 execute_core 的连接, 由读线程按作业 ID 分发结果
+	 */
+	private class Connection {
+		private final String containerName;
+		private final SocketChannel channel;
+		private final Map<Long, PendingJob> pendingJobs = new ConcurrentHashMap<>();
+
+		Connection(String containerName, Path socketPath) {
+			this.containerName = containerName;
+			try {
+				this.channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+			} catch (IOException e) {
+				throw new BusinessException(StatusEnum.SYSTEM_ERROR, "连接 execute_core 失败. " + e);
+			}
+			Thread reader = new Thread(this::readLoop, "execute-core-reader-" + containerName);
+			reader.setDaemon(true);
+			reader.start();
+		}
+
+		CompletableFuture<JobResponse> submit(JobRequest jobRequest, Consumer<Response> listener) {
+			var future = new CompletableFuture<JobResponse>();
+			pendingJobs.put(jobRequest.getId(), new PendingJob(future, listener));
+			send(jobRequest);
+			return future;
+		}
+
+		/**
+		 * 取消作业, 不再等待其结果
+		 */
+		void cancel(Long jobId) {
+			pendingJobs.remove(jobId);
+			send(JobRequest.builder().id(jobId).cancel(true).build());
+		}
+
+		private void send(JobRequest jobRequest) {
+			ByteBuffer buffer = ByteBuffer.wrap((JSON.toJSONString(jobRequest) + "\n").getBytes(StandardCharsets.UTF_8));
+			try {
+				synchronized (this) {
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+				}
+			} catch (IOException e) {
+				close();
+			}
+		}
+
+		/**
+		 * 按行读取作业结果 (每行一个 JobResponse, 逐个返回时未结束的行交给作业的回调)
+		 */
+		private void readLoop() {
+			ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+			var line = new ByteArrayOutputStream();
+			try {
+				while (channel.read(buffer) != -1) {
+					buffer.flip();
+					while (buffer.hasRemaining()) {
+						byte b = buffer.get();
+						if (b != '\n') {
+							line.write(b);
+							continue;
+						}
+						JobResponse jobResponse = JSON.parseObject(line.toString(StandardCharsets.UTF_8), JobResponse.class);
+						line.reset();
+						if (Boolean.FALSE.equals(jobResponse.getDone())) {
+							var pendingJob = pendingJobs.get(jobResponse.getId());
+							if (pendingJob != null && pendingJob.listener != null) {
+								notifyListener(pendingJob.listener, jobResponse.getResponses());
+							}
+							continue;
+						}
+						var pendingJob = pendingJobs.remove(jobResponse.getId());
+						if (pendingJob != null) {
+							pendingJob.future.complete(jobResponse);
+						}
+					}
+					buffer.clear();
+				}
+			} catch (Exception e) {
+				log.warn("与容器 " + containerName + " 中 execute_core 的连接异常断开: " + e.getMessage());
+			} finally {
+				close();
+			}
+		}
+
+		/**
+		 * 回调出错不影响同一连接上的其他作业
+		 */
+		private void notifyListener(Consumer<Response> listener, List<Response> responses) {
+			try {
+				responses.forEach(listener);
+			} catch (RuntimeException e) {
+				log.warn("处理 execute_core 逐个返回的结果出错: " + e.getMessage());
+			}
+		}
+
+		void close() {
+			connections.remove(containerName, this);
+			try {
+				channel.close();
+			} catch (IOException e) {
+				log.warn("关闭 execute_core 连接失败: " + e.getMessage());
+			}
+			pendingJobs.values().forEach(pendingJob -> pendingJob.future.completeExceptionally(
+					new IOException("与容器 " + containerName + " 中 execute_core 的连接已断开")));
+			pendingJobs.clear();
+		}
+	}
+
+	/**
+	 * 等待结果的作业
+	 */
+	private static class PendingJob {
+		/* 作业结束时完成 */
+		private final CompletableFuture<JobResponse> future;
+		/* 逐个返回时单个测试数据结果的回调, 可为 null */
+		private final Consumer<Response> listener;
+
+		PendingJob(CompletableFuture<JobResponse> future, Consumer<Response> listener) {
+			this.future = future;
+			this.listener = listener;
+		}
+	}
+}
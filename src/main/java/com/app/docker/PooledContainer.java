@@ -0,0 +1,48 @@
+package com.app.docker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 容器池中的单个容器
+ */
+@Getter
+public class PooledContainer {
+	/**
+	 * 容器名
+	 */
+	private final String containerName;
+
+	/**
+	 * 容器 ID
+	 */
+	private final String containerId;
+
+	/**
+	 * 绑定的执行槽位, 未启用槽位或编译容器为 null
+	 */
+	private final CpuSlot slot;
+
+	/**
+	 * 已被租借的次数
+	 */
+	private final AtomicInteger uses = new AtomicInteger();
+
+	/**
+	 * 是否已损坏 (损坏的容器归还时会被替换)
+	 */
+	private volatile boolean broken = false;
+
+	public PooledContainer(String containerName, String containerId, CpuSlot slot) {
+		this.containerName = containerName;
+		this.containerId = containerId;
+		this.slot = slot;
+	}
+
+	public void markBroken() {
+		this.broken = true;
+	}
+}
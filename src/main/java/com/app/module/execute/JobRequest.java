@@ -0,0 +1,44 @@
+package com.app.module.execute;
+
+import java.util.List;
+
+import com.alibaba.fastjson2.annotation.JSONField;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 对应 execute_core 中的 JobRequest (常驻模式下的作业请求)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobRequest {
+  /**
+   * 作业 ID
+   */
+  Long id;
+  /**
+   * request_args.json 所在目录 (容器内路径)
+   */
+  @JSONField(name = "file_dir")
+  String fileDir;
+  /**
+   * 本作业执行的测试数据 ID (分片执行), 为空时执行全部测试数据
+   */
+  @JSONField(name = "test_case_ids")
+  List<Integer> testCaseIds;
+  /**
+   * 是否逐个返回测试数据的执行结果
+   */
+  Boolean stream;
+  /**
+   * 取消同一 ID 的作业 (终止其正在运行的测试数据)
+   */
+  Boolean cancel;
+}
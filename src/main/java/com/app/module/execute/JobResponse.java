@@ -0,0 +1,36 @@
+package com.app.module.execute;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 对应 execute_core 中的 JobResponse (常驻模式下的作业结果)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobResponse {
+  /**
+   * 作业 ID
+   */
+  Long id;
+  /**
+   * 各个测试数据的执行结果
+   */
+  List<Response> responses;
+  /**
+   * 作业执行失败的原因, 成功时为空
+   */
+  String error;
+  /**
+   * 作业是否已结束 (逐个返回时, 未结束的结果只包含一个测试数据的执行结果)
+   */
+  Boolean done;
+}
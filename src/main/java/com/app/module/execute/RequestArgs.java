@@ -1,5 +1,7 @@
 package com.app.module.execute;
 
+import java.util.List;
+
 import com.alibaba.fastjson2.annotation.JSONField;
 
 import lombok.AllArgsConstructor;
@@ -45,4 +47,9 @@ public class RequestArgs {
    */
   @JSONField(name = "file_dir")
   String fileDir;
+  /**
+   * 执行命令模板, {dir} 由 execute_core 替换为 file_dir; 为空时按 lang 选择执行命令
+   */
+  @JSONField(name = "run_command")
+  List<String> runCommand;
 }
@@ -0,0 +1,60 @@
+package com.app.module.judge;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 异步评审结果
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AsyncJudgeResult {
+	/**
+	 * 提交 ID
+	 */
+	String submissionId;
+
+	/**
+	 * 提交的调用方, 只有该调用方可以查询评审结果
+	 */
+	String caller;
+
+	/**
+	 * 评审状态 <br>
+	 * PENDING: 排队中 <br>
+	 * DONE: 评审完成 <br>
+	 * FAILED: 评审系统出错
+	 */
+	String status;
+
+	/**
+	 * 评审结果, 评审完成时有值
+	 */
+	JudgeResponse judgeResponse;
+
+	/**
+	 * 评审系统出错的原因
+	 */
+	String errorMessage;
+
+	/**
+	 * 提交时间
+	 */
+	Long submitTime;
+
+	/**
+	 * 评审结束时间
+	 */
+	Long finishTime;
+
+	/**
+	 * 是否已推送到回调地址
+	 */
+	Boolean callbackDelivered;
+}
@@ -0,0 +1,37 @@
+package com.app.module.judge;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 异步评审队列中的提交
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AsyncJudgeSubmission {
+	/**
+	 * 提交 ID
+	 */
+	String submissionId;
+
+	/**
+	 * 提交的调用方, 只有该调用方可以查询评审结果
+	 */
+	String caller;
+
+	/**
+	 * 提交时间
+	 */
+	Long submitTime;
+
+	/**
+	 * 评审请求
+	 */
+	JudgeRequest judgeRequest;
+}
@@ -0,0 +1,29 @@
+package com.app.module.judge;
+
+import com.app.module.debug.MultiTestCaseDebugResponse;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 逐个返回的评审结果 (每行一个), 测试数据评审完成时只有 testCase, 最后一行只有 judgeResponse
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class JudgeStreamResponse {
+	/**
+	 * 单个测试数据的评审结果
+	 */
+	MultiTestCaseDebugResponse testCase;
+
+	/**
+	 * 最终评审结果
+	 */
+	JudgeResponse judgeResponse;
+}
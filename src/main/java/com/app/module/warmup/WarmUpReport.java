@@ -0,0 +1,42 @@
+package com.app.module.warmup;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 单个语言的启动预热结果
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class WarmUpReport {
+	/**
+	 * 编程语言
+	 */
+	String lang;
+
+	/**
+	 * 预热轮数
+	 */
+	Integer rounds;
+
+	/**
+	 * 成功 (运行结果正确) 的轮数
+	 */
+	Integer succeeded;
+
+	/**
+	 * 第一轮 (冷启动) 的耗时 (单位: ms)
+	 */
+	Long coldLatency;
+
+	/**
+	 * 其余轮次的平均耗时 (单位: ms), 只有一轮时为 null
+	 */
+	Long warmLatency;
+}
@@ -0,0 +1,391 @@
+package com.app.queue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.app.common.StatusEnum;
+import com.app.config.AsyncJudgeProperties;
+import com.app.exception.BusinessException;
+import com.app.module.judge.AsyncJudgeResult;
+import com.app.module.judge.AsyncJudgeSubmission;
+import com.app.module.judge.JudgeRequest;
+import com.app.module.judge.JudgeResponse;
+import com.app.scheduler.LaneType;
+import com.app.scheduler.SandBoxTaskScheduler;
+import com.app.security.CallerPermit;
+import com.app.security.CallerQuota;
+import com.app.security.CallerRegistry;
+import com.app.service.CodeSandBox;
+import com.app.task.BuildDockerSandBox;
+
+import cn.hutool.core.util.IdUtil;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 异步评审队列 —— 提交先落盘再入队, 由后台线程按提交的调用方经 SandBoxTaskScheduler 的 BATCH 通道评审,
+ *              与同步评审一起公平排队; 调用方的同时执行名额从提交时一直占用到评审完成.
+ *              评审结果可由提交的调用方按提交 ID 查询, 或批量推送到回调地址. 排队的提交数量有上限, 超出时返回系统繁忙.
+ *              服务重启后未评审的提交和未推送的结果会被重新加载,
+ *              关闭服务时等待正在评审的提交完成, 其余提交留在磁盘上待下次启动继续评审
+ */
+@Component
+@Slf4j
+public class AsyncJudgeQueue {
+	public static final String STATUS_PENDING = "PENDING";
+	public static final String STATUS_DONE = "DONE";
+	public static final String STATUS_FAILED = "FAILED";
+
+	@Resource
+	private AsyncJudgeProperties asyncJudgeProperties;
+
+	@Resource
+	private JudgeQueueStore judgeQueueStore;
+
+	@Resource
+	private CodeSandBox codeSandBox;
+
+	@Resource
+	private BuildDockerSandBox buildDockerSandBox;
+
+	@Resource
+	private SandBoxTaskScheduler sandBoxTaskScheduler;
+
+	@Resource
+	private CallerRegistry callerRegistry;
+
+	/* 待评审的提交 ID */
+	private final BlockingQueue<String> pending = new LinkedBlockingQueue<>();
+
+	/* 待推送到回调地址的提交 ID */
+	private final ConcurrentLinkedQueue<String> undelivered = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger workerIndex = new AtomicInteger();
+
+	/* 已落盘但尚未评审完成的提交数量 (排队中和正在评审的) */
+	private final AtomicInteger queued = new AtomicInteger();
+
+	/* 提交 ID -> 调用方的同时执行名额, 评审完成时释放 */
+	private final Map<String, CallerPermit> permits = new ConcurrentHashMap<>();
+
+	private ExecutorService workers;
+
+	private WebClient webClient;
+
+	private volatile boolean accepting = true;
+
+	@PostConstruct
+	public void init() {
+		int workerCount = asyncJudgeProperties.getWorkers() > 0 ? asyncJudgeProperties.getWorkers()
+				: Runtime.getRuntime().availableProcessors();
+		workers = Executors.newFixedThreadPool(workerCount, r -> {
+			Thread thread = new Thread(r, "async-judge-" + workerIndex.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+		/* 恢复上次未评审的提交和未推送的结果 */
+		for (String submissionId : judgeQueueStore.listPending()) {
+			AsyncJudgeSubmission submission = judgeQueueStore.loadPending(submissionId);
+			CallerQuota caller = submission == null ? null : findCaller(submission.getCaller());
+			if (caller != null) {
+				permits.put(submissionId, caller.forceAcquire());
+			}
+			pending.add(submissionId);
+		}
+		queued.set(pending.size());
+		if (hasCallback()) {
+			webClient = WebClient.create();
+			for (String submissionId : judgeQueueStore.listResults()) {
+				AsyncJudgeResult result = judgeQueueStore.loadResult(submissionId);
+				if (result != null && !Boolean.TRUE.equals(result.getCallbackDelivered())) {
+					undelivered.add(submissionId);
+				}
+			}
+		}
+		if (!pending.isEmpty()) {
+			log.info("已恢复 " + pending.size() + " 个未评审的异步提交");
+		}
+		for (int i = 0; i < workerCount; i++) {
+			workers.execute(this::consume);
+		}
+	}
+
+	/**
+	 * 提交评审请求, 落盘 (刷盘) 后立即返回
+	 *
+	 * @param judgeRequest 评审请求
+	 * @param caller       调用方
+	 * @param permit       调用方的同时执行名额 (未启用调用方配额时为 null), 提交成功后转交给队列, 评审完成时释放
+	 * @return 提交 ID, 排队已满时返回 SYSTEM_BUSY 错误
+	 */
+	public String submit(JudgeRequest judgeRequest, String caller, CallerPermit permit) {
+		if (!accepting) {
+			throw new BusinessException(StatusEnum.SYSTEM_BUSY, "服务正在关闭, 暂不接收提交");
+		}
+		if (queued.incrementAndGet() > asyncJudgeProperties.getMaxPending()) {
+			queued.decrementAndGet();
+			throw new BusinessException(StatusEnum.SYSTEM_BUSY, "异步评审排队已满");
+		}
+		String submissionId = IdUtil.getSnowflakeNextIdStr();
+		try {
+			judgeQueueStore.savePending(AsyncJudgeSubmission.builder()
+					.submissionId(submissionId)
+					.caller(caller)
+					.submitTime(System.currentTimeMillis())
+					.judgeRequest(judgeRequest)
+					.build());
+		} catch (RuntimeException e) {
+			queued.decrementAndGet();
+			throw e;
+		}
+		if (permit != null) {
+			permit.handOff();
+			permits.put(submissionId, permit);
+		}
+		pending.add(submissionId);
+		return submissionId;
+	}
+
+	/**
+	 * 查询评审结果
+	 *
+	 * @param submissionId 提交 ID
+	 * @param caller       调用方, 只能查询自己的提交
+	 * @return 评审结果, 尚未评审时状态为 PENDING
+	 */
+	public AsyncJudgeResult getResult(String submissionId, String caller) {
+		/* 提交 ID 为雪花 ID, 避免拼接出队列目录以外的路径 */
+		if (submissionId == null || !submissionId.matches("\\d+")) {
+			throw new BusinessException(StatusEnum.PARAMS_ERROR, "提交 ID 不正确: " + submissionId);
+		}
+		AsyncJudgeResult result = judgeQueueStore.loadResult(submissionId);
+		if (result != null && isOwner(result.getCaller(), caller)) {
+			return result;
+		}
+		AsyncJudgeSubmission submission = result == null ? judgeQueueStore.loadPending(submissionId) : null;
+		/* 其他调用方的提交与不存在的提交返回相同的错误 */
+		if (submission == null || !isOwner(submission.getCaller(), caller)) {
+			throw new BusinessException(StatusEnum.PARAMS_ERROR, "提交不存在或结果已过期: " + submissionId);
+		}
+		return AsyncJudgeResult.builder()
+				.submissionId(submissionId)
+				.caller(submission.getCaller())
+				.status(STATUS_PENDING)
+				.submitTime(submission.getSubmitTime())
+				.build();
+	}
+
+	/**
+	 * 排队中的提交数量
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	private CallerQuota findCaller(String name) {
+		return name == null ? null
+				: callerRegistry.getCallers().stream()
+						.filter(caller -> caller.getName().equals(name))
+						.findFirst()
+						.orElse(null);
+	}
+
+	/**
+	 * 提交评审完成 (或已不存在), 释放排队名额和调用方的同时执行名额
+	 */
+	private void finish(String submissionId) {
+		queued.decrementAndGet();
+		CallerPermit permit = permits.remove(submissionId);
+		if (permit != null) {
+			permit.release();
+		}
+	}
+
+	/**
+	 * 是否为提交的调用方 (记录调用方之前落盘的提交不限制)
+	 */
+	private static boolean isOwner(String owner, String caller) {
+		return owner == null || owner.equals(caller);
+	}
+
+	private void consume() {
+		while (accepting) {
+			String submissionId;
+			try {
+				submissionId = pending.poll(500, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			if (submissionId == null) {
+				continue;
+			}
+			AsyncJudgeSubmission submission = judgeQueueStore.loadPending(submissionId);
+			if (submission == null) {
+				finish(submissionId);
+				continue;
+			}
+			try {
+				judge(submission);
+			} catch (InterruptedException e) {
+				/* 关闭服务时被中断, 提交仍留在磁盘上 */
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 评审单个提交, 沙箱未就绪或繁忙 (包括调度通道排队已满) 时等待后重试
+	 */
+	private void judge(AsyncJudgeSubmission submission) throws InterruptedException {
+		AsyncJudgeResult.AsyncJudgeResultBuilder resultBuilder = AsyncJudgeResult.builder()
+				.submissionId(submission.getSubmissionId())
+				.caller(submission.getCaller())
+				.submitTime(submission.getSubmitTime())
+				.callbackDelivered(false);
+		while (true) {
+			if (!buildDockerSandBox.isReady()) {
+				Thread.sleep(asyncJudgeProperties.getRetryInterval());
+				continue;
+			}
+			try {
+				JudgeResponse judgeResponse = dispatch(submission);
+				resultBuilder.status(STATUS_DONE).judgeResponse(judgeResponse);
+				break;
+			} catch (BusinessException e) {
+				if (isRetryable(e)) {
+					Thread.sleep(asyncJudgeProperties.getRetryInterval());
+					continue;
+				}
+				resultBuilder.status(STATUS_FAILED).errorMessage(e.getDescription());
+				break;
+			} catch (RuntimeException e) {
+				/* 关闭服务时等待调度被中断, 提交仍留在磁盘上 */
+				if (e.getCause() instanceof InterruptedException) {
+					throw (InterruptedException) e.getCause();
+				}
+				log.error("异步评审 " + submission.getSubmissionId() + " 出错", e);
+				resultBuilder.status(STATUS_FAILED).errorMessage(e.getMessage());
+				break;
+			}
+		}
+		judgeQueueStore.saveResult(resultBuilder.finishTime(System.currentTimeMillis()).build());
+		judgeQueueStore.removePending(submission.getSubmissionId());
+		finish(submission.getSubmissionId());
+		if (hasCallback()) {
+			undelivered.add(submission.getSubmissionId());
+		}
+	}
+
+	/**
+	 * 以提交的调用方在 BATCH 通道中排队评审, 与同步评审共享通道的并发上限和按调用方的公平排队
+	 */
+	private JudgeResponse dispatch(AsyncJudgeSubmission submission) {
+		JudgeRequest judgeRequest = submission.getJudgeRequest();
+		String caller = submission.getCaller() != null ? submission.getCaller() : "unknown";
+		return sandBoxTaskScheduler.submitAsync(LaneType.BATCH, caller, judgeRequest.getTestCases().size(), 0,
+				() -> codeSandBox.codeJudgeAsync(judgeRequest, null)).block();
+	}
+
+	private static boolean isRetryable(BusinessException e) {
+		return e.getStatusCode() == StatusEnum.SYSTEM_BUSY.getStatusCode()
+				|| e.getStatusCode() == StatusEnum.SANDBOX_NOT_READY.getStatusCode();
+	}
+
+	private boolean hasCallback() {
+		String callbackUrl = asyncJudgeProperties.getCallbackUrl();
+		return callbackUrl != null && !callbackUrl.isBlank();
+	}
+
+	/**
+	 * 定期将评审结果批量推送到回调地址, 推送失败的结果留待下次推送. 定时推送与关闭服务时的推送互斥执行,
+	 * 避免同一批结果被重复推送
+	 */
+	@Scheduled(initialDelayString = "${sandbox.async.callback-interval:1000}", fixedDelayString = "${sandbox.async.callback-interval:1000}")
+	public synchronized void deliverCallbacks() {
+		while (hasCallback() && !undelivered.isEmpty()) {
+			List<AsyncJudgeResult> batch = new ArrayList<>();
+			while (batch.size() < asyncJudgeProperties.getCallbackBatchSize()) {
+				String submissionId = undelivered.poll();
+				if (submissionId == null) {
+					break;
+				}
+				AsyncJudgeResult result = judgeQueueStore.loadResult(submissionId);
+				if (result != null) {
+					batch.add(result);
+				}
+			}
+			if (batch.isEmpty()) {
+				return;
+			}
+			try {
+				webClient.post()
+						.uri(asyncJudgeProperties.getCallbackUrl())
+						.contentType(MediaType.APPLICATION_JSON)
+						.bodyValue(batch)
+						.retrieve()
+						.toBodilessEntity()
+						.block(Duration.ofSeconds(10));
+			} catch (RuntimeException e) {
+				log.warn("推送评审结果到回调地址失败: " + e.getMessage());
+				batch.forEach(result -> undelivered.add(result.getSubmissionId()));
+				return;
+			}
+			batch.forEach(result -> {
+				result.setCallbackDelivered(true);
+				judgeQueueStore.saveResult(result);
+			});
+		}
+	}
+
+	/**
+	 * 定期清理过期的评审结果
+	 */
+	@Scheduled(initialDelay = 60000, fixedDelay = 60000)
+	public void cleanExpiredResults() {
+		long expireBefore = System.currentTimeMillis() - asyncJudgeProperties.getResultTtl();
+		for (String submissionId : judgeQueueStore.listResults()) {
+			AsyncJudgeResult result = judgeQueueStore.loadResult(submissionId);
+			if (result == null || result.getFinishTime() == null || result.getFinishTime() >= expireBefore) {
+				continue;
+			}
+			/* 未推送的结果保留到推送成功 */
+			if (hasCallback() && !Boolean.TRUE.equals(result.getCallbackDelivered())) {
+				continue;
+			}
+			judgeQueueStore.removeResult(submissionId);
+		}
+	}
+
+	@PreDestroy
+	public void destroy() throws InterruptedException {
+		accepting = false;
+		workers.shutdown();
+		if (!workers.awaitTermination(asyncJudgeProperties.getDrainTimeout(), TimeUnit.MILLISECONDS)) {
+			log.warn("等待异步评审完成超时, 未完成的提交将在下次启动时重新评审");
+			workers.shutdownNow();
+		}
+		deliverCallbacks();
+	}
+}
@@ -0,0 +1,155 @@
+package com.app.queue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import com.alibaba.fastjson2.JSON;
+import com.app.common.StatusEnum;
+import com.app.config.AsyncJudgeProperties;
+import com.app.exception.BusinessException;
+import com.app.module.judge.AsyncJudgeResult;
+import com.app.module.judge.AsyncJudgeSubmission;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 异步评审队列的本地文件存储 —— pending 目录存放待评审的提交, results 目录存放评审结果,
+ *              每个提交/结果一个 json 文件, 先写临时文件并刷盘, 再原子重命名并刷盘所在目录, 写入返回后断电也不会丢失
+ */
+@Component
+@Slf4j
+public class JudgeQueueStore {
+	private static final String PENDING_DIR = "pending";
+	private static final String RESULTS_DIR = "results";
+	private static final String JSON_SUFFIX = ".json";
+
+	@Resource
+	private AsyncJudgeProperties asyncJudgeProperties;
+
+	private Path pendingDir;
+	private Path resultsDir;
+
+	@PostConstruct
+	public void init() throws IOException {
+		Path queueDir = Paths.get(System.getProperty("user.dir") + File.separator + asyncJudgeProperties.getQueueDir());
+		pendingDir = Files.createDirectories(queueDir.resolve(PENDING_DIR));
+		resultsDir = Files.createDirectories(queueDir.resolve(RESULTS_DIR));
+	}
+
+	public void savePending(AsyncJudgeSubmission submission) {
+		write(pendingDir.resolve(submission.getSubmissionId() + JSON_SUFFIX), JSON.toJSONString(submission));
+	}
+
+	public AsyncJudgeSubmission loadPending(String submissionId) {
+		String json = read(pendingDir.resolve(submissionId + JSON_SUFFIX));
+		return json == null ? null : JSON.parseObject(json, AsyncJudgeSubmission.class);
+	}
+
+	public void removePending(String submissionId) {
+		delete(pendingDir.resolve(submissionId + JSON_SUFFIX));
+	}
+
+	/**
+	 * 全部待评审的提交 ID (按提交顺序)
+	 */
+	public List<String> listPending() {
+		return listIds(pendingDir);
+	}
+
+	public void saveResult(AsyncJudgeResult result) {
+		write(resultsDir.resolve(result.getSubmissionId() + JSON_SUFFIX), JSON.toJSONString(result));
+	}
+
+	public AsyncJudgeResult loadResult(String submissionId) {
+		String json = read(resultsDir.resolve(submissionId + JSON_SUFFIX));
+		return json == null ? null : JSON.parseObject(json, AsyncJudgeResult.class);
+	}
+
+	/**
+	 * 全部评审结果 ID
+	 */
+	public List<String> listResults() {
+		return listIds(resultsDir);
+	}
+
+	public void removeResult(String submissionId) {
+		delete(resultsDir.resolve(submissionId + JSON_SUFFIX));
+	}
+
+	private static List<String> listIds(Path dir) {
+		List<String> ids = new ArrayList<>();
+		try (Stream<Path> files = Files.list(dir)) {
+			files.map(file -> file.getFileName().toString())
+					.filter(name -> name.endsWith(JSON_SUFFIX))
+					.map(name -> name.substring(0, name.length() - JSON_SUFFIX.length()))
+					.sorted()
+					.forEach(ids::add);
+		} catch (IOException e) {
+			log.error("读取异步评审队列目录 " + dir + " 失败", e);
+		}
+		return ids;
+	}
+
+	private static void write(Path file, String content) {
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(true);
+			}
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			forceDirectory(file.getParent());
+		} catch (IOException e) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "写入异步评审队列失败. " + e);
+		}
+	}
+
+	/**
+	 * 刷盘目录项, 保证重命名后的文件在断电后仍然存在 (不支持打开目录的平台上忽略)
+	 */
+	private static void forceDirectory(Path dir) {
+		try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			log.debug("刷盘目录 " + dir + " 失败: " + e.getMessage());
+		}
+	}
+
+	private static String read(Path file) {
+		try {
+			return Files.exists(file) ? Files.readString(file, StandardCharsets.UTF_8) : null;
+		} catch (IOException e) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "读取异步评审队列失败. " + e);
+		}
+	}
+
+	private static void delete(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("删除 " + file + " 失败: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package com.app.scheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.app.common.StatusEnum;
+import com.app.config.LimiterProperties;
+import com.app.exception.BusinessException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 自适应并发限制 (梯度算法) —— 比较近期与长期的沙箱开销 (排队等待和用户程序以外的执行耗时),
+ *              近期开销明显变长时缩小并发数, 否则逐步放大; 同时按本机和 cgroup 的剩余内存限制并发上限.
+ *              在请求进入调度通道前检查, 超出并发数的提交直接拒绝, 不再排队
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+	/* 近期/长期耗时的平滑系数 */
+	private static final double SHORT_RTT_ALPHA = 0.5;
+	private static final double LONG_RTT_ALPHA = 0.05;
+
+	private static final Path MEMINFO_PATH = Paths.get("/proc/meminfo");
+	private static final Path CGROUP_MEMORY_MAX_PATH = Paths.get("/sys/fs/cgroup/memory.max");
+	private static final Path CGROUP_MEMORY_CURRENT_PATH = Paths.get("/sys/fs/cgroup/memory.current");
+
+	@Resource
+	private LimiterProperties limiterProperties;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong rejected = new AtomicLong();
+
+	/* 以下状态由 this 保护 */
+	private double limit;
+	private double shortRtt = 0;
+	private double longRtt = 0;
+	private int minLimit;
+	private int maxLimit;
+
+	/* 按剩余内存计算的并发上限 */
+	private volatile int memoryLimit = Integer.MAX_VALUE;
+	private volatile long availableMemory = -1;
+
+	@PostConstruct
+	public void init() {
+		int cores = Runtime.getRuntime().availableProcessors();
+		minLimit = Math.max(1, limiterProperties.getMinLimit());
+		maxLimit = limiterProperties.getMaxLimit() > 0 ? limiterProperties.getMaxLimit() : cores * 4;
+		limit = limiterProperties.getInitialLimit() > 0 ? limiterProperties.getInitialLimit() : cores;
+		limit = Math.min(Math.max(limit, minLimit), maxLimit);
+	}
+
+	/**
+	 * 获取执行许可, 当前并发数已达上限时直接拒绝
+	 *
+	 * @return 执行许可
+	 */
+	public LimiterPermit acquire() {
+		if (!Boolean.TRUE.equals(limiterProperties.getEnabled())) {
+			return LimiterPermit.NOOP;
+		}
+		int currentLimit = getLimit();
+		while (true) {
+			int current = inFlight.get();
+			if (current >= currentLimit) {
+				rejected.incrementAndGet();
+				throw new BusinessException(StatusEnum.SYSTEM_BUSY, "同时执行的提交数已达上限 (" + currentLimit + ")");
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				break;
+			}
+		}
+		AtomicBoolean closed = new AtomicBoolean(false);
+		AtomicLong overhead = new AtomicLong(-1);
+		return new LimiterPermit() {
+			@Override
+			public void addOverhead(long millis) {
+				overhead.accumulateAndGet(Math.max(0, millis), (total, value) -> Math.max(0, total) + value);
+			}
+
+			@Override
+			public void close() {
+				if (closed.compareAndSet(false, true)) {
+					// 未开始执行 (取消, 拒绝) 的请求没有开销样本
+					if (overhead.get() >= 0) {
+						update(Math.max(1, overhead.get()));
+					}
+					inFlight.decrementAndGet();
+				}
+			}
+		};
+	}
+
+	/**
+	 * 当前的并发上限
+	 */
+	public synchronized int getLimit() {
+		return Math.max(minLimit, Math.min((int) limit, memoryLimit));
+	}
+
+	/**
+	 * 运行指标
+	 */
+	public synchronized Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("enabled", limiterProperties.getEnabled());
+		metrics.put("limit", getLimit());
+		metrics.put("latencyLimit", (int) limit);
+		metrics.put("memoryLimit", memoryLimit);
+		metrics.put("inFlight", inFlight.get());
+		metrics.put("rejected", rejected.get());
+		metrics.put("shortRtt", Math.round(shortRtt));
+		metrics.put("longRtt", Math.round(longRtt));
+		metrics.put("availableMemory", availableMemory);
+		return metrics;
+	}
+
+	/**
+	 * 根据单个请求的沙箱开销调整并发数
+	 *
+	 * @param sample 沙箱开销 (单位: ms)
+	 */
+	private synchronized void update(double sample) {
+		shortRtt = shortRtt == 0 ? sample : SHORT_RTT_ALPHA * sample + (1 - SHORT_RTT_ALPHA) * shortRtt;
+		longRtt = longRtt == 0 ? sample : LONG_RTT_ALPHA * sample + (1 - LONG_RTT_ALPHA) * longRtt;
+		// 负载下降后长期耗时偏高, 逐步向近期耗时靠拢, 避免基准长期失真
+		if (longRtt / shortRtt > 2) {
+			longRtt *= 0.95;
+		}
+		double gradient = Math.max(0.5, Math.min(1.0, limiterProperties.getTolerance() * longRtt / shortRtt));
+		double newLimit = limit * gradient + Math.sqrt(limit);
+		// 并发数未用满时不放大
+		if (newLimit > limit && inFlight.get() < limit / 2) {
+			return;
+		}
+		double smoothing = limiterProperties.getSmoothing();
+		limit = Math.min(Math.max((1 - smoothing) * limit + smoothing * newLimit, minLimit), maxLimit);
+	}
+
+	/**
+	 * 定期采样本机和 cgroup 的剩余内存, 计算按内存允许的并发上限
+	 */
+	@Scheduled(fixedDelayString = "${sandbox.limiter.memory-sample-interval:1000}")
+	public void sampleMemory() {
+		if (!Boolean.TRUE.equals(limiterProperties.getEnabled())) {
+			return;
+		}
+		long available = Math.min(readHostAvailableMemory(), readCgroupAvailableMemory());
+		if (available == Long.MAX_VALUE) {
+			return;
+		}
+		availableMemory = available;
+		// 剩余内存已扣除正在执行的提交所占内存
+		long spare = Math.max(0, available - limiterProperties.getMemoryReserve());
+		int newMemoryLimit = (int) Math.min(Integer.MAX_VALUE,
+				inFlight.get() + spare / Math.max(1, limiterProperties.getMemoryPerExecution()));
+		if (newMemoryLimit < getLimit()) {
+			log.debug("剩余内存 " + available + "B, 并发上限降为 " + newMemoryLimit);
+		}
+		memoryLimit = newMemoryLimit;
+	}
+
+	private static long readHostAvailableMemory() {
+		try {
+			List<String> lines = Files.readAllLines(MEMINFO_PATH);
+			for (String line : lines) {
+				if (line.startsWith("MemAvailable:")) {
+					return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+				}
+			}
+		} catch (IOException | NumberFormatException e) {
+			log.debug("读取 /proc/meminfo 失败: " + e.getMessage());
+		}
+		return Long.MAX_VALUE;
+	}
+
+	private static long readCgroupAvailableMemory() {
+		try {
+			if (!Files.exists(CGROUP_MEMORY_MAX_PATH)) {
+				return Long.MAX_VALUE;
+			}
+			String max = Files.readString(CGROUP_MEMORY_MAX_PATH).trim();
+			if ("max".equals(max)) {
+				return Long.MAX_VALUE;
+			}
+			long current = Long.parseLong(Files.readString(CGROUP_MEMORY_CURRENT_PATH).trim());
+			return Math.max(0, Long.parseLong(max) - current);
+		} catch (IOException | NumberFormatException e) {
+			log.debug("读取 cgroup 内存信息失败: " + e.getMessage());
+		}
+		return Long.MAX_VALUE;
+	}
+}
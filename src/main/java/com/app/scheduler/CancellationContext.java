@@ -0,0 +1,170 @@
+package com.app.scheduler;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import com.app.common.StatusEnum;
+import com.app.exception.BusinessException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 沙箱任务的取消上下文 —— 客户端断开或超过截止时间时取消, 由调度线程通过 ThreadLocal 传递给沙箱,
+ *              沙箱在编译/运行期间注册取消回调 (结束编译进程, 终止 execute_core 作业等)
+ */
+@Slf4j
+public class CancellationContext {
+	/* 不会被取消的上下文 (不经过调度的调用, 如异步评审队列和预热) */
+	private static final CancellationContext NONE = new CancellationContext(0);
+
+	private static final ThreadLocal<CancellationContext> CURRENT = new ThreadLocal<>();
+
+	/* 取消回调可能执行 docker exec 等阻塞操作, 不在取消方的线程中执行 */
+	private static final ExecutorService cancelExecutor = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "sandbox-cancel");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * 截止时间 (时间戳, 单位: ms), 0 表示没有截止时间
+	 */
+	private final long deadline;
+
+	/**
+	 * 自适应并发限制的许可, 用于记录沙箱开销
+	 */
+	private final LimiterPermit limiterPermit;
+
+	private final List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+
+	private volatile boolean cancelled = false;
+
+	public CancellationContext(long deadline) {
+		this(deadline, LimiterPermit.NOOP);
+	}
+
+	public CancellationContext(long deadline, LimiterPermit limiterPermit) {
+		this.deadline = deadline;
+		this.limiterPermit = limiterPermit;
+	}
+
+	/**
+	 * 当前线程的取消上下文, 没有时返回不会被取消的上下文
+	 */
+	public static CancellationContext current() {
+		CancellationContext context = CURRENT.get();
+		return context == null ? NONE : context;
+	}
+
+	/**
+	 * 在此上下文中执行任务 (其他线程中执行的任务需要通过该方法传递上下文)
+	 */
+	public <T> T callWith(Supplier<T> task) {
+		CancellationContext previous = CURRENT.get();
+		CURRENT.set(this);
+		try {
+			return task.get();
+		} finally {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * 创建子上下文: 截止时间相同, 随本上下文一起取消, 也可以单独取消 (如取消一组并行任务中的其余任务)
+	 */
+	public CancellationContext newChild() {
+		CancellationContext child = new CancellationContext(deadline, limiterPermit);
+		onCancel(child::cancel);
+		return child;
+	}
+
+	public LimiterPermit getLimiterPermit() {
+		return limiterPermit;
+	}
+
+	public boolean isCancelled() {
+		return cancelled || (deadline > 0 && System.currentTimeMillis() >= deadline);
+	}
+
+	/**
+	 * 距截止时间的剩余时间 (单位: ms)
+	 *
+	 * @param defaultValue 没有截止时间时的返回值
+	 */
+	public long remainingMillis(long defaultValue) {
+		if (deadline <= 0) {
+			return defaultValue;
+		}
+		return Math.max(0, Math.min(defaultValue, deadline - System.currentTimeMillis()));
+	}
+
+	/**
+	 * 已取消时抛出 REQUEST_CANCELLED 异常
+	 */
+	public void checkCancelled() {
+		if (isCancelled()) {
+			throw new BusinessException(StatusEnum.REQUEST_CANCELLED);
+		}
+	}
+
+	/**
+	 * 注册取消回调, 已取消时立即执行
+	 *
+	 * @param callback 取消回调 (在单独的线程中执行)
+	 * @return 用于注销回调, 编译/运行结束后应调用
+	 */
+	public Registration onCancel(Runnable callback) {
+		if (this == NONE) {
+			return () -> {
+			};
+		}
+		callbacks.add(callback);
+		if (cancelled && callbacks.remove(callback)) {
+			runCallback(callback);
+		}
+		return () -> callbacks.remove(callback);
+	}
+
+	/**
+	 * 取消任务, 执行全部已注册的回调
+	 */
+	public void cancel() {
+		if (this == NONE || cancelled) {
+			return;
+		}
+		cancelled = true;
+		for (Runnable callback : callbacks) {
+			if (callbacks.remove(callback)) {
+				runCallback(callback);
+			}
+		}
+	}
+
+	private static void runCallback(Runnable callback) {
+		cancelExecutor.execute(() -> {
+			try {
+				callback.run();
+			} catch (RuntimeException e) {
+				log.warn("执行取消回调出错: " + e.getMessage());
+			}
+		});
+	}
+
+	/**
+	 * 取消回调的注册, close 时注销
+	 */
+	public interface Registration extends AutoCloseable {
+		@Override
+		void close();
+	}
+}
@@ -0,0 +1,253 @@
+package com.app.scheduler;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.app.common.LangType;
+import com.app.common.StatusEnum;
+import com.app.config.ContainerPoolProperties;
+import com.app.config.ContainerPoolProperties.PoolConfig;
+import com.app.config.RequestSchedulerProperties;
+import com.app.exception.BusinessException;
+import com.app.utils.CodeLangAdaptUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 编译许可 —— 限制同时编译的提交数量 (全部语言共用及单独限制的语言), 虚拟线程执行时由它约束编译占用的 CPU
+ */
+@Component
+@Slf4j
+public class CompilePermits {
+	/* 全部语言共用的许可在指标中的名称 */
+	private static final String TOTAL = "total";
+
+	/* 在本机编译的语言共用的许可在指标中的名称 */
+	private static final String HOST = "host";
+
+	/* 租借编译容器在指标中的名称 */
+	private static final String LEASE = "lease";
+
+	/* 编译容器池的名称 */
+	private static final String COMPILE_POOL_NAME = "compile";
+
+	@Resource
+	private RequestSchedulerProperties requestSchedulerProperties;
+
+	@Resource
+	private ContainerPoolProperties containerPoolProperties;
+
+	@Resource
+	private CodeLangAdaptUtil codeLangAdaptUtil;
+
+	/* 代码沙箱实现 docker / native */
+	@Value("${sandbox.backend:docker}")
+	private String backend;
+
+	private Slot total;
+
+	/* docker 后端中在本机编译的语言 (java) 共用的许可, 不占用编译容器对应的许可 */
+	private Slot host;
+
+	/* 租借编译容器的等待时间 (docker 后端) */
+	private Slot lease;
+
+	/* 单独限制的语言 -> 许可 */
+	private final Map<LangType, Slot> langSlots = new EnumMap<>(LangType.class);
+
+	@PostConstruct
+	public void init() {
+		int permits = requestSchedulerProperties.getCompilePermits() > 0 ? requestSchedulerProperties.getCompilePermits()
+				: Runtime.getRuntime().availableProcessors();
+		PoolConfig compilePool = "native".equals(backend) ? null
+				: containerPoolProperties.getPools().get(COMPILE_POOL_NAME);
+		if (compilePool != null) {
+			// c, cpp, rust 在编译容器中编译, 并发上限是编译容器的数量; java 在本机编译, 单独限制
+			host = new Slot(permits, true);
+			int containers = Math.max(1, compilePool.getSize());
+			if (requestSchedulerProperties.getCompilePermits() <= 0) {
+				permits = containers;
+			} else if (permits > containers) {
+				log.warn("编译许可数 " + permits + " 超过编译容器数量 " + containers + ", 按编译容器数量限制");
+				permits = containers;
+			}
+			lease = new Slot(containers, false);
+		}
+		total = new Slot(permits, true);
+		for (LangType langType : LangType.values()) {
+			Integer concurrency = codeLangAdaptUtil.getProfile(langType).getCompileConcurrency();
+			if (concurrency != null && concurrency > 0) {
+				// 超过许可总数的语言许可不起作用
+				langSlots.put(langType, new Slot(Math.min(concurrency, sharedSlot(langType).permits), true));
+			}
+		}
+		log.info("同时编译的提交数量上限: " + permits + (host == null ? "" : ", 本机编译: " + host.permits)
+				+ (langSlots.isEmpty() ? "" : ", 单独限制的语言: " + langSlots.keySet()));
+	}
+
+	/**
+	 * 语言共用的许可 (docker 后端中 java 为本机编译的许可, 其余为全部语言共用的许可)
+	 */
+	private Slot sharedSlot(LangType langType) {
+		return host != null && langType == LangType.JAVA ? host : total;
+	}
+
+	/**
+	 * 获取编译许可 (先获取语言许可, 再获取共用许可), 最多等待租借容器的时间 (或请求的剩余时间)
+	 *
+	 * @param langType 编程语言
+	 * @return 编译许可, 编译结束后关闭; 等待超时返回 SYSTEM_BUSY 错误
+	 */
+	public Permit acquire(LangType langType) {
+		CancellationContext context = CancellationContext.current();
+		long deadline = System.currentTimeMillis() + context.remainingMillis(containerPoolProperties.getLeaseTimeout());
+		Slot langSlot = langSlots.get(langType);
+		Slot sharedSlot = sharedSlot(langType);
+		if (langSlot != null) {
+			langSlot.acquire(context, deadline, langType.getLangName());
+		}
+		try {
+			sharedSlot.acquire(context, deadline, langType.getLangName());
+		} catch (RuntimeException e) {
+			if (langSlot != null) {
+				langSlot.release();
+			}
+			throw e;
+		}
+		return () -> {
+			sharedSlot.release();
+			if (langSlot != null) {
+				langSlot.release();
+			}
+		};
+	}
+
+	/**
+	 * 租借编译容器, 并记录等待时间
+	 *
+	 * @param leaser 租借编译容器 (等待超时时抛出 SYSTEM_BUSY 错误)
+	 * @return 容器租约
+	 */
+	public <T> T lease(Supplier<T> leaser) {
+		if (lease == null) {
+			return leaser.get();
+		}
+		long startTime = System.currentTimeMillis();
+		T compileLease;
+		try {
+			compileLease = leaser.get();
+		} catch (BusinessException e) {
+			if (e.getStatusCode() == StatusEnum.SYSTEM_BUSY.getStatusCode()) {
+				lease.onTimeout();
+			}
+			throw e;
+		}
+		lease.onAcquired(System.currentTimeMillis() - startTime);
+		return compileLease;
+	}
+
+	/**
+	 * 编译许可的使用情况
+	 *
+	 * @return total (全部语言共用) 及单独限制的各语言 -> 许可总数, 空闲许可数, 等待中的提交数和等待时间;
+	 *         docker 后端另有 host (本机编译的 java 共用) 和 lease (租借编译容器) -> 编译容器数量和等待时间
+	 */
+	public Map<String, CompileSlotMetrics> getMetrics() {
+		Map<String, CompileSlotMetrics> metrics = new LinkedHashMap<>();
+		metrics.put(TOTAL, total.getMetrics());
+		if (host != null) {
+			metrics.put(HOST, host.getMetrics());
+		}
+		if (lease != null) {
+			metrics.put(LEASE, lease.getMetrics());
+		}
+		langSlots.forEach((langType, slot) -> metrics.put(langType.getLangName(), slot.getMetrics()));
+		return metrics;
+	}
+
+	/**
+	 * 编译许可, 关闭时归还
+	 */
+	public interface Permit extends AutoCloseable {
+		@Override
+		void close();
+	}
+
+	/**
+	 * 一组编译许可及其等待时间统计 (不计数时只统计等待时间, 许可由其他方式限制, 如编译容器的数量)
+	 */
+	private static class Slot {
+		/* 最近等待时间的平滑系数 */
+		private static final double EWMA_ALPHA = 0.2;
+
+		private final int permits;
+		private final Semaphore semaphore;
+		private final LongAdder acquired = new LongAdder();
+		private final LongAdder timeouts = new LongAdder();
+		private final LongAdder totalWait = new LongAdder();
+		/* 由 this 保护 */
+		private double recentWait = 0;
+
+		Slot(int permits, boolean counting) {
+			this.permits = permits;
+			this.semaphore = counting ? new Semaphore(permits, true) : null;
+		}
+
+		void acquire(CancellationContext context, long deadline, String langName) {
+			long startTime = System.currentTimeMillis();
+			try {
+				if (!semaphore.tryAcquire(Math.max(0, deadline - startTime), TimeUnit.MILLISECONDS)) {
+					onTimeout();
+					context.checkCancelled();
+					throw new BusinessException(StatusEnum.SYSTEM_BUSY, "暂无空闲的编译许可 (" + langName + ")");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new BusinessException(StatusEnum.SYSTEM_ERROR, "等待编译许可时被中断. " + e);
+			}
+			onAcquired(System.currentTimeMillis() - startTime);
+		}
+
+		void onAcquired(long wait) {
+			acquired.increment();
+			totalWait.add(wait);
+			synchronized (this) {
+				recentWait = EWMA_ALPHA * wait + (1 - EWMA_ALPHA) * recentWait;
+			}
+		}
+
+		void onTimeout() {
+			timeouts.increment();
+		}
+
+		void release() {
+			semaphore.release();
+		}
+
+		synchronized CompileSlotMetrics getMetrics() {
+			long acquiredCount = acquired.sum();
+			return CompileSlotMetrics.builder()
+					.permits(permits)
+					.available(semaphore == null ? null : semaphore.availablePermits())
+					.waiting(semaphore == null ? null : semaphore.getQueueLength())
+					.acquired(acquiredCount)
+					.timeouts(timeouts.sum())
+					.avgWait(acquiredCount == 0 ? 0 : totalWait.sum() / acquiredCount)
+					.recentWait(Math.round(recentWait))
+					.build();
+		}
+	}
+}
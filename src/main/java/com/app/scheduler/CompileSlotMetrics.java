@@ -0,0 +1,52 @@
+package com.app.scheduler;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 编译许可 (全部语言或单个语言) 的运行指标
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompileSlotMetrics {
+	/**
+	 * 许可总数, 0 表示不单独限制
+	 */
+	Integer permits;
+
+	/**
+	 * 空闲许可数 (lease 为 null)
+	 */
+	Integer available;
+
+	/**
+	 * 等待中的提交数 (lease 为 null)
+	 */
+	Integer waiting;
+
+	/**
+	 * 已获取许可的次数
+	 */
+	Long acquired;
+
+	/**
+	 * 等待超时 (返回系统繁忙) 的次数
+	 */
+	Long timeouts;
+
+	/**
+	 * 平均等待时间 (单位: ms)
+	 */
+	Long avgWait;
+
+	/**
+	 * 最近的等待时间 (指数加权平均, 单位: ms)
+	 */
+	Long recentWait;
+}
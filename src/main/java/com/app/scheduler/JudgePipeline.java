@@ -0,0 +1,98 @@
+package com.app.scheduler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import com.app.config.PipelineProperties;
+import com.app.config.PipelineProperties.StageConfig;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 评审流水线 —— 代码存储, 编译, 运行, 判题分别在各自的阶段中执行, 每个阶段有独立的工作线程和有界队列,
+ *              提交 A 运行的同时提交 B 在编译, 提交 C 在写入测试数据
+ */
+@Component
+@Slf4j
+public class JudgePipeline {
+	@Resource
+	private PipelineProperties pipelineProperties;
+
+	private PipelineStage staging;
+	private PipelineStage compile;
+	private PipelineStage run;
+	private PipelineStage verdict;
+
+	@PostConstruct
+	public void init() {
+		if (!isEnabled()) {
+			return;
+		}
+		int cores = Runtime.getRuntime().availableProcessors();
+		staging = createStage("staging", pipelineProperties.getStaging(), Math.max(2, cores / 2));
+		compile = createStage("compile", pipelineProperties.getCompile(), cores);
+		run = createStage("run", pipelineProperties.getRun(), cores);
+		verdict = createStage("verdict", pipelineProperties.getVerdict(), Math.max(2, cores / 2));
+	}
+
+	public boolean isEnabled() {
+		return Boolean.TRUE.equals(pipelineProperties.getEnabled());
+	}
+
+	public <T> CompletableFuture<T> staging(CancellationContext context, Supplier<T> task) {
+		return staging.submit(context, task);
+	}
+
+	public <T> CompletableFuture<T> compile(CancellationContext context, Supplier<T> task) {
+		return compile.submit(context, task);
+	}
+
+	public <T> CompletableFuture<T> run(CancellationContext context, Supplier<T> task) {
+		return run.submit(context, task);
+	}
+
+	public <T> CompletableFuture<T> verdict(CancellationContext context, Supplier<T> task) {
+		return verdict.submit(context, task);
+	}
+
+	/**
+	 * 各阶段的运行指标
+	 */
+	public Map<String, StageMetrics> getMetrics() {
+		Map<String, StageMetrics> metrics = new LinkedHashMap<>();
+		if (isEnabled()) {
+			metrics.put("staging", staging.getMetrics());
+			metrics.put("compile", compile.getMetrics());
+			metrics.put("run", run.getMetrics());
+			metrics.put("verdict", verdict.getMetrics());
+		}
+		return metrics;
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (isEnabled()) {
+			staging.shutdown();
+			compile.shutdown();
+			run.shutdown();
+			verdict.shutdown();
+		}
+	}
+
+	private static PipelineStage createStage(String name, StageConfig config, int defaultWorkers) {
+		int workers = config.getWorkers() > 0 ? config.getWorkers() : defaultWorkers;
+		int queueSize = config.getQueueSize() > 0 ? config.getQueueSize() : workers * 4;
+		log.info("评审阶段 [" + name + "] 工作线程数: " + workers + ", 最大排队数量: " + queueSize);
+		return new PipelineStage(name, workers, queueSize);
+	}
+}
@@ -0,0 +1,67 @@
+package com.app.scheduler;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 调度通道的运行指标
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LaneMetrics {
+	/**
+	 * 并发执行的线程数 (虚拟线程时为同时执行的任务数上限)
+	 */
+	Integer threads;
+
+	/**
+	 * 是否使用虚拟线程执行
+	 */
+	Boolean virtual;
+
+	/**
+	 * 最大排队数量
+	 */
+	Integer queueSize;
+
+	/**
+	 * 正在执行的任务数
+	 */
+	Integer running;
+
+	/**
+	 * 排队中的任务数
+	 */
+	Integer queued;
+
+	/**
+	 * 已开始执行的任务数
+	 */
+	Long completed;
+
+	/**
+	 * 因排队已满被拒绝的任务数
+	 */
+	Long rejected;
+
+	/**
+	 * 平均排队等待时间 (单位: ms)
+	 */
+	Long avgQueueWait;
+
+	/**
+	 * 最近的排队等待时间 (指数移动平均, 单位: ms)
+	 */
+	Long recentQueueWait;
+
+	/**
+	 * 最长排队等待时间 (单位: ms)
+	 */
+	Long maxQueueWait;
+}
@@ -0,0 +1,13 @@
+package com.app.scheduler;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 请求调度通道
+ */
+public enum LaneType {
+  /* 交互请求 (调试), 对延迟敏感 */
+  INTERACTIVE,
+  /* 批量请求 (评审), 侧重吞吐量 */
+  BATCH
+}
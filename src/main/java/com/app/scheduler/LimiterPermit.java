@@ -0,0 +1,31 @@
+package com.app.scheduler;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 自适应并发限制的执行许可, 请求进入调度通道前获取, 执行结束后关闭
+ */
+public interface LimiterPermit extends AutoCloseable {
+	/**
+	 * 不受限制的许可 (未启用自适应并发限制或不经过调度的调用)
+	 */
+	LimiterPermit NOOP = new LimiterPermit() {
+		@Override
+		public void addOverhead(long overhead) {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	/**
+	 * 记录一段沙箱开销 (排队等待, execute_core 中用户程序运行以外的耗时), 关闭时用于调整并发数
+	 *
+	 * @param overhead 开销耗时 (单位: ms)
+	 */
+	void addOverhead(long overhead);
+
+	@Override
+	void close();
+}
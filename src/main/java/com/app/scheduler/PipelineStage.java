@@ -0,0 +1,157 @@
+package com.app.scheduler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.app.common.StatusEnum;
+import com.app.exception.BusinessException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 评审流水线的单个阶段 —— 固定数量的工作线程和有界队列, 队列已满时提交方阻塞等待 (背压),
+ *              任务在提交方的取消上下文中执行. 阶段关闭或等待时被中断, 任务以 SYSTEM_BUSY 错误结束, 不会让等待方永远阻塞
+ */
+@Slf4j
+class PipelineStage {
+	/* 最近排队等待时间和执行耗时的平滑系数 */
+	private static final double EWMA_ALPHA = 0.2;
+
+	/* 队列已满时检查阶段是否已关闭的间隔 (单位: ms) */
+	private static final long SHUTDOWN_CHECK_INTERVAL = 100;
+
+	private final String name;
+	private final int workers;
+	private final int queueSize;
+	private final ThreadPoolExecutor executor;
+
+	private final AtomicInteger running = new AtomicInteger();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder totalQueueWait = new LongAdder();
+	private final LongAdder totalLatency = new LongAdder();
+	/* 以下状态由 this 保护 */
+	private double recentQueueWait = 0;
+	private double recentLatency = 0;
+
+	PipelineStage(String name, int workers, int queueSize) {
+		this.name = name;
+		this.workers = workers;
+		this.queueSize = queueSize;
+		AtomicInteger threadIndex = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(workers, workers, 1, TimeUnit.MINUTES,
+				new ArrayBlockingQueue<>(queueSize), r -> {
+					Thread thread = new Thread(r, "pipeline-" + name + "-" + threadIndex.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				}, (task, pool) -> {
+					// 下游阶段已满时阻塞上游, 而不是丢弃或在上游线程中执行; 阶段关闭后不再入队
+					try {
+						while (!pool.isShutdown()) {
+							if (pool.getQueue().offer(task, SHUTDOWN_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+								// 入队的同时阶段被关闭 (shutdownNow 已取走队列), 任务不会再被执行
+								if (pool.isShutdown() && pool.getQueue().remove(task)) {
+									break;
+								}
+								return;
+							}
+						}
+						throw new RejectedExecutionException("评审阶段 [" + name + "] 已关闭");
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new RejectedExecutionException("等待进入评审阶段 [" + name + "] 时被中断", e);
+					}
+				});
+	}
+
+	/**
+	 * 在本阶段中执行任务
+	 *
+	 * @param context 任务所属请求的取消上下文
+	 * @param task    任务
+	 * @return 任务结果, 阶段已关闭或等待入队时被中断则以 SYSTEM_BUSY 错误结束
+	 */
+	<T> CompletableFuture<T> submit(CancellationContext context, Supplier<T> task) {
+		var future = new CompletableFuture<T>();
+		long enqueueTime = System.currentTimeMillis();
+		try {
+			executor.execute(new StageTask(future, () -> {
+				long startTime = System.currentTimeMillis();
+				running.incrementAndGet();
+				try {
+					future.complete(context.callWith(task));
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				} finally {
+					running.decrementAndGet();
+					onCompleted(startTime - enqueueTime, System.currentTimeMillis() - startTime);
+				}
+			}));
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(rejected(e.getMessage()));
+		}
+		return future;
+	}
+
+	private static BusinessException rejected(String message) {
+		return new BusinessException(StatusEnum.SYSTEM_BUSY, message);
+	}
+
+	private void onCompleted(long queueWait, long latency) {
+		completed.increment();
+		totalQueueWait.add(queueWait);
+		totalLatency.add(latency);
+		synchronized (this) {
+			recentQueueWait = EWMA_ALPHA * queueWait + (1 - EWMA_ALPHA) * recentQueueWait;
+			recentLatency = EWMA_ALPHA * latency + (1 - EWMA_ALPHA) * recentLatency;
+		}
+	}
+
+	synchronized StageMetrics getMetrics() {
+		long completedCount = completed.sum();
+		return StageMetrics.builder()
+				.workers(workers)
+				.queueSize(queueSize)
+				.running(running.get())
+				.queued(executor.getQueue().size())
+				.completed(completedCount)
+				.avgQueueWait(completedCount == 0 ? 0 : totalQueueWait.sum() / completedCount)
+				.recentQueueWait(Math.round(recentQueueWait))
+				.avgLatency(completedCount == 0 ? 0 : totalLatency.sum() / completedCount)
+				.recentLatency(Math.round(recentLatency))
+				.build();
+	}
+
+	void shutdown() {
+		log.debug("关闭评审阶段 [" + name + "]");
+		// 排队中的任务不会再执行, 结束它们的结果以免等待方永远阻塞
+		for (Runnable task : executor.shutdownNow()) {
+			((StageTask) task).future.completeExceptionally(rejected("评审阶段 [" + name + "] 已关闭"));
+		}
+	}
+
+	/**
+	 * 阶段中排队的任务, 记录其结果以便关闭阶段时结束
+	 */
+	private static class StageTask implements Runnable {
+		final CompletableFuture<?> future;
+		final Runnable body;
+
+		StageTask(CompletableFuture<?> future, Runnable body) {
+			this.future = future;
+			this.body = body;
+		}
+
+		@Override
+		public void run() {
+			body.run();
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package com.app.scheduler;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import com.app.common.StatusEnum;
+import com.app.config.RequestSchedulerProperties;
+import com.app.config.RequestSchedulerProperties.LaneConfig;
+import com.app.exception.BusinessException;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 评测请求调度 —— 调试和评审请求分别进入交互通道和批量通道, 各自限制并发数和排队数量,
+ *              评审请求再多也不会占用调试请求的线程; 通道内按调用方加权公平排队, 进入通道前先经过自适应并发限制
+ */
+@Component
+@Slf4j
+public class SandBoxTaskScheduler {
+	@Resource
+	private RequestSchedulerProperties requestSchedulerProperties;
+
+	@Resource
+	private AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter;
+
+	private final Map<LaneType, SchedulerLane> lanes = new EnumMap<>(LaneType.class);
+
+	/* 到达截止时间时取消任务 */
+	private final ScheduledExecutorService deadlineTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "sandbox-deadline");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/* 虚拟线程执行方式下的默认并发数 */
+	private static final int DEFAULT_VIRTUAL_CONCURRENCY = 1024;
+
+	@PostConstruct
+	public void init() {
+		int cores = Runtime.getRuntime().availableProcessors();
+		/* 交互通道: 核心数的一半 (至少 2 个), 批量通道: 除预留的 1 个核心外的全部核心 */
+		lanes.put(LaneType.INTERACTIVE,
+				createLane("interactive", requestSchedulerProperties.getInteractive(), Math.max(2, cores / 2)));
+		lanes.put(LaneType.BATCH, createLane("batch", requestSchedulerProperties.getBatch(), Math.max(1, cores - 1)));
+	}
+
+	/**
+	 * 在指定通道中执行阻塞任务
+	 *
+	 * @param laneType 通道
+	 * @param caller   调用方
+	 * @param cost     任务代价 (如测试数据数量), 代价越大同一调用方后续任务排得越靠后
+	 * @param deadline 截止时间 (时间戳, 单位: ms), 0 表示没有截止时间
+	 * @param task     阻塞任务, 执行期间可通过 CancellationContext.current() 获取取消上下文和并发限制许可
+	 * @return 任务结果, 并发数已达上限或排队已满时返回 SYSTEM_BUSY 错误, 超过截止时间时返回 REQUEST_CANCELLED 错误
+	 */
+	public <T> Mono<T> submit(LaneType laneType, String caller, long cost, long deadline, Callable<T> task) {
+		return submitAsync(laneType, caller, cost, deadline, () -> CompletableFuture.completedFuture(task.call()));
+	}
+
+	/**
+	 * 在指定通道中提交异步任务 (如评审流水线), 通道的执行线程在任务返回后即释放, 并发限制许可和取消上下文保留到任务结果完成
+	 *
+	 * @param laneType 通道
+	 * @param caller   调用方
+	 * @param cost     任务代价 (如测试数据数量), 代价越大同一调用方后续任务排得越靠后
+	 * @param deadline 截止时间 (时间戳, 单位: ms), 0 表示没有截止时间
+	 * @param task     提交异步任务, 执行期间可通过 CancellationContext.current() 获取取消上下文和并发限制许可
+	 * @return 任务结果, 并发数已达上限或排队已满时返回 SYSTEM_BUSY 错误, 超过截止时间时返回 REQUEST_CANCELLED 错误
+	 */
+	public <T> Mono<T> submitAsync(LaneType laneType, String caller, long cost, long deadline,
+			Callable<CompletableFuture<T>> task) {
+		SchedulerLane lane = lanes.get(laneType);
+		return Mono.create(sink -> {
+			LimiterPermit permit;
+			try {
+				permit = adaptiveConcurrencyLimiter.acquire();
+			} catch (BusinessException e) {
+				sink.error(e);
+				return;
+			}
+			var context = new CancellationContext(deadline, permit);
+			long offerTime = System.currentTimeMillis();
+			var scheduledTask = lane.offer(caller, cost, () -> {
+				CompletableFuture<T> future;
+				try {
+					permit.addOverhead(System.currentTimeMillis() - offerTime);
+					context.checkCancelled();
+					future = context.callWith(() -> {
+						try {
+							return task.call();
+						} catch (RuntimeException e) {
+							throw e;
+						} catch (Exception e) {
+							throw new BusinessException(StatusEnum.SYSTEM_ERROR, e.toString());
+						}
+					});
+				} catch (Throwable e) {
+					future = CompletableFuture.failedFuture(e);
+				}
+				future.whenComplete((result, e) -> {
+					permit.close();
+					if (e == null) {
+						sink.success(result);
+					} else {
+						sink.error(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+					}
+				});
+			}, () -> {
+				permit.close();
+				sink.error(new BusinessException(StatusEnum.SYSTEM_BUSY, "调度通道已关闭"));
+			});
+			if (scheduledTask == null) {
+				permit.close();
+				sink.error(new BusinessException(StatusEnum.SYSTEM_BUSY, "请求排队已满"));
+				return;
+			}
+			// 客户端断开时移除尚未开始执行的任务, 并终止正在执行的编译/运行 (许可在任务结果完成时释放)
+			sink.onCancel(() -> {
+				if (scheduledTask.cancel()) {
+					permit.close();
+				}
+				context.cancel();
+			});
+			if (deadline > 0) {
+				ScheduledFuture<?> timer = deadlineTimer.schedule(() -> {
+					if (scheduledTask.cancel()) {
+						permit.close();
+					}
+					context.cancel();
+					sink.error(new BusinessException(StatusEnum.REQUEST_CANCELLED));
+				}, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				sink.onDispose(() -> timer.cancel(false));
+			}
+		});
+	}
+
+	/**
+	 * 各通道的运行指标
+	 */
+	public Map<String, LaneMetrics> getMetrics() {
+		Map<String, LaneMetrics> metrics = new LinkedHashMap<>();
+		lanes.forEach((laneType, lane) -> metrics.put(laneType.name().toLowerCase(), lane.getMetrics()));
+		return metrics;
+	}
+
+	@PreDestroy
+	public void destroy() {
+		lanes.values().forEach(SchedulerLane::shutdown);
+		deadlineTimer.shutdownNow();
+	}
+
+	private SchedulerLane createLane(String name, LaneConfig config, int defaultThreads) {
+		ThreadFactory virtualThreadFactory = "virtual".equals(requestSchedulerProperties.getExecutionMode())
+				? createVirtualThreadFactory("sandbox-" + name + "-")
+				: null;
+		int threads;
+		if (virtualThreadFactory != null) {
+			threads = config.getVirtualConcurrency() > 0 ? config.getVirtualConcurrency() : DEFAULT_VIRTUAL_CONCURRENCY;
+		} else {
+			threads = config.getThreads() > 0 ? config.getThreads() : defaultThreads;
+		}
+		int queueSize = config.getQueueSize() > 0 ? config.getQueueSize() : threads * 4;
+		log.info("调度通道 [" + name + "] " + (virtualThreadFactory != null ? "虚拟线程并发数: " : "线程数: ") + threads
+				+ ", 最大排队数量: " + queueSize);
+		return new SchedulerLane(name, threads, queueSize,
+				caller -> requestSchedulerProperties.getCallerWeights().getOrDefault(caller, 1D), virtualThreadFactory);
+	}
+
+	/**
+	 * 通过反射创建虚拟线程工厂 (Thread.ofVirtual().name(prefix, 0).factory()), 项目以 JDK 17 编译,
+	 * 运行在 JDK 21 及以上时才可用
+	 *
+	 * @param prefix 线程名前缀
+	 * @return 虚拟线程工厂, 不支持时返回 null
+	 */
+	private static ThreadFactory createVirtualThreadFactory(String prefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			log.warn("当前 JDK (" + Runtime.version() + ") 不支持虚拟线程, 使用平台线程执行");
+			return null;
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package com.app.scheduler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 单个调度通道 —— 限制并发数和排队数量, 排队任务按调用方做加权公平排队 (WFQ):
+ *              每个任务的结束标签 = max(虚拟时间, 该调用方上一任务的结束标签) + 代价 / 调用方权重, 按结束标签从小到大执行.
+ *              任务在固定的平台线程池中执行, 或每个任务一个虚拟线程 (此时并发数只是排队的上限, 不对应线程数)
+ */
+@Slf4j
+class SchedulerLane {
+	/* 最近排队等待时间的平滑系数 */
+	private static final double EWMA_ALPHA = 0.2;
+
+	private final String name;
+	/* 并发数 (平台线程数或虚拟线程数上限) */
+	private final int threads;
+	private final int queueSize;
+	/* 调用方 -> 权重 */
+	private final ToDoubleFunction<String> callerWeight;
+	private final Executor workers;
+	private final boolean virtual;
+
+	/* 以下状态由 this 保护 */
+	private final PriorityQueue<ScheduledTask> queue = new PriorityQueue<>();
+	/* 调用方 -> 上一任务的结束标签 */
+	private final Map<String, Double> lastFinishTags = new HashMap<>();
+	private double virtualTime = 0;
+	private long sequence = 0;
+	private int running = 0;
+	private long completed = 0;
+	private long rejected = 0;
+	private long totalQueueWait = 0;
+	private double recentQueueWait = 0;
+	private long maxQueueWait = 0;
+
+	/**
+	 * @param name                 通道名称
+	 * @param threads              并发数
+	 * @param queueSize            最大排队数量
+	 * @param callerWeight         调用方 -> 权重
+	 * @param virtualThreadFactory 虚拟线程工厂, 为 null 时使用平台线程池
+	 */
+	SchedulerLane(String name, int threads, int queueSize, ToDoubleFunction<String> callerWeight,
+			ThreadFactory virtualThreadFactory) {
+		this.name = name;
+		this.threads = threads;
+		this.queueSize = queueSize;
+		this.callerWeight = callerWeight;
+		this.virtual = virtualThreadFactory != null;
+		if (virtual) {
+			// 虚拟线程不需要池化, 每个任务新建一个
+			this.workers = task -> virtualThreadFactory.newThread(task).start();
+			return;
+		}
+		AtomicInteger threadIndex = new AtomicInteger();
+		this.workers = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), r -> {
+			Thread thread = new Thread(r, "sandbox-" + name + "-" + threadIndex.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * 提交任务
+	 *
+	 * @param caller 调用方
+	 * @param cost   任务代价 (如测试数据数量)
+	 * @param task   任务
+	 * @return 已排队的任务, 排队已满时返回 null
+	 */
+	ScheduledTask offer(String caller, long cost, Runnable task) {
+		return offer(caller, cost, task, () -> {
+		});
+	}
+
+	/**
+	 * 提交任务
+	 *
+	 * @param caller     调用方
+	 * @param cost       任务代价 (如测试数据数量)
+	 * @param task       任务
+	 * @param onRejected 通道已关闭而无法执行任务时的回调
+	 * @return 已排队的任务, 排队已满时返回 null
+	 */
+	synchronized ScheduledTask offer(String caller, long cost, Runnable task, Runnable onRejected) {
+		if (queue.size() >= queueSize) {
+			rejected++;
+			return null;
+		}
+		double weight = Math.max(callerWeight.applyAsDouble(caller), 0.01);
+		double startTag = Math.max(virtualTime, lastFinishTags.getOrDefault(caller, 0D));
+		double finishTag = startTag + Math.max(cost, 1) / weight;
+		lastFinishTags.put(caller, finishTag);
+		var scheduledTask = new ScheduledTask(this, task, onRejected, startTag, finishTag, sequence++);
+		queue.offer(scheduledTask);
+		dispatch();
+		return scheduledTask;
+	}
+
+	synchronized LaneMetrics getMetrics() {
+		return LaneMetrics.builder()
+				.threads(threads)
+				.virtual(virtual)
+				.queueSize(queueSize)
+				.running(running)
+				.queued(queue.size())
+				.completed(completed)
+				.rejected(rejected)
+				.avgQueueWait(completed == 0 ? 0 : totalQueueWait / completed)
+				.recentQueueWait(Math.round(recentQueueWait))
+				.maxQueueWait(maxQueueWait)
+				.build();
+	}
+
+	void shutdown() {
+		if (workers instanceof ExecutorService) {
+			((ExecutorService) workers).shutdownNow();
+		}
+	}
+
+	private synchronized boolean cancel(ScheduledTask scheduledTask) {
+		return queue.remove(scheduledTask);
+	}
+
+	/**
+	 * 有空闲线程时按结束标签取出任务执行, 通道已关闭时任务以拒绝结束
+	 */
+	private void dispatch() {
+		while (running < threads && !queue.isEmpty()) {
+			ScheduledTask scheduledTask = queue.poll();
+			try {
+				workers.execute(() -> {
+					try {
+						scheduledTask.task.run();
+					} catch (Exception e) {
+						log.error("调度通道 [" + name + "] 任务执行异常", e);
+					} finally {
+						onFinished();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				rejected++;
+				scheduledTask.onRejected.run();
+				continue;
+			}
+			// 任务结束时的 onFinished 需要获取 this, 在此之前不会执行
+			running++;
+			virtualTime = Math.max(virtualTime, scheduledTask.startTag);
+			long queueWait = System.currentTimeMillis() - scheduledTask.enqueueTime;
+			completed++;
+			totalQueueWait += queueWait;
+			recentQueueWait = EWMA_ALPHA * queueWait + (1 - EWMA_ALPHA) * recentQueueWait;
+			maxQueueWait = Math.max(maxQueueWait, queueWait);
+		}
+		// 已落后于虚拟时间的调用方不再需要记录
+		if (lastFinishTags.size() > 1024) {
+			lastFinishTags.values().removeIf(finishTag -> finishTag <= virtualTime);
+		}
+	}
+
+	private synchronized void onFinished() {
+		running--;
+		dispatch();
+	}
+
+	/**
+	 * 排队中的任务
+	 */
+	static class ScheduledTask implements Comparable<ScheduledTask> {
+		private final SchedulerLane lane;
+		private final Runnable task;
+		private final Runnable onRejected;
+		private final double startTag;
+		private final double finishTag;
+		private final long sequence;
+		private final long enqueueTime = System.currentTimeMillis();
+
+		ScheduledTask(SchedulerLane lane, Runnable task, Runnable onRejected, double startTag, double finishTag,
+				long sequence) {
+			this.lane = lane;
+			this.task = task;
+			this.onRejected = onRejected;
+			this.startTag = startTag;
+			this.finishTag = finishTag;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * 取消尚未开始执行的任务
+		 *
+		 * @return 任务仍在排队并已移除时返回 true
+		 */
+		boolean cancel() {
+			return lane.cancel(this);
+		}
+
+		@Override
+		public int compareTo(ScheduledTask other) {
+			int result = Double.compare(finishTag, other.finishTag);
+			return result != 0 ? result : Long.compare(sequence, other.sequence);
+		}
+	}
+}
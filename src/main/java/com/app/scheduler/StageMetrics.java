@@ -0,0 +1,62 @@
+package com.app.scheduler;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 评审流水线单个阶段的运行指标
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StageMetrics {
+	/**
+	 * 工作线程数
+	 */
+	Integer workers;
+
+	/**
+	 * 最大排队数量
+	 */
+	Integer queueSize;
+
+	/**
+	 * 正在执行的任务数
+	 */
+	Integer running;
+
+	/**
+	 * 排队中的任务数
+	 */
+	Integer queued;
+
+	/**
+	 * 已完成的任务数
+	 */
+	Long completed;
+
+	/**
+	 * 平均排队等待时间 (单位: ms)
+	 */
+	Long avgQueueWait;
+
+	/**
+	 * 最近的排队等待时间 (指数加权平均, 单位: ms)
+	 */
+	Long recentQueueWait;
+
+	/**
+	 * 平均执行耗时 (单位: ms)
+	 */
+	Long avgLatency;
+
+	/**
+	 * 最近的执行耗时 (指数加权平均, 单位: ms)
+	 */
+	Long recentLatency;
+}
@@ -0,0 +1,53 @@
+package com.app.security;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 调用方的一次同时执行名额 —— 同步请求在响应结束时释放; 异步提交由请求转交给异步评审队列,
+ *              在评审完成时释放, 使排队和正在评审的异步提交同样计入 max-concurrent. 重复释放只生效一次
+ */
+public class CallerPermit {
+  /**
+   * 名额在 ServerWebExchange 中的属性名
+   */
+  public static final String ATTRIBUTE = CallerPermit.class.getName();
+
+  private final CallerQuota caller;
+
+  private final AtomicBoolean released = new AtomicBoolean();
+
+  private volatile boolean handedOff;
+
+  CallerPermit(CallerQuota caller) {
+    this.caller = caller;
+  }
+
+  /**
+   * 调用方名称
+   */
+  public String getCallerName() {
+    return caller.getName();
+  }
+
+  /**
+   * 将释放名额的责任转交给后台任务, 请求结束时不再释放
+   */
+  public void handOff() {
+    handedOff = true;
+  }
+
+  public boolean isHandedOff() {
+    return handedOff;
+  }
+
+  /**
+   * 释放名额
+   */
+  public void release() {
+    if (released.compareAndSet(false, true)) {
+      caller.release();
+    }
+  }
+}
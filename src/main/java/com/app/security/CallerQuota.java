@@ -0,0 +1,101 @@
+package com.app.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 单个调用方的配额 —— 每秒提交次数 (令牌桶) 和同时执行的提交数量, 均为无锁计数
+ */
+public class CallerQuota {
+  /**
+   * 调用方名称
+   */
+  @Getter
+  private final String name;
+
+  /**
+   * 提交频率限制, 为 null 时不限制
+   */
+  private final TokenBucket tokenBucket;
+
+  /**
+   * 同时执行的提交数量上限, 0 表示不限制
+   */
+  private final int maxConcurrent;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final LongAdder accepted = new LongAdder();
+  private final LongAdder rateLimited = new LongAdder();
+  private final LongAdder concurrencyLimited = new LongAdder();
+
+  public CallerQuota(String name, double rate, int burst, int maxConcurrent) {
+    this.name = name;
+    this.tokenBucket = rate > 0 ? new TokenBucket(rate, burst > 0 ? burst : (int) Math.ceil(rate)) : null;
+    this.maxConcurrent = maxConcurrent;
+  }
+
+  /**
+   * 尝试开始一次提交
+   *
+   * @return 超出提交频率时返回 RATE_LIMITED, 超出同时执行数量时返回 CONCURRENCY_LIMITED
+   */
+  public Admission tryAcquire() {
+    if (maxConcurrent > 0 && inFlight.incrementAndGet() > maxConcurrent) {
+      inFlight.decrementAndGet();
+      concurrencyLimited.increment();
+      return Admission.CONCURRENCY_LIMITED;
+    }
+    if (tokenBucket != null && !tokenBucket.tryAcquire()) {
+      if (maxConcurrent > 0) {
+        inFlight.decrementAndGet();
+      }
+      rateLimited.increment();
+      return Admission.RATE_LIMITED;
+    }
+    accepted.increment();
+    return Admission.ACCEPTED;
+  }
+
+  /**
+   * 不检查配额直接占用一个同时执行名额, 用于服务重启后恢复的异步提交 (它们在上次提交时已经通过了配额检查)
+   *
+   * @return 同时执行名额, 评审完成时释放
+   */
+  public CallerPermit forceAcquire() {
+    if (maxConcurrent > 0) {
+      inFlight.incrementAndGet();
+    }
+    return new CallerPermit(this);
+  }
+
+  /**
+   * 提交执行结束 (与 tryAcquire 返回 ACCEPTED 或 forceAcquire 配对)
+   */
+  public void release() {
+    if (maxConcurrent > 0) {
+      inFlight.decrementAndGet();
+    }
+  }
+
+  /**
+   * 配额使用情况
+   */
+  public Map<String, Long> getMetrics() {
+    Map<String, Long> metrics = new LinkedHashMap<>();
+    metrics.put("inFlight", (long) inFlight.get());
+    metrics.put("accepted", accepted.sum());
+    metrics.put("rateLimited", rateLimited.sum());
+    metrics.put("concurrencyLimited", concurrencyLimited.sum());
+    return metrics;
+  }
+
+  public enum Admission {
+    ACCEPTED, RATE_LIMITED, CONCURRENCY_LIMITED
+  }
+}
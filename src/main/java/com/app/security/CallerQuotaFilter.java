@@ -0,0 +1,90 @@
+package com.app.security;
+
+import javax.annotation.Resource;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.alibaba.fastjson2.JSON;
+import com.app.common.BaseHttpResponse;
+import com.app.common.StatusEnum;
+import com.app.config.CallerQuotaProperties;
+import com.app.config.RequestSchedulerProperties;
+import com.app.exception.BusinessException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 评测接口的调用方校验 —— 按请求头 token 识别调用方, 提交 (POST) 时检查其提交频率和同时执行数量,
+ *              超出配额的请求在进入调度之前直接拒绝; 通过的请求以调用方名称作为调度时的调用方标识.
+ *              同时执行名额放在 CallerPermit.ATTRIBUTE 属性中, 默认在响应结束时释放, 被转交 (异步提交) 时由接收方释放
+ */
+@Component
+public class CallerQuotaFilter implements WebFilter {
+  @Resource
+  private CallerQuotaProperties callerQuotaProperties;
+
+  @Resource
+  private RequestSchedulerProperties requestSchedulerProperties;
+
+  @Resource
+  private CallerRegistry callerRegistry;
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    ServerHttpRequest request = exchange.getRequest();
+    if (!isProtected(request.getPath().pathWithinApplication().value())) {
+      return chain.filter(exchange);
+    }
+    CallerQuota caller = callerRegistry.getCaller(request.getHeaders().getFirst("token"));
+    if (caller == null) {
+      return reject(exchange, new BusinessException(StatusEnum.NO_AUTH));
+    }
+    // 调度时按调用方名称公平排队, 忽略客户端自带的调用方请求头
+    ServerWebExchange callerExchange = exchange.mutate()
+        .request(builder -> builder.headers(
+            headers -> headers.set(requestSchedulerProperties.getCallerHeader(), caller.getName())))
+        .build();
+    if (request.getMethod() != HttpMethod.POST) {
+      return chain.filter(callerExchange);
+    }
+    switch (caller.tryAcquire()) {
+      case RATE_LIMITED:
+        return reject(exchange, new BusinessException(StatusEnum.TOO_MANY_REQUESTS, "调用方 " + caller.getName() + " 提交过于频繁"));
+      case CONCURRENCY_LIMITED:
+        return reject(exchange,
+            new BusinessException(StatusEnum.TOO_MANY_REQUESTS, "调用方 " + caller.getName() + " 同时执行的提交过多"));
+      default:
+        CallerPermit permit = new CallerPermit(caller);
+        callerExchange.getAttributes().put(CallerPermit.ATTRIBUTE, permit);
+        return chain.filter(callerExchange).doFinally(signal -> {
+          if (!permit.isHandedOff()) {
+            permit.release();
+          }
+        });
+    }
+  }
+
+  private boolean isProtected(String path) {
+    return callerQuotaProperties.getPaths().stream()
+        .anyMatch(prefix -> path.equals(prefix) || path.startsWith(prefix + "/"));
+  }
+
+  /**
+   * 以与 GlobalExceptionHandler 相同的格式返回错误
+   */
+  private static Mono<Void> reject(ServerWebExchange exchange, BusinessException e) {
+    ServerHttpResponse response = exchange.getResponse();
+    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    return BaseHttpResponse.error(e)
+        .flatMap(body -> response.writeWith(Mono.just(response.bufferFactory().wrap(JSON.toJSONBytes(body)))));
+  }
+}
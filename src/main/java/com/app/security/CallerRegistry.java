@@ -0,0 +1,24 @@
+package com.app.security;
+
+import java.util.Collection;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 调用方注册表 —— 按请求头 token 识别调用方及其配额, 默认实现读取 sandbox.quota.callers,
+ *              需要从其他来源加载调用方时提供一个 @Primary 的实现即可
+ */
+public interface CallerRegistry {
+  /**
+   * 按令牌查找调用方
+   *
+   * @param token 请求头 token
+   * @return 调用方配额, 未注册时返回 null
+   */
+  CallerQuota getCaller(String token);
+
+  /**
+   * 全部调用方
+   */
+  Collection<CallerQuota> getCallers();
+}
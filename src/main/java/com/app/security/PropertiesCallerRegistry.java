@@ -0,0 +1,49 @@
+package com.app.security;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import com.app.config.CallerQuotaProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 由 application.yml 中 sandbox.quota.callers 配置的调用方注册表
+ */
+@Component
+@Slf4j
+public class PropertiesCallerRegistry implements CallerRegistry {
+  @Resource
+  private CallerQuotaProperties callerQuotaProperties;
+
+  /* token -> 调用方配额 */
+  private final Map<String, CallerQuota> callers = new LinkedHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    callerQuotaProperties.getCallers().forEach(config -> {
+      String name = config.getName() != null ? config.getName() : config.getToken();
+      callers.put(config.getToken(),
+          new CallerQuota(name, config.getRate(), config.getBurst(), config.getMaxConcurrent()));
+    });
+    log.info("已注册 " + callers.size() + " 个调用方");
+  }
+
+  @Override
+  public CallerQuota getCaller(String token) {
+    return token == null ? null : callers.get(token);
+  }
+
+  @Override
+  public Collection<CallerQuota> getCallers() {
+    return callers.values();
+  }
+}
@@ -0,0 +1,55 @@
+package com.app.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 无锁令牌桶 —— 只记录 "桶被补满的理论时间" (GCRA 算法), 取令牌时 CAS 推后该时间,
+ *              推后后超出突发容量则拒绝
+ */
+public class TokenBucket {
+  /**
+   * 生成一个令牌的间隔 (单位: ns)
+   */
+  private final long emissionInterval;
+
+  /**
+   * 突发容量对应的时间 (单位: ns)
+   */
+  private final long burstTolerance;
+
+  /**
+   * 理论到达时间 (System.nanoTime)
+   */
+  private final AtomicLong theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+
+  /**
+   * @param rate  每秒生成的令牌数
+   * @param burst 桶容量
+   */
+  public TokenBucket(double rate, int burst) {
+    this.emissionInterval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    this.burstTolerance = emissionInterval * Math.max(1, burst);
+  }
+
+  /**
+   * 尝试取一个令牌, 不等待
+   *
+   * @return 是否取到令牌
+   */
+  public boolean tryAcquire() {
+    long now = System.nanoTime();
+    while (true) {
+      long arrivalTime = theoreticalArrivalTime.get();
+      long nextArrivalTime = (arrivalTime - now > 0 ? arrivalTime : now) + emissionInterval;
+      if (nextArrivalTime - now > burstTolerance) {
+        return false;
+      }
+      if (theoreticalArrivalTime.compareAndSet(arrivalTime, nextArrivalTime)) {
+        return true;
+      }
+    }
+  }
+}
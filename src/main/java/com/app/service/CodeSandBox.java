@@ -8,6 +8,8 @@ import com.app.module.judge.JudgeRequest;
 import com.app.module.judge.JudgeResponse;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.springframework.stereotype.Component;
 
@@ -32,6 +34,23 @@ public interface CodeSandBox {
 	 */
 	JudgeResponse codeJudge(JudgeRequest judgeRequest);
 
+	/**
+	 * 代码评审, 每个测试数据评审完成时立即回调
+	 * @param judgeRequest 代码评审请求
+	 * @param onTestCaseJudged 单个测试数据的评审结果回调
+	 * @return 代码评审结果
+	 */
+	JudgeResponse codeJudge(JudgeRequest judgeRequest, Consumer<MultiTestCaseDebugResponse> onTestCaseJudged);
+
+	/**
+	 * 代码评审 (异步), 启用评审流水线时调用线程提交后即返回, 不等待各阶段执行
+	 * @param judgeRequest 代码评审请求
+	 * @param onTestCaseJudged 单个测试数据的评审结果回调, 为 null 时不回调
+	 * @return 代码评审结果
+	 */
+	CompletableFuture<JudgeResponse> codeJudgeAsync(JudgeRequest judgeRequest,
+			Consumer<MultiTestCaseDebugResponse> onTestCaseJudged);
+
 
 	/**
 	 * 多测试用例代码调试
@@ -39,4 +58,13 @@ public interface CodeSandBox {
 	 * @return 代码调试结果
 	 */
 	List<MultiTestCaseDebugResponse> multiTestCaseCodeDebug(MultiTestCaseDebugRequest debugRequest);
+
+	/**
+	 * 多测试用例代码调试, 每个测试用例运行完成时立即回调
+	 * @param debugRequest 代码调试请求
+	 * @param onResult 单个测试用例的调试结果回调
+	 * @return 代码调试结果
+	 */
+	List<MultiTestCaseDebugResponse> multiTestCaseCodeDebug(MultiTestCaseDebugRequest debugRequest,
+			Consumer<MultiTestCaseDebugResponse> onResult);
 }
\ No newline at end of file
@@ -0,0 +1,972 @@
+package com.app.service.impl;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.lang.Pair;
+import cn.hutool.core.util.ArrayUtil;
+import cn.hutool.core.util.IdUtil;
+
+import com.app.module.ProcessExecuteResult;
+import com.alibaba.fastjson2.JSON;
+import com.app.cache.CompileCache;
+import com.app.common.LangType;
+import com.app.common.StatusEnum;
+import com.app.exception.BusinessException;
+import com.app.module.debug.DebugRequest;
+import com.app.module.debug.DebugResponse;
+import com.app.module.debug.MultiTestCaseDebugRequest;
+import com.app.module.debug.MultiTestCaseDebugResponse;
+import com.app.module.execute.RequestArgs;
+import com.app.module.execute.Response;
+import com.app.module.judge.JudgeRequest;
+import com.app.module.judge.JudgeResponse;
+import com.app.scheduler.CancellationContext;
+import com.app.scheduler.CompilePermits;
+import com.app.scheduler.JudgePipeline;
+import com.app.service.CodeSandBox;
+import com.app.utils.CodeLangAdaptUtil;
+import com.app.utils.OutputFilterUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import javax.annotation.Resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 代码沙箱模板 —— 代码存储隔离, 判题结果映射等与运行环境无关的流程, 编译和运行由具体的隔离方式实现,
+ *              不同实现返回相同的判题状态码. 代码文件写入后立即开始编译, 测试数据的写入与编译并行, 运行前等待其完成;
+ *              运行资源 (沙箱容器 / 执行槽位) 在编译成功后才获取, 编译失败的提交不占用
+ *
+ * @param <L> 运行代码所需的资源
+ */
+@Slf4j
+public abstract class AbstractCodeSandBox<L> implements CodeSandBox {
+	protected static final String CODE_STORE_ROOT_PATH = "tempCodeRepository";
+	/* 测试数据文件前缀 */
+	protected static final String INPUT_NAME_PREFIX = "input-";
+	/* 代码调试限制 (相对宽松) */
+	protected static final Long TIME_LIMIT = 2000L; // 2s
+	protected static final Long Memory_LIMIT = 128 * 1024 * 1024L; // 128MB
+
+	/**
+	 * execute_core 看到的代码存放 "根目录" (request_args.json 和 file-dir.txt 中使用该路径)
+	 *
+	 * @return 代码存放根目录
+	 */
+	protected abstract String getWorkspaceRootPath();
+
+	/**
+	 * cpp / c / rust / java 代码编译 (python 不需要编译)
+	 *
+	 * @param codeFileParentDir 代码存储路径 (本机)
+	 * @param lang              语言
+	 * @param isolcationDirName 隔离目录名
+	 * @return 编译结果, exitValue 为 0 表示编译成功
+	 */
+	protected abstract ProcessExecuteResult codeCompile(String codeFileParentDir, String lang, String isolcationDirName);
+
+	/**
+	 * 代码运行
+	 *
+	 * @param runner            运行资源
+	 * @param codeFileParentDir 代码存储路径 (本机)
+	 * @param lang              语言
+	 * @param onResult          单个测试数据运行完成时的回调, 为 null 时不回调
+	 *                          (不支持逐个返回的运行方式在全部运行完成后依次回调)
+	 * @return 各个测试数据的运行结果
+	 */
+	protected abstract List<Response> codeRun(L runner, Path codeFileParentDir, String lang, Consumer<Response> onResult);
+
+	/**
+	 * 获取运行代码所需的资源 (沙箱容器和 CPU 槽位), 在编译成功之后获取, 编译期间 (包括等待编译许可) 不占用
+	 *
+	 * @param codeFileParentDir 代码存储路径 (本机)
+	 * @param lang              语言
+	 * @return 运行资源
+	 */
+	protected abstract L reserveRunner(Path codeFileParentDir, String lang);
+
+	/**
+	 * 归还运行资源
+	 *
+	 * @param runner 由 reserveRunner 获取的运行资源
+	 */
+	protected abstract void releaseRunner(L runner);
+
+	/* 写入测试数据的线程 (与编译并行), 线程数固定, 其余写入任务排队 */
+	private static final ExecutorService prepareExecutor;
+
+	static {
+		int threads = Runtime.getRuntime().availableProcessors();
+		AtomicInteger threadIndex = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "sandbox-prepare-" + threadIndex.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		prepareExecutor = executor;
+	}
+
+	@Resource
+	CompilePermits compilePermits;
+
+	@Resource
+	JudgePipeline judgePipeline;
+
+	@Resource
+	CompileCache compileCache;
+
+	@Resource
+	CodeLangAdaptUtil codeLangAdaptUtil;
+
+	/* 语言 -> 本机编译器版本信息 */
+	private final Map<String, String> localCompilerVersions = new ConcurrentHashMap<>();
+
+	/**
+	 * 代码存储隔离: 写入代码文件后返回, 测试数据在后台写入
+	 *
+	 * @param code        用户提交的代码
+	 * @param inputList   输入列表
+	 * @param langName    编程语言 (不区分大小写)
+	 * @param timeLimit   时间限制
+	 * @param memoryLimit 内存限制
+	 * @return 代码目录
+	 */
+	private Workspace store(String code, List<String> inputList, String langName, Long timeLimit, Long memoryLimit) {
+		CancellationContext context = CancellationContext.current();
+		context.checkCancelled();
+		// 后续按小写的语言名称匹配编译/运行方式和容器池
+		String lang = LangType.getByLangName(langName).getLangName();
+		Pair<Path, String> ans = storeSourceCode(code, lang);
+		Workspace workspace = new Workspace(ans.getKey(), ans.getValue(), lang, code);
+		workspace.inputsWritten = CompletableFuture.supplyAsync(() -> context.callWith(() -> {
+			storeTestCases(ans.getKey(), ans.getValue(), inputList, lang, timeLimit, memoryLimit);
+			return null;
+		}), prepareExecutor);
+		return workspace;
+	}
+
+	/**
+	 * 代码编译 (占用一个编译许可), 编译缓存命中时直接使用缓存的编译产物; 请求已取消时不再编译.
+	 * 代码目录由 store 的调用方清理
+	 */
+	private ProcessExecuteResult compile(Workspace workspace) {
+		CancellationContext context = CancellationContext.current();
+		String codeFileParentDir = workspace.codeFileParentDir.toString();
+		context.checkCancelled();
+		// python 不需要编译, 不占用编译许可
+		if (workspace.lang.equals("python")) {
+			return codeCompile(codeFileParentDir, workspace.lang, workspace.isolcationDirName);
+		}
+		String cacheKey = null;
+		if (compileCache.isEnabled()) {
+			LangType langType = LangType.getByLangName(workspace.lang);
+			cacheKey = CompileCache.key(workspace.code, langType,
+					codeLangAdaptUtil.codeCompileCommandArgsAdapt(langType, ""), getCompilerVersion(workspace.lang));
+			if (compileCache.restore(cacheKey, workspace.codeFileParentDir)) {
+				return ProcessExecuteResult.builder().exitValue(0).normalResult("").build();
+			}
+		}
+		ProcessExecuteResult codeCompileResult;
+		try (CompilePermits.Permit compilePermit = compilePermits.acquire(LangType.getByLangName(workspace.lang))) {
+			codeCompileResult = codeCompile(codeFileParentDir, workspace.lang, workspace.isolcationDirName);
+		}
+		// 被取消而终止的编译不是编译错误
+		context.checkCancelled();
+		if (cacheKey != null && codeCompileResult.getExitValue() == 0) {
+			compileCache.save(cacheKey, compileArtifacts(workspace.codeFileParentDir, workspace.lang));
+		}
+		return codeCompileResult;
+	}
+
+	/**
+	 * 等待测试数据写入后获取运行资源并运行代码, 并将用户程序以外的运行耗时记入自适应并发限制的许可.
+	 * 代码目录由 store 的调用方清理
+	 */
+	private List<Response> codeRun(Workspace workspace, Consumer<Response> onResult) {
+		CancellationContext context = CancellationContext.current();
+		join(workspace.inputsWritten);
+		context.checkCancelled();
+		L runner = reserveRunner(workspace.codeFileParentDir, workspace.lang);
+		try {
+			context.checkCancelled();
+			long startTime = System.currentTimeMillis();
+			List<Response> codeRunResults = codeRun(runner, workspace.codeFileParentDir, workspace.lang, onResult);
+			context.checkCancelled();
+			// 测试数据并行运行, 扣除其中最长的用户程序运行时间
+			long userTime = codeRunResults.stream().mapToLong(r -> r.getTime() == null ? 0 : r.getTime()).max()
+					.orElse(0);
+			context.getLimiterPermit().addOverhead(System.currentTimeMillis() - startTime - userTime);
+			return codeRunResults;
+		} finally {
+			releaseRunner(runner);
+		}
+	}
+
+	/**
+	 * 等待测试数据写入完成后清理代码目录
+	 */
+	private void release(Workspace workspace) {
+		workspace.inputsWritten.exceptionally(e -> null).join();
+		codeFileClean(workspace.codeFileParentDir.toString());
+	}
+
+	/**
+	 * 编译器版本 (作为编译缓存键的一部分, 编译器升级后不再使用旧的编译产物), 默认为本机编译器的版本信息
+	 *
+	 * @param lang 语言
+	 * @return 编译器版本
+	 */
+	protected String getCompilerVersion(String lang) {
+		return localCompilerVersions.computeIfAbsent(lang, langName -> {
+			String compiler = codeLangAdaptUtil.compilerAdapt(LangType.getByLangName(langName));
+			try {
+				Process process = new ProcessBuilder(compiler, "--version").redirectErrorStream(true).start();
+				String version = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+				process.waitFor();
+				return version;
+			} catch (IOException e) {
+				log.warn("获取编译器 " + compiler + " 的版本失败: " + e);
+				return compiler;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return compiler;
+			}
+		});
+	}
+
+	/**
+	 * 编译产物 (java 为全部 .class 文件, 其余为 main)
+	 */
+	private static List<Path> compileArtifacts(Path codeFileParentDir, String lang) {
+		if (lang.equals("java")) {
+			File[] classFiles = codeFileParentDir.toFile().listFiles((dir, name) -> name.endsWith(".class"));
+			return classFiles == null ? List.of() : Arrays.stream(classFiles).map(File::toPath).toList();
+		}
+		Path binary = codeFileParentDir.resolve("main");
+		return Files.isRegularFile(binary) ? List.of(binary) : List.of();
+	}
+
+	/**
+	 * 等待后台任务完成, 任务出错时抛出其原始异常
+	 */
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "代码沙箱任务出错. " + e.getCause());
+		}
+	}
+
+	/**
+	 * 代码调试
+	 * 
+	 * @param debugRequest 代码调试请求
+	 * @return 代码调试结果
+	 */
+	@Override
+	public DebugResponse codeDebug(DebugRequest debugRequest) {
+		var DRBuilder = DebugResponse.builder();
+		String code = Base64.decodeStr(debugRequest.getCode());
+		String lang = debugRequest.getLang();
+		String input = Base64.decodeStr(debugRequest.getInput());
+		List<String> inputList = new ArrayList<>();
+		if (input != null) {
+			inputList.add(input.trim());
+		} else {
+			inputList.add("");
+		}
+
+		/* 1. 代码存储隔离 (测试数据的写入与编译并行, 运行资源在编译成功后获取) */
+		Workspace workspace = store(code, inputList, lang, TIME_LIMIT, Memory_LIMIT);
+
+		try {
+			/* 2. 代码编译 */
+			var codeCompileResult = compile(workspace);
+
+			// 编译失败 (Compiler Error)
+			if (codeCompileResult.getExitValue() != 0) {
+				/* 代码编译错误输出过滤 */
+				String fixedCompileOutput = OutputFilterUtil.tackleCompileOutput(codeCompileResult.getErrorResult(),
+						workspace.lang);
+				return DRBuilder.resultStatus(1001)
+						.resultMessage(Base64.encode(fixedCompileOutput))
+						.build();
+			}
+
+			/* 3. 代码运行 */
+			List<Response> codeRunResults = codeRun(workspace, null);
+
+			var debugResponse = new DebugResponse();
+			Response codeRunResult = new Response();
+			try {
+				codeRunResult = codeRunResults.get(0);
+			} catch (IndexOutOfBoundsException e) {
+				throw new BusinessException(StatusEnum.SYSTEM_ERROR, "代码运行结果返回为空, 导致在 codeDebug 中出现结果数组访问越界异常. " + e);
+			}
+			Integer exitCode = codeRunResult.getExitCode();
+			String outputMsg = codeRunResult.getOutputMsg();
+			Long time = codeRunResult.getTime();
+			Long memory = codeRunResult.getMemory();
+			/* 越权操作 */
+			if (exitCode == 1) {
+				debugResponse = DRBuilder.resultStatus(1)
+						.time(codeRunResult.getTime())
+						.memory(codeRunResult.getMemory())
+						.resultMessage(outputMsg)
+						.build();
+			}
+			/* 判断系统正常运行 */
+			else if (exitCode == 1000) {
+				debugResponse = DRBuilder.resultStatus(1000)
+						.resultMessage(outputMsg)
+						.time(time)
+						.memory(memory)
+						.build();
+			}
+			/* 运行时错误 RE */
+			else if (exitCode == 1002) {
+				debugResponse = DRBuilder.resultStatus(1002)
+						.resultMessage(outputMsg)
+						.time(time)
+						.memory(memory)
+						.build();
+			}
+			/* 运行超时 TLE */
+			else if (exitCode == 1003) {
+				debugResponse = DRBuilder.resultStatus(1003)
+						.resultMessage(outputMsg)
+						.time(-1L)
+						.memory(memory)
+						.build();
+			}
+			/* 运行占用内存超出限制 MLE */
+			else if (exitCode == 1004) {
+				debugResponse = DRBuilder.resultStatus(1004)
+						.resultMessage(outputMsg)
+						.time(time)
+						.memory(-1L)
+						.build();
+			}
+			/* 未知错误 */
+			else {
+				debugResponse = DRBuilder.resultStatus(777)
+						.resultMessage(Base64.encode("未知错误: ") + outputMsg)
+						.time(time)
+						.memory(memory)
+						.build();
+			}
+			return debugResponse;
+		} finally {
+			release(workspace);
+		}
+	}
+
+	/**
+	 * 代码评审
+	 *
+	 * @param judgeRequest 代码评审请求
+	 * @return 代码评审结果
+	 */
+	@Override
+	public JudgeResponse codeJudge(JudgeRequest judgeRequest) {
+		return codeJudge(judgeRequest, null);
+	}
+
+	/**
+	 * 代码评审, 每个测试数据评审完成时立即回调
+	 *
+	 * @param judgeRequest     代码评审请求
+	 * @param onTestCaseJudged 单个测试数据的评审结果回调 (按完成顺序), 为 null 时不回调
+	 * @return 代码评审结果
+	 */
+	@Override
+	public JudgeResponse codeJudge(JudgeRequest judgeRequest, Consumer<MultiTestCaseDebugResponse> onTestCaseJudged) {
+		return join(codeJudgeAsync(judgeRequest, onTestCaseJudged));
+	}
+
+	/**
+	 * 代码评审 (异步), 启用评审流水线时各阶段在流水线中执行, 本线程提交到第一个阶段后即返回;
+	 * 未启用时在本线程中依次执行
+	 *
+	 * @param judgeRequest     代码评审请求
+	 * @param onTestCaseJudged 单个测试数据的评审结果回调 (按完成顺序), 为 null 时不回调
+	 * @return 代码评审结果
+	 */
+	@Override
+	public CompletableFuture<JudgeResponse> codeJudgeAsync(JudgeRequest judgeRequest,
+			Consumer<MultiTestCaseDebugResponse> onTestCaseJudged) {
+		if (!judgePipeline.isEnabled()) {
+			try {
+				JudgeTask task = stageCode(judgeRequest, onTestCaseJudged);
+				try {
+					compileCode(task);
+					runCode(task);
+				} catch (RuntimeException e) {
+					release(task);
+					throw e;
+				}
+				return CompletableFuture.completedFuture(verdict(task));
+			} catch (RuntimeException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}
+		CancellationContext context = CancellationContext.current();
+		CompletableFuture<JudgeTask> staged = judgePipeline.staging(context,
+				() -> stageCode(judgeRequest, onTestCaseJudged));
+		CompletableFuture<JudgeResponse> verdicted = staged
+				.thenCompose(task -> judgePipeline.compile(context, () -> compileCode(task)))
+				.thenCompose(task -> task.isCompileFailed() ? CompletableFuture.completedFuture(task)
+						: judgePipeline.run(context, () -> runCode(task)))
+				.thenCompose(task -> judgePipeline.verdict(context, () -> verdict(task)));
+		/* 编译/运行出错或某个阶段已关闭而没有进入判题阶段时, 由这里清理代码目录 */
+		verdicted.whenComplete((response, e) -> {
+			if (e != null) {
+				staged.thenAccept(this::release);
+			}
+		});
+		return verdicted;
+	}
+
+	/**
+	 * 评审阶段 1: 代码存储隔离 (写入代码文件后即进入编译阶段, 测试数据在后台写入).
+	 * 运行资源在编译成功后的运行阶段获取, 避免编译和排队期间占用沙箱容器
+	 */
+	private JudgeTask stageCode(JudgeRequest judgeRequest, Consumer<MultiTestCaseDebugResponse> onTestCaseJudged) {
+		JudgeTask task = new JudgeTask();
+		task.onTestCaseJudged = onTestCaseJudged;
+		String code = Base64.decodeStr(judgeRequest.getCode());
+		List<String> inputList = judgeRequest.getTestCases().stream().map(e -> {
+			return Base64.decodeStr(e.getInput());
+		}).toList();
+		// 构建测试数据的ID 和 其正确结果之间的 HashMap
+		judgeRequest.getTestCases().forEach(testCase -> task.correctResults.put(testCase.getId(), testCase.getCorrectResult()));
+
+		task.workspace = store(code, inputList, judgeRequest.getLang(), judgeRequest.getTimeLimit(),
+				judgeRequest.getMemoryLimit());
+		return task;
+	}
+
+	/**
+	 * 评审阶段 2: 代码编译
+	 */
+	private JudgeTask compileCode(JudgeTask task) {
+		task.compileResult = compile(task.workspace);
+		return task;
+	}
+
+	/**
+	 * 评审阶段 3: 代码运行 (编译失败时跳过)
+	 */
+	private JudgeTask runCode(JudgeTask task) {
+		if (task.isCompileFailed()) {
+			return task;
+		}
+		Consumer<Response> onResult = task.onTestCaseJudged == null ? null
+				: response -> task.onTestCaseJudged
+						.accept(judgeTestCase(response, task.correctResults.get(response.getTestCaseId())));
+		task.runResults = codeRun(task.workspace, onResult);
+		return task;
+	}
+
+	/**
+	 * 评审阶段 4: 比对运行结果得出评审结果, 并清理代码目录
+	 */
+	private JudgeResponse verdict(JudgeTask task) {
+		try {
+			return judge(task);
+		} finally {
+			release(task);
+		}
+	}
+
+	/**
+	 * 清理评审任务的代码目录和运行资源 (只清理一次)
+	 */
+	private void release(JudgeTask task) {
+		if (task.released.compareAndSet(false, true)) {
+			release(task.workspace);
+		}
+	}
+
+	private JudgeResponse judge(JudgeTask task) {
+		var JRBuilder = JudgeResponse.builder();
+		// 编译失败 (Compiler Error)
+		if (task.isCompileFailed()) {
+			/* 代码编译错误输出过滤 */
+			String fixedCompileOutput = OutputFilterUtil.tackleCompileOutput(task.compileResult.getErrorResult(),
+					task.workspace.lang);
+			return JRBuilder.resultStatus(1001)
+					.resultMessage(Base64.encode(fixedCompileOutput))
+					.build();
+		}
+		Map<Integer, String> mp = task.correctResults;
+		List<Response> codeRunResults = task.runResults;
+		var judgeResponse = new JudgeResponse();
+		try {
+			codeRunResults.get(0);
+		} catch (IndexOutOfBoundsException e) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "代码运行结果返回为空, 导致在 codeRun 中出现结果数组访问越界异常. " + e);
+		}
+
+		/* 判题系统正常运行 */
+		Integer passTestCasesNumber = 0;
+		Comparator<Response> testCaseIdComparator = Comparator.comparing(Response::getTestCaseId,
+				Comparator.naturalOrder());
+		codeRunResults.sort(testCaseIdComparator);
+		Long time = 0L;
+		Long memory = 0L;
+		for (var response : codeRunResults) {
+			Integer exitCode = response.getExitCode();
+			Integer testCaseId = response.getTestCaseId();
+			String outputMsg = response.getOutputMsg();
+			/* 代码正常执行 */
+			if (exitCode == 1000) {
+				// 定义匹配由空格、换行符或制表符隔开的内容的正则表达式
+				String regex = "\\s+";
+				Pattern pattern = Pattern.compile(regex);
+				String[] fixOutputMsg = pattern.split(Base64.decodeStr(outputMsg));
+				// 当前数据通过
+				if (Base64.decodeStr(outputMsg).equals(mp.get(testCaseId))) {
+					passTestCasesNumber++;
+					time += response.getTime(); // 时间累加
+					memory = Math.max(memory, response.getMemory()); // 内存使用峰值内存
+				}
+				// 输出格式错误 PE
+				else if (ArrayUtil.equals(fixOutputMsg, pattern.split(mp.get(testCaseId)))) {
+					judgeResponse = JRBuilder.resultStatus(1006)
+							.passTestCasesNumber(passTestCasesNumber)
+							.noPassTestCaseId(response.getTestCaseId())
+							.time(response.getTime())
+							.memory(response.getMemory())
+							.resultMessage(Base64.encode("Presentation Error"))
+							.build();
+					break;
+				}
+				// 错误答案 WA
+				else {
+					judgeResponse = JRBuilder.resultStatus(1005)
+							.passTestCasesNumber(passTestCasesNumber)
+							.noPassTestCaseId(response.getTestCaseId())
+							.time(response.getTime())
+							.memory(response.getMemory())
+							.resultMessage(outputMsg)
+							.build();
+					break;
+				}
+			}
+			/* 运行时错误 RE */
+			else if (exitCode == 1002) {
+				judgeResponse = JRBuilder.resultStatus(1002)
+						.passTestCasesNumber(passTestCasesNumber)
+						.noPassTestCaseId(response.getTestCaseId())
+						.resultMessage(outputMsg)
+						.build();
+				break;
+			}
+			/* 运行超时 TLE */
+			else if (exitCode == 1003) {
+				judgeResponse = JRBuilder.resultStatus(1003)
+						.passTestCasesNumber(passTestCasesNumber)
+						.noPassTestCaseId(response.getTestCaseId())
+						.time(-1L)
+						.memory(response.getMemory())
+						.resultMessage(Base64.encode("Time Limit Exceeded"))
+						.build();
+				break;
+			}
+			/* 运行时占用内存超出限制 MLE */
+			else if (exitCode == 1004) {
+				judgeResponse = JRBuilder.resultStatus(1004)
+						.passTestCasesNumber(passTestCasesNumber)
+						.noPassTestCaseId(response.getTestCaseId())
+						.time(response.getTime())
+						.memory(-1L)
+						.resultMessage(Base64.encode("Memory Limit Exceeded"))
+						.build();
+				break;
+			}
+			/* 越权操作 */
+			else if (exitCode == 1) {
+				judgeResponse = JRBuilder.resultStatus(1)
+						.passTestCasesNumber(passTestCasesNumber)
+						.noPassTestCaseId(response.getTestCaseId())
+						.time(response.getTime())
+						.memory(response.getMemory())
+						.resultMessage(Base64.encode("Permission Deny: ") + outputMsg)
+						.build();
+				break;
+			}
+			/* 未知错误 */
+			else {
+				judgeResponse = JRBuilder.resultStatus(777)
+						.passTestCasesNumber(passTestCasesNumber)
+						.noPassTestCaseId(response.getTestCaseId())
+						.resultMessage(Base64.encode("Unknown Error: ") + outputMsg)
+						.time(response.getTime())
+						.memory(response.getMemory())
+						.build();
+				break;
+			}
+		}
+		/* AC */
+		if (passTestCasesNumber == codeRunResults.size()) {
+			judgeResponse = JRBuilder.resultStatus(1000)
+					.passTestCasesNumber(passTestCasesNumber)
+					.noPassTestCaseId(0)
+					.resultMessage(Base64.encode("Accepted"))
+					.time(time)
+					.memory(memory)
+					.build();
+		}
+
+		return judgeResponse;
+	}
+
+	/**
+	 * 多测试用例代码调试
+	 *
+	 * @param debugRequest 代码调试请求
+	 * @return 各测试用例的调试结果
+	 */
+	@Override
+	public List<MultiTestCaseDebugResponse> multiTestCaseCodeDebug(MultiTestCaseDebugRequest debugRequest) {
+		return multiTestCaseCodeDebug(debugRequest, null);
+	}
+
+	/**
+	 * 多测试用例代码调试, 每个测试用例运行完成时立即回调
+	 *
+	 * @param debugRequest 代码调试请求
+	 * @param onResult     单个测试用例的调试结果回调 (按完成顺序), 为 null 时不回调
+	 * @return 各测试用例的调试结果
+	 */
+	@Override
+	public List<MultiTestCaseDebugResponse> multiTestCaseCodeDebug(MultiTestCaseDebugRequest debugRequest,
+			Consumer<MultiTestCaseDebugResponse> onResult) {
+		List<MultiTestCaseDebugResponse> resultList = new ArrayList<>();
+		var DRBuilder = MultiTestCaseDebugResponse.builder();
+		String code = Base64.decodeStr(debugRequest.getCode());
+		String lang = debugRequest.getLang();
+		Long timeLimit = debugRequest.getTimeLimit();
+		Long memoryLimit = debugRequest.getMemoryLimit();
+		List<String> inputList = debugRequest.getTestCases().stream().map(e -> {
+			return Base64.decodeStr(e.getInput());
+		}).toList();
+
+		/* 1. 代码存储隔离 (测试数据的写入与编译并行, 运行资源在编译成功后获取) */
+		Workspace workspace = store(code, inputList, lang, timeLimit, memoryLimit);
+
+		try {
+			/* 2. 代码编译 */
+			var codeCompileResult = compile(workspace);
+
+			// 编译失败 (Compiler Error)
+			if (codeCompileResult.getExitValue() != 0) {
+				/* 代码编译错误输出过滤 */
+				String fixedCompileOutput = OutputFilterUtil.tackleCompileOutput(codeCompileResult.getErrorResult(),
+						workspace.lang);
+				for (int i = 0; i < inputList.size(); i++) {
+					resultList.add(DRBuilder.resultStatus(1001)
+							.resultMessage(Base64.encode(fixedCompileOutput))
+							.build());
+				}
+				if (onResult != null) {
+					resultList.forEach(onResult);
+				}
+				return resultList;
+			}
+
+			/* 3. 代码运行 */
+			List<Response> codeRunResults = codeRun(workspace,
+					onResult == null ? null : response -> onResult.accept(toMultiTestCaseDebugResponse(response)));
+
+			try {
+				codeRunResults.get(0);
+			} catch (IndexOutOfBoundsException e) {
+				throw new BusinessException(StatusEnum.SYSTEM_ERROR, "多测试用例代码调试结果返回为空, 导致在 codeRun 中出现结果数组访问越界异常. " + e);
+			}
+
+			/* 判题系统正常运行 */
+			Comparator<Response> testCaseIdComparator = Comparator.comparing(Response::getTestCaseId,
+					Comparator.naturalOrder());
+			codeRunResults.sort(testCaseIdComparator);
+
+			for (var response : codeRunResults) {
+				resultList.add(toMultiTestCaseDebugResponse(response));
+			}
+			return resultList;
+		} finally {
+			release(workspace);
+		}
+	}
+
+	/**
+	 * 单个提交的代码目录, 以及在后台进行的测试数据写入
+	 */
+	private class Workspace {
+		final Path codeFileParentDir;
+		final String isolcationDirName;
+		final String lang;
+		final String code;
+		CompletableFuture<Void> inputsWritten;
+
+		Workspace(Path codeFileParentDir, String isolcationDirName, String lang, String code) {
+			this.codeFileParentDir = codeFileParentDir;
+			this.isolcationDirName = isolcationDirName;
+			this.lang = lang;
+			this.code = code;
+		}
+	}
+
+	/**
+	 * 单个提交在评审流水线各阶段之间传递的状态
+	 */
+	private class JudgeTask {
+		Workspace workspace;
+		/* 测试数据 ID -> 正确结果 */
+		final Map<Integer, String> correctResults = new HashMap<>();
+		Consumer<MultiTestCaseDebugResponse> onTestCaseJudged;
+		ProcessExecuteResult compileResult;
+		List<Response> runResults;
+		final AtomicBoolean released = new AtomicBoolean();
+
+		boolean isCompileFailed() {
+			return compileResult.getExitValue() != 0;
+		}
+	}
+
+	/**
+	 * 将单个测试用例的运行结果转换为调试结果
+	 *
+	 * @param response 测试用例的运行结果
+	 * @return 调试结果
+	 */
+	private static MultiTestCaseDebugResponse toMultiTestCaseDebugResponse(Response response) {
+		Integer exitCode = response.getExitCode();
+		Integer testCaseId = response.getTestCaseId();
+		String outputMsg = response.getOutputMsg();
+		Long time = response.getTime();
+		Long memory = response.getMemory();
+		var DRBuilder = MultiTestCaseDebugResponse.builder();
+		var debugResponse = new MultiTestCaseDebugResponse();
+
+		/* 越权操作 */
+		if (exitCode == 1) {
+			debugResponse = DRBuilder.resultStatus(1)
+					.testCaseId(testCaseId)
+					.time(time)
+					.memory(memory)
+					.resultMessage(outputMsg)
+					.build();
+		}
+		/* 判断系统正常运行 */
+		else if (exitCode == 1000) {
+			debugResponse = DRBuilder.resultStatus(1000)
+					.testCaseId(testCaseId)
+					.resultMessage(outputMsg)
+					.time(time)
+					.memory(memory)
+					.build();
+		}
+		/* 运行时错误 RE */
+		else if (exitCode == 1002) {
+			debugResponse = DRBuilder.resultStatus(1002)
+					.testCaseId(testCaseId)
+					.resultMessage(outputMsg)
+					.time(time)
+					.memory(memory)
+					.build();
+		}
+		/* 运行超时 TLE */
+		else if (exitCode == 1003) {
+			debugResponse = DRBuilder.resultStatus(1003)
+					.testCaseId(testCaseId)
+					.resultMessage(outputMsg)
+					.time(-1L)
+					.memory(memory)
+					.build();
+		}
+		/* 运行占用内存超出限制 MLE */
+		else if (exitCode == 1004) {
+			debugResponse = DRBuilder.resultStatus(1004)
+					.testCaseId(testCaseId)
+					.resultMessage(outputMsg)
+					.time(time)
+					.memory(-1L)
+					.build();
+		}
+		/* 未知错误 */
+		else {
+			debugResponse = DRBuilder.resultStatus(777)
+					.testCaseId(testCaseId)
+					.resultMessage(Base64.encode("未知错误: ") + outputMsg)
+					.time(time)
+					.memory(memory)
+					.build();
+		}
+		return debugResponse;
+	}
+
+	/**
+	 * 评审单个测试数据 (逐个返回评审结果时使用, 状态码与 codeJudge 一致)
+	 *
+	 * @param response      测试数据的运行结果
+	 * @param correctResult 测试数据的正确结果
+	 * @return 单个测试数据的评审结果
+	 */
+	private static MultiTestCaseDebugResponse judgeTestCase(Response response, String correctResult) {
+		var DRBuilder = MultiTestCaseDebugResponse.builder()
+				.testCaseId(response.getTestCaseId())
+				.time(response.getTime())
+				.memory(response.getMemory());
+		Integer exitCode = response.getExitCode();
+		String outputMsg = response.getOutputMsg();
+		/* 代码正常执行 */
+		if (exitCode == 1000) {
+			String output = Base64.decodeStr(outputMsg);
+			// 当前数据通过
+			if (output.equals(correctResult)) {
+				return DRBuilder.resultStatus(1000).resultMessage(Base64.encode("Accepted")).build();
+			}
+			Pattern pattern = Pattern.compile("\\s+");
+			// 输出格式错误 PE
+			if (correctResult != null && ArrayUtil.equals(pattern.split(output), pattern.split(correctResult))) {
+				return DRBuilder.resultStatus(1006).resultMessage(Base64.encode("Presentation Error")).build();
+			}
+			// 错误答案 WA
+			return DRBuilder.resultStatus(1005).resultMessage(outputMsg).build();
+		}
+		/* 运行时错误 RE */
+		if (exitCode == 1002) {
+			return DRBuilder.resultStatus(1002).resultMessage(outputMsg).build();
+		}
+		/* 运行超时 TLE */
+		if (exitCode == 1003) {
+			return DRBuilder.resultStatus(1003).time(-1L).resultMessage(Base64.encode("Time Limit Exceeded")).build();
+		}
+		/* 运行时占用内存超出限制 MLE */
+		if (exitCode == 1004) {
+			return DRBuilder.resultStatus(1004).memory(-1L).resultMessage(Base64.encode("Memory Limit Exceeded")).build();
+		}
+		/* 越权操作 */
+		if (exitCode == 1) {
+			return DRBuilder.resultStatus(1).resultMessage(Base64.encode("Permission Deny: ") + outputMsg).build();
+		}
+		/* 未知错误 */
+		return DRBuilder.resultStatus(777).resultMessage(Base64.encode("Unknown Error: ") + outputMsg).build();
+	}
+
+	/**
+	 * 处理用户代码的存储隔离: 在单独目录中写入代码文件
+	 *
+	 * @param code 用户提交的代码
+	 * @param lang 编程语言
+	 * @return <用户提交代码存放的目录, 隔离目录名>
+	 */
+	protected Pair<Path, String> storeSourceCode(String code, String lang) {
+		/* 1. 创建代码存放的 "根目录" 的绝对路径 */
+		String projectDirPath = System.getProperty("user.dir");
+		String codeStoreRootPath = projectDirPath + File.separator + CODE_STORE_ROOT_PATH;
+
+		/* 2. 隔离用户提交的代码文件和测试数据在单独目录 */
+		String isolcationDirName = IdUtil.getSnowflakeNextIdStr();
+		String userCodeIsolationDirPath = codeStoreRootPath + File.separator + isolcationDirName;
+		String CODE_FILE_NAME = null;
+		CODE_FILE_NAME = codeLangAdaptUtil.codeStoreFileNameAdapt(LangType.getByLangName(lang));
+		String userCodeFilePath = userCodeIsolationDirPath + File.separator + CODE_FILE_NAME;
+
+		// 创建 main.c / main.cpp / main.rs / Main.java / main.py 文件
+		File userCodeFile = FileUtil.writeString(code, userCodeFilePath, StandardCharsets.UTF_8);
+		/* 返回用户提交的代码文件所在的目录 */
+		return new Pair<Path, String>(Paths.get(userCodeFile.getParentFile().getAbsolutePath()), isolcationDirName);
+	}
+
+	/**
+	 * 在代码目录中写入测试数据, 以及 execute_core 的执行请求 (request_args.json, file-dir.txt)
+	 *
+	 * @param codeFileParentDir 代码存放目录
+	 * @param isolcationDirName 隔离目录名
+	 * @param inputList         输入列表
+	 * @param lang              编程语言
+	 * @param timieLimit        时间限制
+	 * @param memoryLimit       内存限制
+	 */
+	protected void storeTestCases(Path codeFileParentDir, String isolcationDirName, List<String> inputList, String lang,
+			Long timieLimit, Long memoryLimit) {
+		String userCodeIsolationDirPath = codeFileParentDir.toString();
+		// 创建测试数据文件
+		for (int i = 0; i < inputList.size(); i++) {
+			String inputFilePath = userCodeIsolationDirPath + File.separator + INPUT_NAME_PREFIX + (i + 1) + ".txt";
+			FileUtil.writeString(inputList.get(i).trim(), inputFilePath, StandardCharsets.UTF_8);
+		}
+		// 封装 执行请求的 json 文件 (执行方式, 执行命令和资源限制取自语言配置)
+		LangType langType = LangType.getByLangName(lang);
+		var requestArgsbuilder = RequestArgs.builder();
+		var requestArgs = requestArgsbuilder
+				.timeLimit(codeLangAdaptUtil.timeLimitAdapt(langType, timieLimit))
+				.memoryLimit(codeLangAdaptUtil.memoryLimitAdapt(langType, memoryLimit))
+				.fileDir(getWorkspaceRootPath() + File.separator + isolcationDirName + File.separator)
+				.testCaseNum(Math.max(1, inputList.size()))
+				.lang(codeLangAdaptUtil.executeCoreLangAdapt(langType))
+				.runCommand(codeLangAdaptUtil.runCommandAdapt(langType))
+				.build();
+		String jsonString = JSON.toJSONString(requestArgs);
+		String jsonFilePath = "request_args.json";
+		FileUtil.writeUtf8String(jsonString, userCodeIsolationDirPath + File.separator + jsonFilePath);
+		// 封装 file_dir.txt
+		FileUtil.writeString(getWorkspaceRootPath() + File.separator + isolcationDirName + File.separator,
+				userCodeIsolationDirPath + File.separator + "file-dir.txt", StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 用户代码文件清理
+	 *
+	 * @param codeFileParentDir 代码文件存放目录
+	 */
+	protected static void codeFileClean(String codeFileParentDir) {
+		try {
+			Path directoryToDelete = Paths.get(codeFileParentDir);
+			Files.walkFileTree(directoryToDelete, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE,
+					new SimpleFileVisitor<>() {
+						@Override
+						public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+							Files.delete(file);
+							return FileVisitResult.CONTINUE;
+						}
+
+						@Override
+						public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+							Files.delete(dir);
+							return FileVisitResult.CONTINUE;
+						}
+					});
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -1,45 +1,46 @@
 package com.app.service.impl;
 
 import cn.hutool.core.codec.Base64;
-import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.lang.Pair;
-import cn.hutool.core.util.ArrayUtil;
-import cn.hutool.core.util.IdUtil;
 
 import com.app.module.ProcessExecuteResult;
-import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONArray;
 import com.app.common.LangType;
+import com.app.compile.InProcessJavaCompiler;
+import com.app.docker.ContainerExecutor;
+import com.app.docker.ContainerLease;
+import com.app.docker.ContainerPoolManager;
+import com.app.docker.ContainerRegistry;
+import com.app.docker.ExecuteCoreClient;
+import com.app.config.ContainerPoolProperties;
+import com.app.config.ExecuteCoreProperties;
+import com.app.config.ShardProperties;
 import com.app.common.StatusEnum;
 import com.app.exception.BusinessException;
-import com.app.module.debug.DebugRequest;
-import com.app.module.debug.DebugResponse;
-import com.app.module.debug.MultiTestCaseDebugRequest;
-import com.app.module.debug.MultiTestCaseDebugResponse;
-import com.app.module.execute.RequestArgs;
 import com.app.module.execute.Response;
-import com.app.module.judge.JudgeRequest;
-import com.app.module.judge.JudgeResponse;
-import com.app.service.CodeSandBox;
+import com.app.scheduler.CancellationContext;
 import com.app.utils.CodeLangAdaptUtil;
-import com.app.utils.DockerUtil;
-import com.app.utils.OutputFilterUtil;
 import com.app.utils.ProcessUtil;
 
-import lombok.var;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
-import java.util.function.Function;
-import java.util.regex.Pattern;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 
 /**
@@ -49,357 +50,70 @@ import javax.annotation.Resource;
  */
 @Component
 @Slf4j
-public class DockerCodeSandBox implements CodeSandBox {
-	/* Docker 沙箱信息 */
-	private static final String SANDBOX_DOCKER_IMAGE = "sandbox:2.0";
-	private static final String SANDBOX_CONTAINER_NAME = "sandbox";
-	/* Docker 编译镜像/容器信息 */
-	private static final String COMPILE_ENV_DOCKER_IMAGE = "compile_env:1.0";
-	private static final String COMPILE_ENV_CONTAINER_NAME = "compile_env";
+@ConditionalOnProperty(name = "sandbox.backend", havingValue = "docker", matchIfMissing = true)
+public class DockerCodeSandBox extends AbstractCodeSandBox<ContainerLease> {
+	/* 编译容器池 */
+	private static final String COMPILE_POOL_NAME = "compile";
 
-	private static final String CODE_STORE_ROOT_PATH = "tempCodeRepository";
 	private static final String VOLUMN_CODE_STORE_ROOT_PATH = "/codeStore";
-	/* 测试数据文件前缀 */
-	private static final String INPUT_NAME_PREFIX = "input-";
-	/* 代码调试限制 (相对宽松) */
-	private static final Long TIME_LIMIT = 2000L; // 2s
-	private static final Long Memory_LIMIT = 128 * 1024 * 1024L; // 128MB
+	/* execute_core 常驻模式 */
+	private static final String EXECUTE_CORE_DAEMON_MODE = "daemon";
 
 	@Resource
-	DockerUtil dockerUtil;
+	ContainerPoolManager containerPoolManager;
 
-	/**
-	 * 代码调试
-	 * 
-	 * @param debugRequest 代码调试请求
-	 * @return 代码调试结果
-	 */
-	@Override
-	public DebugResponse codeDebug(DebugRequest debugRequest) {
-		var DRBuilder = DebugResponse.builder();
-		String code = Base64.decodeStr(debugRequest.getCode());
-		String lang = debugRequest.getLang();
-		String input = Base64.decodeStr(debugRequest.getInput());
-		List<String> inputList = new ArrayList<>();
-		if (input != null) {
-			inputList.add(input.trim());
-		} else {
-			inputList.add("");
-		}
+	@Resource
+	ContainerExecutor containerExecutor;
 
-		/* 1. 代码存储隔离 */
-		Path codeFileParentDir = null;
-		Pair<Path, String> ans = tackleCodeStorageAndIsolation(code, inputList, lang, TIME_LIMIT, Memory_LIMIT);
-		codeFileParentDir = ans.getKey();
+	@Resource
+	ExecuteCoreClient executeCoreClient;
 
-		/* 2. 启动编译容器，代码编译 */
-		String compileContainerId = dockerUtil.getContainerId(codeFileParentDir.getParent(), COMPILE_ENV_DOCKER_IMAGE,
-				COMPILE_ENV_CONTAINER_NAME, 0);
-		var codeCompileResult = codeCompile(codeFileParentDir.toString(), lang, compileContainerId, ans.getValue());
+	@Resource
+	ExecuteCoreProperties executeCoreProperties;
 
-		// 编译失败 (Compiler Error)
-		if (codeCompileResult.getExitValue() != 0) {
-			/* 代码编译错误输出过滤 */
-			String fixedCompileOutput = OutputFilterUtil.tackleCompileOutput(codeCompileResult.getErrorResult(), lang);
-			codeFileClean(codeFileParentDir.toString());
-			return DRBuilder.resultStatus(1001)
-					.resultMessage(Base64.encode(fixedCompileOutput))
-					.build();
-		}
+	@Resource
+	ShardProperties shardProperties;
 
-		/* 3. 启动沙箱容器 */
-		String sandBoxContainerId = dockerUtil.getContainerId(codeFileParentDir.getParent(), SANDBOX_DOCKER_IMAGE,
-				SANDBOX_CONTAINER_NAME, 1);
+	@Resource
+	ContainerPoolProperties containerPoolProperties;
 
-		/* 4. 代码运行 */
-		var codeRunResults = DockerCodeSandBox.codeRun(sandBoxContainerId, codeFileParentDir);
+	@Resource
+	ContainerRegistry containerRegistry;
 
-		var debugResponse = new DebugResponse();
-		Response codeRunResult = new Response();
-		try {
-			codeRunResult = codeRunResults.get(0);
-		} catch (IndexOutOfBoundsException e) {
-			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "代码运行结果返回为空, 导致在 codeDebug 中出现结果数组访问越界异常. " + e);
-		}
-		Integer exitCode = codeRunResult.getExitCode();
-		String outputMsg = codeRunResult.getOutputMsg();
-		Long time = codeRunResult.getTime();
-		Long memory = codeRunResult.getMemory();
-		/* 越权操作 */
-		if (exitCode == 1) {
-			debugResponse = DRBuilder.resultStatus(1)
-					.time(codeRunResult.getTime())
-					.memory(codeRunResult.getMemory())
-					.resultMessage(outputMsg)
-					.build();
-		}
-		/* 判断系统正常运行 */
-		else if (exitCode == 1000) {
-			debugResponse = DRBuilder.resultStatus(1000)
-					.resultMessage(outputMsg)
-					.time(time)
-					.memory(memory)
-					.build();
-		}
-		/* 运行时错误 RE */
-		else if (exitCode == 1002) {
-			debugResponse = DRBuilder.resultStatus(1002)
-					.resultMessage(outputMsg)
-					.time(time)
-					.memory(memory)
-					.build();
-		}
-		/* 运行超时 TLE */
-		else if (exitCode == 1003) {
-			debugResponse = DRBuilder.resultStatus(1003)
-					.resultMessage(outputMsg)
-					.time(-1L)
-					.memory(memory)
-					.build();
-		}
-		/* 运行占用内存超出限制 MLE */
-		else if (exitCode == 1004) {
-			debugResponse = DRBuilder.resultStatus(1004)
-					.resultMessage(outputMsg)
-					.time(time)
-					.memory(-1L)
-					.build();
-		}
-		/* 未知错误 */
-		else {
-			debugResponse = DRBuilder.resultStatus(777)
-					.resultMessage(Base64.encode("未知错误: ") + outputMsg)
-					.time(time)
-					.memory(memory)
-					.build();
-		}
-		codeFileClean(codeFileParentDir.toString());
-		return debugResponse;
+	@Resource
+	InProcessJavaCompiler inProcessJavaCompiler;
+
+	/* 分片运行时等待其余分片结果的线程, 线程数为沙箱容器总数 (每个分片占用一个沙箱容器) */
+	private ExecutorService shardExecutor;
+
+	@PostConstruct
+	public void initShardExecutor() {
+		int sandBoxContainers = Math.max(1, containerPoolProperties.getPools().values().stream()
+				.filter(pool -> Integer.valueOf(1).equals(pool.getFlag()))
+				.mapToInt(pool -> pool.getSize() == null ? 0 : pool.getSize())
+				.sum());
+		AtomicInteger threadIndex = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(sandBoxContainers, sandBoxContainers, 1, TimeUnit.MINUTES,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "sandbox-shard-" + threadIndex.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		shardExecutor = executor;
 	}
 
-	/**
-	 * 代码评审
-	 *
-	 * @param judgeRequest 代码评审请求
-	 * @return 代码评审结果
-	 */
-	@Override
-	public JudgeResponse codeJudge(JudgeRequest judgeRequest) {
-		var JRBuilder = JudgeResponse.builder();
-		String code = Base64.decodeStr(judgeRequest.getCode());
-		String lang = judgeRequest.getLang();
-		Long timeLimit = judgeRequest.getTimeLimit();
-		Long memoryLimit = judgeRequest.getMemoryLimit();
-		List<String> inputList = judgeRequest.getTestCases().stream().map(e -> {
-			return Base64.decodeStr(e.getInput());
-		}).toList();
-
-		/* 1. 代码存储隔离 */
-		Path codeFileParentDir = null;
-		Pair<Path, String> ans = tackleCodeStorageAndIsolation(code, inputList, lang, timeLimit, memoryLimit);
-		codeFileParentDir = ans.getKey();
-
-		/* 2. 启动编译容器，代码编译 */
-		String compileContainerId = dockerUtil.getContainerId(codeFileParentDir.getParent(), COMPILE_ENV_DOCKER_IMAGE,
-				COMPILE_ENV_CONTAINER_NAME, 0);
-		var codeCompileResult = codeCompile(codeFileParentDir.toString(), lang, compileContainerId, ans.getValue());
-		// 编译失败 (Compiler Error)
-		if (codeCompileResult.getExitValue() != 0) {
-			/* 代码编译错误输出过滤 */
-			String fixedCompileOutput = OutputFilterUtil.tackleCompileOutput(codeCompileResult.getErrorResult(), lang);
-			codeFileClean(codeFileParentDir.toString());
-			return JRBuilder.resultStatus(1001)
-					.resultMessage(Base64.encode(fixedCompileOutput))
-					.build();
-		}
-
-		// 构建测试数据的ID 和 其正确结果之间的 HashMap
-		HashMap<Integer, String> mp = new HashMap<>();
-		judgeRequest.getTestCases().forEach(testCase -> mp.put(testCase.getId(), testCase.getCorrectResult()));
-
-		/* 3. 启动沙箱容器 */
-		String sandBoxContainerId = dockerUtil.getContainerId(codeFileParentDir.getParent(), SANDBOX_DOCKER_IMAGE,
-				SANDBOX_CONTAINER_NAME, 1);
-
-		/* 4. 代码运行 */
-		var codeRunResults = DockerCodeSandBox.codeRun(sandBoxContainerId, codeFileParentDir);
-		var judgeResponse = new JudgeResponse();
-		try {
-			codeRunResults.get(0);
-		} catch (IndexOutOfBoundsException e) {
-			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "代码运行结果返回为空, 导致在 codeRun 中出现结果数组访问越界异常. " + e);
-		}
-
-		/* 判题系统正常运行 */
-		Integer passTestCasesNumber = 0;
-		Comparator<Response> testCaseIdComparator = Comparator.comparing(Response::getTestCaseId,
-				Comparator.naturalOrder());
-		codeRunResults.sort(testCaseIdComparator);
-		Long time = 0L;
-		Long memory = 0L;
-		for (var response : codeRunResults) {
-			Integer exitCode = response.getExitCode();
-			Integer testCaseId = response.getTestCaseId();
-			String outputMsg = response.getOutputMsg();
-			/* 代码正常执行 */
-			if (exitCode == 1000) {
-				// 定义匹配由空格、换行符或制表符隔开的内容的正则表达式
-				String regex = "\\s+";
-				Pattern pattern = Pattern.compile(regex);
-				String[] fixOutputMsg = pattern.split(Base64.decodeStr(outputMsg));
-				// 当前数据通过
-				if (Base64.decodeStr(outputMsg).equals(mp.get(testCaseId))) {
-					passTestCasesNumber++;
-					time += response.getTime(); // 时间累加
-					memory = Math.max(memory, response.getMemory()); // 内存使用峰值内存
-				}
-				// 输出格式错误 PE
-				else if (ArrayUtil.equals(fixOutputMsg, pattern.split(mp.get(testCaseId)))) {
-					judgeResponse = JRBuilder.resultStatus(1006)
-							.passTestCasesNumber(passTestCasesNumber)
-							.noPassTestCaseId(response.getTestCaseId())
-							.time(response.getTime())
-							.memory(response.getMemory())
-							.resultMessage(Base64.encode("Presentation Error"))
-							.build();
-					break;
-				}
-				// 错误答案 WA
-				else {
-					judgeResponse = JRBuilder.resultStatus(1005)
-							.passTestCasesNumber(passTestCasesNumber)
-							.noPassTestCaseId(response.getTestCaseId())
-							.time(response.getTime())
-							.memory(response.getMemory())
-							.resultMessage(outputMsg)
-							.build();
-					break;
-				}
-			}
-			/* 运行时错误 RE */
-			else if (exitCode == 1002) {
-				judgeResponse = JRBuilder.resultStatus(1002)
-						.passTestCasesNumber(passTestCasesNumber)
-						.noPassTestCaseId(response.getTestCaseId())
-						.resultMessage(outputMsg)
-						.build();
-				break;
-			}
-			/* 运行超时 TLE */
-			else if (exitCode == 1003) {
-				judgeResponse = JRBuilder.resultStatus(1003)
-						.passTestCasesNumber(passTestCasesNumber)
-						.noPassTestCaseId(response.getTestCaseId())
-						.time(-1L)
-						.memory(response.getMemory())
-						.resultMessage(Base64.encode("Time Limit Exceeded"))
-						.build();
-				break;
-			}
-			/* 运行时占用内存超出限制 MLE */
-			else if (exitCode == 1004) {
-				judgeResponse = JRBuilder.resultStatus(1004)
-						.passTestCasesNumber(passTestCasesNumber)
-						.noPassTestCaseId(response.getTestCaseId())
-						.time(response.getTime())
-						.memory(-1L)
-						.resultMessage(Base64.encode("Memory Limit Exceeded"))
-						.build();
-				break;
-			}
-			/* 越权操作 */
-			else if (exitCode == 1) {
-				judgeResponse = JRBuilder.resultStatus(1)
-						.passTestCasesNumber(passTestCasesNumber)
-						.noPassTestCaseId(response.getTestCaseId())
-						.time(response.getTime())
-						.memory(response.getMemory())
-						.resultMessage(Base64.encode("Permission Deny: ") + outputMsg)
-						.build();
-				break;
-			}
-			/* 未知错误 */
-			else {
-				judgeResponse = JRBuilder.resultStatus(777)
-						.passTestCasesNumber(passTestCasesNumber)
-						.noPassTestCaseId(response.getTestCaseId())
-						.resultMessage(Base64.encode("Unknown Error: ") + outputMsg)
-						.time(response.getTime())
-						.memory(response.getMemory())
-						.build();
-				break;
-			}
-		}
-		/* AC */
-		if (passTestCasesNumber == codeRunResults.size()) {
-			judgeResponse = JRBuilder.resultStatus(1000)
-					.passTestCasesNumber(passTestCasesNumber)
-					.noPassTestCaseId(0)
-					.resultMessage(Base64.encode("Accepted"))
-					.time(time)
-					.memory(memory)
-					.build();
-		}
-
-		codeFileClean(codeFileParentDir.toString());
-		return judgeResponse;
+	@PreDestroy
+	public void destroyShardExecutor() {
+		shardExecutor.shutdownNow();
 	}
 
 	/**
-	 * 处理用户代码的存储隔离
-	 *
-	 * @param code        用户提交的代码
-	 * @param inputList   输入列表
-	 * @param lang        编程语言
-	 * @param timieLimit  时间限制
-	 * @param memoryLimit 内存限制
-	 * @return <用户提交代码存放的目录, 隔离目录名>
+	 * 代码存放根目录挂载到容器内的 /codeStore
 	 */
-	private static Pair<Path, String> tackleCodeStorageAndIsolation(String code, List<String> inputList, String lang,
-			Long timieLimit, Long memoryLimit) {
-		/* 1. 创建代码存放的 "根目录" 的绝对路径 */
-		String projectDirPath = System.getProperty("user.dir");
-		String codeStoreRootPath = projectDirPath + File.separator + CODE_STORE_ROOT_PATH;
-
-		/* 2. 隔离用户提交的代码文件和测试数据在单独目录 */
-		String isolcationDirName = IdUtil.getSnowflakeNextIdStr();
-		String userCodeIsolationDirPath = codeStoreRootPath + File.separator + isolcationDirName;
-		String CODE_FILE_NAME = null;
-		CODE_FILE_NAME = CodeLangAdaptUtil.codeStoreFileNameAdapt(LangType.getByLangName(lang));
-		String userCodeFilePath = userCodeIsolationDirPath + File.separator + CODE_FILE_NAME;
-
-		// 创建 main.c / main.cpp / main.rs / Main.java / main.py 文件
-		File userCodeFile = FileUtil.writeString(code, userCodeFilePath, StandardCharsets.UTF_8);
-		// 创建测试数据文件
-		for (int i = 0; i < inputList.size(); i++) {
-			String inputFilePath = userCodeIsolationDirPath + File.separator + INPUT_NAME_PREFIX + (i + 1) + ".txt";
-			FileUtil.writeString(inputList.get(i).trim(), inputFilePath, StandardCharsets.UTF_8);
-		}
-		// 封装 执行请求的 json 文件
-		Function<String, Integer> langMap = (String langType) -> {
-			if (langType.equals("java"))
-				return 2;
-			else if (langType.equals("python"))
-				return 3;
-			else
-				return 1;
-		};
-		var requestArgsbuilder = RequestArgs.builder();
-		var requestArgs = requestArgsbuilder
-				.timeLimit(timieLimit)
-				.memoryLimit(memoryLimit)
-				.fileDir(VOLUMN_CODE_STORE_ROOT_PATH + File.separator + isolcationDirName + File.separator)
-				.testCaseNum(Math.max(1, inputList.size()))
-				.lang(langMap.apply(lang))
-				.build();
-		String jsonString = JSON.toJSONString(requestArgs);
-		String jsonFilePath = "request_args.json";
-		FileUtil.writeUtf8String(jsonString, userCodeIsolationDirPath + File.separator + jsonFilePath);
-		// 封装 file_dir.txt
-		FileUtil.writeString(VOLUMN_CODE_STORE_ROOT_PATH + File.separator + isolcationDirName + File.separator,
-				userCodeIsolationDirPath + File.separator + "file-dir.txt", StandardCharsets.UTF_8);
-		/* 返回用户提交的代码文件所在的目录 */
-		return new Pair<Path, String>(Paths.get(userCodeFile.getParentFile().getAbsolutePath()), isolcationDirName);
+	@Override
+	protected String getWorkspaceRootPath() {
+		return VOLUMN_CODE_STORE_ROOT_PATH;
 	}
 
 	/**
@@ -407,12 +121,11 @@ public class DockerCodeSandBox implements CodeSandBox {
 	 * 
 	 * @param codeFileParentDir java 代码存储路径 (本机)
 	 * @param lang              语言
-	 * @param containerId       编译容器 Id
 	 * @param isolcationDirName c, cpp, rust 代码存储路径 (编译容器)
-	 * @return
+	 * @return 编译结果
 	 */
-	private static ProcessExecuteResult codeCompile(String codeFileParentDir, String lang, String containerId,
-			String isolcationDirName) {
+	@Override
+	protected ProcessExecuteResult codeCompile(String codeFileParentDir, String lang, String isolcationDirName) {
 		var messageBuild = ProcessExecuteResult.builder();
 		String[] compileCommand = new String[] {};
 		// python 不需要编译
@@ -421,13 +134,22 @@ public class DockerCodeSandBox implements CodeSandBox {
 		if (!lang.equals("java"))
 			codeFileParentDir = VOLUMN_CODE_STORE_ROOT_PATH + File.separator + isolcationDirName;
 		/* 匹配对应编程语言的编译命令 */
-		compileCommand = CodeLangAdaptUtil.codeCompileCommandArgsAdapt(LangType.getByLangName(lang), codeFileParentDir);
+		compileCommand = codeLangAdaptUtil.codeCompileCommandArgsAdapt(LangType.getByLangName(lang), codeFileParentDir,
+				!lang.equals("java"));
+		/* java 在本服务进程内编译 */
+		if (lang.equals("java") && inProcessJavaCompiler.accepts(Paths.get(codeFileParentDir))) {
+			return inProcessJavaCompiler.compile(Paths.get(codeFileParentDir));
+		}
 		/* java 在本地编译即可 */
 		if (lang.equals("java")) {
 			var processBuilder = new ProcessBuilder(compileCommand);
 			try {
 				Process compileProcess = processBuilder.start();
-				int exitValue = compileProcess.waitFor();
+				int exitValue;
+				/* 请求取消时结束编译进程 */
+				try (var registration = CancellationContext.current().onCancel(compileProcess::destroyForcibly)) {
+					exitValue = compileProcess.waitFor();
+				}
 				ProcessExecuteResult message = new ProcessExecuteResult();
 				/* 编译成功 */
 				if (exitValue == 0) {
@@ -449,71 +171,217 @@ public class DockerCodeSandBox implements CodeSandBox {
 		}
 		/* c, cpp, rust 在专有镜像中编译 */
 		else {
-			String[] compileCommandPrefix = new String[] { "docker", "exec", "-i", containerId };
-			var processBuilder = new ProcessBuilder(ArrayUtil.append(compileCommandPrefix, compileCommand));
-			Process dockerCompilProcess;
-			try {
-				dockerCompilProcess = processBuilder.start();
-				int exitValue = dockerCompilProcess.waitFor();
-				ProcessExecuteResult message = new ProcessExecuteResult();
+			try (ContainerLease compileLease = compilePermits.lease(() -> containerPoolManager.lease(COMPILE_POOL_NAME))) {
+				ProcessExecuteResult compileResult;
+				/* 请求取消时结束编译容器中编译本次提交的进程 (编译命令中包含本次提交的目录) */
+				String killCommandPattern = codeFileParentDir;
+				try (var registration = CancellationContext.current().onCancel(() -> containerExecutor
+						.exec(compileLease.getContainerId(), new String[] { "pkill", "-KILL", "-f", killCommandPattern }, null))) {
+					compileResult = containerExecutor.exec(compileLease.getContainerId(), compileCommand, null);
+				}
 				/* 编译成功 */
-				if (exitValue == 0) {
-					message = messageBuild.exitValue(0)
-							.normalResult(ProcessUtil.getProcessOutput(dockerCompilProcess.getInputStream(), exitValue))
+				if (compileResult.getExitValue() == 0) {
+					return messageBuild.exitValue(0)
+							.normalResult(compileResult.getNormalResult())
 							.build();
 				}
 				/* 编译失败 */
-				else {
-					message = messageBuild.exitValue(1001)
-							.errorResult(ProcessUtil.getProcessOutput(dockerCompilProcess.getErrorStream(), exitValue))
-							.build();
-				}
-				dockerCompilProcess.destroy();
-				return message;
-			} catch (IOException | InterruptedException e) {
-				throw new BusinessException(StatusEnum.SYSTEM_ERROR, "编译失败. " + e);
+				return messageBuild.exitValue(1001)
+						.errorResult(compileResult.getErrorResult())
+						.build();
 			}
 		}
 		return messageBuild.build();
 	}
 
 	/**
-	 * 代码运行
+	 * java 在本机 (或本服务进程内) 编译, 使用本机 javac 的版本; c, cpp, rust 在编译容器中编译, 使用编译镜像的 ID
 	 *
-	 * @param containerId       沙箱容器 ID
+	 * @param lang 语言
+	 * @return 编译器版本
+	 */
+	@Override
+	protected String getCompilerVersion(String lang) {
+		if (lang.equals("java")) {
+			return inProcessJavaCompiler.isAvailable() ? inProcessJavaCompiler.getVersion() : super.getCompilerVersion(lang);
+		}
+		String imageName = containerPoolProperties.getPools().get(COMPILE_POOL_NAME).getImage();
+		String imageId = containerRegistry.getImageId(imageName);
+		return imageId == null ? imageName : imageId;
+	}
+
+	/**
+	 * 从对应语言的沙箱容器池中租借容器
+	 *
+	 * @param codeFileParentDir 代码存储路径 (本机)
+	 * @param lang              语言
+	 * @return 沙箱容器租约
+	 */
+	@Override
+	protected ContainerLease reserveRunner(Path codeFileParentDir, String lang) {
+		return containerPoolManager.lease(containerPoolManager.getRuntimePoolName(lang));
+	}
+
+	@Override
+	protected void releaseRunner(ContainerLease sandBoxLease) {
+		sandBoxLease.close();
+	}
+
+	/**
+	 * 在租借的沙箱容器中运行代码
+	 *
+	 * @param sandBoxLease      沙箱容器租约
 	 * @param codeFileParentDir 容器挂载目录
+	 * @param lang              语言
+	 * @param onResult          单个测试数据运行完成时的回调 (常驻模式下逐个返回, 否则全部运行完成后依次回调)
 	 * @return 运行结果信息
 	 */
-	private static List<Response> codeRun(String containerId, Path codeFileParentDir) {
-		/* 启动 execute_core 执行代码 */
-		String[] runCommand = new String[] { "docker", "exec", "-i", containerId,
-				"/execute_core" + File.separator + "execute_core" };
-		var processBuilder = new ProcessBuilder(runCommand);
-		processBuilder.redirectInput(new File(codeFileParentDir + File.separator + "file-dir.txt"));
+	@Override
+	protected List<Response> codeRun(ContainerLease sandBoxLease, Path codeFileParentDir, String lang,
+			Consumer<Response> onResult) {
+		int testCaseNum = countTestCases(codeFileParentDir);
+		if (isShardable(sandBoxLease, testCaseNum)) {
+			return codeRunSharded(sandBoxLease, containerPoolManager.getRuntimePoolName(lang), codeFileParentDir,
+					testCaseNum, onResult);
+		}
+		return codeRun(sandBoxLease, codeFileParentDir, onResult);
+	}
+
+	/**
+	 * 分片运行: 将测试数据轮流分配到多个沙箱容器中并行执行, 按测试数据 ID 合并结果.
+	 * 除第一个容器外其余容器只在空闲时租借, 不等待; 任一分片出错时取消其余分片, 等它们结束后才归还容器
+	 *
+	 * @param sandBoxLease      已租借的沙箱容器
+	 * @param poolName          沙箱容器池名称
+	 * @param codeFileParentDir 代码存储路径 (本机)
+	 * @param testCaseNum       测试数据数量
+	 * @param onResult          单个测试数据运行完成时的回调, 可为 null
+	 * @return 运行结果信息
+	 */
+	private List<Response> codeRunSharded(ContainerLease sandBoxLease, String poolName, Path codeFileParentDir,
+			int testCaseNum, Consumer<Response> onResult) {
+		int maxShards = Math.min(shardProperties.getMaxShards(),
+				testCaseNum / Math.max(1, shardProperties.getMinTestCasesPerShard()));
+		List<ContainerLease> leases = new ArrayList<>(List.of(sandBoxLease));
+		List<CompletableFuture<List<Response>>> futures = new ArrayList<>();
+		/* 其余分片的取消上下文, 沿用本次请求的截止时间和取消 */
+		CancellationContext shardContext = CancellationContext.current().newChild();
+		boolean completed = false;
 		try {
-			Process runProcess = processBuilder.start();
-			int exitValue = runProcess.waitFor();
-			/* execute_core 正常运行 */
-			if (exitValue == 0) {
-				String normalOutput = ProcessUtil.getProcessOutput(runProcess.getInputStream(), exitValue);
-				normalOutput = Base64.decodeStr(normalOutput);
-				List<Response> execResp = JSONArray.parseArray(normalOutput, Response.class);
-				// execResp.forEach(System.out::println);
-				return execResp;
+			while (leases.size() < maxShards) {
+				ContainerLease lease = containerPoolManager.tryLease(poolName);
+				if (lease == null) {
+					break;
+				}
+				if (!executeCoreClient.isAvailable(lease.getContainerName())) {
+					lease.close();
+					break;
+				}
+				leases.add(lease);
 			}
-			/* execute_core 系统异常 (500 错误) */
-			else {
-				String errorOutput = ProcessUtil.getProcessOutput(runProcess.getErrorStream(), exitValue);
-				var RSBuilder = Response.builder();
-				RSBuilder.exitCode(500)
-						.outputMsg(errorOutput)
-						.build();
-				log.info("execute_core 出错: \n" + errorOutput);
-				throw new BusinessException(StatusEnum.SYSTEM_ERROR, errorOutput);
+			if (leases.size() == 1) {
+				return codeRun(sandBoxLease, codeFileParentDir, onResult);
 			}
-		} catch (IOException | InterruptedException e) {
-			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "运行失败. " + e);
+			/* 测试数据轮流分配, 避免耗时的测试数据集中在同一分片 */
+			List<List<Integer>> shards = new ArrayList<>();
+			leases.forEach(lease -> shards.add(new ArrayList<>()));
+			for (int testCaseId = 1; testCaseId <= testCaseNum; testCaseId++) {
+				shards.get((testCaseId - 1) % leases.size()).add(testCaseId);
+			}
+			String fileDir = VOLUMN_CODE_STORE_ROOT_PATH + File.separator + codeFileParentDir.getFileName() + File.separator;
+			for (int i = 1; i < leases.size(); i++) {
+				String containerName = leases.get(i).getContainerName();
+				List<Integer> testCaseIds = shards.get(i);
+				futures.add(CompletableFuture.supplyAsync(() -> shardContext.callWith(() -> {
+					shardContext.checkCancelled();
+					return executeCoreClient.execute(containerName, fileDir, testCaseIds, onResult);
+				}), shardExecutor));
+			}
+			List<Response> responses = new ArrayList<>(
+					executeCoreClient.execute(sandBoxLease.getContainerName(), fileDir, shards.get(0), onResult));
+			for (var future : futures) {
+				try {
+					responses.addAll(future.join());
+				} catch (CompletionException e) {
+					if (e.getCause() instanceof BusinessException) {
+						throw (BusinessException) e.getCause();
+					}
+					throw new BusinessException(StatusEnum.SYSTEM_ERROR, "分片运行失败. " + e.getCause());
+				}
+			}
+			responses.sort(Comparator.comparing(Response::getTestCaseId));
+			log.debug("测试数据分为 " + leases.size() + " 个分片运行");
+			completed = true;
+			return responses;
+		} finally {
+			// 出错时其余分片可能仍在容器中执行, 取消并等待它们结束, 避免容器在作业结束前被其他提交租借
+			if (!completed && !futures.isEmpty()) {
+				shardContext.cancel();
+				CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((result, e) -> null).join();
+			}
+			// 第一个容器由调用方归还
+			leases.subList(1, leases.size()).forEach(ContainerLease::close);
+		}
+	}
+
+	/**
+	 * 是否分片运行 (测试数据足够多, 且容器内 execute_core 为常驻模式)
+	 */
+	private boolean isShardable(ContainerLease sandBoxLease, int testCaseNum) {
+		return Boolean.TRUE.equals(shardProperties.getEnabled())
+				&& shardProperties.getMaxShards() > 1
+				&& testCaseNum >= 2 * Math.max(1, shardProperties.getMinTestCasesPerShard())
+				&& EXECUTE_CORE_DAEMON_MODE.equals(executeCoreProperties.getMode())
+				&& executeCoreClient.isAvailable(sandBoxLease.getContainerName());
+	}
+
+	/**
+	 * 统计测试数据文件数量
+	 */
+	private static int countTestCases(Path codeFileParentDir) {
+		String[] inputFiles = codeFileParentDir.toFile().list((dir, name) -> name.startsWith(INPUT_NAME_PREFIX));
+		return inputFiles == null ? 0 : inputFiles.length;
+	}
+
+	/**
+	 * 代码运行
+	 *
+	 * @param sandBoxLease      沙箱容器租约
+	 * @param codeFileParentDir 容器挂载目录
+	 * @param onResult          单个测试数据运行完成时的回调, 可为 null
+	 * @return 运行结果信息
+	 */
+	private List<Response> codeRun(ContainerLease sandBoxLease, Path codeFileParentDir, Consumer<Response> onResult) {
+		/* 常驻模式: 通过 Unix Socket 将作业提交给容器内的 execute_core */
+		if (EXECUTE_CORE_DAEMON_MODE.equals(executeCoreProperties.getMode())
+				&& executeCoreClient.isAvailable(sandBoxLease.getContainerName())) {
+			String fileDir = VOLUMN_CODE_STORE_ROOT_PATH + File.separator + codeFileParentDir.getFileName() + File.separator;
+			return executeCoreClient.execute(sandBoxLease.getContainerName(), fileDir, null, onResult);
+		}
+		/* 启动 execute_core 执行代码 */
+		String[] runCommand = new String[] { "/execute_core" + File.separator + "execute_core" };
+		File fileDirFile = new File(codeFileParentDir + File.separator + "file-dir.txt");
+		ProcessExecuteResult runResult;
+		/* 请求取消时结束容器内的 execute_core, 其启动的用户进程随容器替换一并结束 */
+		try (var registration = CancellationContext.current().onCancel(() -> {
+			sandBoxLease.markBroken();
+			containerExecutor.exec(sandBoxLease.getContainerId(), new String[] { "pkill", "-KILL", "execute_core" }, null);
+		})) {
+			runResult = containerExecutor.exec(sandBoxLease.getContainerId(), runCommand, fileDirFile);
+		}
+		/* execute_core 正常运行 */
+		if (runResult.getExitValue() == 0) {
+			String normalOutput = Base64.decodeStr(runResult.getNormalResult());
+			List<Response> execResp = JSONArray.parseArray(normalOutput, Response.class);
+			if (onResult != null) {
+				execResp.forEach(onResult);
+			}
+			return execResp;
 		}
+		/* execute_core 系统异常 (500 错误) */
+		String errorOutput = runResult.getErrorResult();
+		log.info("execute_core 出错: \n" + errorOutput);
+		throw new BusinessException(StatusEnum.SYSTEM_ERROR, errorOutput);
 	}
 
 	/**
@@ -536,152 +404,4 @@ public class DockerCodeSandBox implements CodeSandBox {
 		}
 		return classPath;
 	}
-
-	/**
-	 * 用户代码文件清理
-	 *
-	 * @param codeFileParentDir 代码文件存放目录
-	 */
-	private static void codeFileClean(String codeFileParentDir) {
-		try {
-			Path directoryToDelete = Paths.get(codeFileParentDir);
-			Files.walkFileTree(directoryToDelete, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE,
-					new SimpleFileVisitor<>() {
-						@Override
-						public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-							Files.delete(file);
-							return FileVisitResult.CONTINUE;
-						}
-
-						@Override
-						public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-							Files.delete(dir);
-							return FileVisitResult.CONTINUE;
-						}
-					});
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
-
-	@Override
-	public List<MultiTestCaseDebugResponse> multiTestCaseCodeDebug(MultiTestCaseDebugRequest debugRequest) {
-		List<MultiTestCaseDebugResponse> resultList = new ArrayList<>();
-		var DRBuilder = MultiTestCaseDebugResponse.builder();
-		String code = Base64.decodeStr(debugRequest.getCode());
-		String lang = debugRequest.getLang();
-		Long timeLimit = debugRequest.getTimeLimit();
-		Long memoryLimit = debugRequest.getMemoryLimit();
-		List<String> inputList = debugRequest.getTestCases().stream().map(e -> {
-			return Base64.decodeStr(e.getInput());
-		}).toList();
-
-		/* 1. 代码存储隔离 */
-		Path codeFileParentDir = null;
-		Pair<Path, String> ans = tackleCodeStorageAndIsolation(code, inputList, lang, timeLimit, memoryLimit);
-		codeFileParentDir = ans.getKey();
-
-		/* 2. 启动编译容器，代码编译 */
-		String compileContainerId = dockerUtil.getContainerId(codeFileParentDir.getParent(), COMPILE_ENV_DOCKER_IMAGE,
-				COMPILE_ENV_CONTAINER_NAME, 0);
-		var codeCompileResult = codeCompile(codeFileParentDir.toString(), lang, compileContainerId, ans.getValue());
-
-		// 编译失败 (Compiler Error)
-		if (codeCompileResult.getExitValue() != 0) {
-			/* 代码编译错误输出过滤 */
-			String fixedCompileOutput = OutputFilterUtil.tackleCompileOutput(codeCompileResult.getErrorResult(), lang);
-			codeFileClean(codeFileParentDir.toString());
-			for (int i = 0; i < inputList.size(); i++) {
-				resultList.add(DRBuilder.resultStatus(1001)
-						.resultMessage(Base64.encode(fixedCompileOutput))
-						.build());
-			}
-			return resultList;
-		}
-
-		/* 3. 启动沙箱容器 */
-		String sandBoxContainerId = dockerUtil.getContainerId(codeFileParentDir.getParent(), SANDBOX_DOCKER_IMAGE,
-				SANDBOX_CONTAINER_NAME, 1);
-
-		/* 4. 代码运行 */
-		var codeRunResults = DockerCodeSandBox.codeRun(sandBoxContainerId, codeFileParentDir);
-
-		try {
-			codeRunResults.get(0);
-		} catch (IndexOutOfBoundsException e) {
-			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "多测试用例代码调试结果返回为空, 导致在 codeRun 中出现结果数组访问越界异常. " + e);
-		}
-
-		/* 判题系统正常运行 */
-		Comparator<Response> testCaseIdComparator = Comparator.comparing(Response::getTestCaseId,
-				Comparator.naturalOrder());
-		codeRunResults.sort(testCaseIdComparator);
-
-		for (var response : codeRunResults) {
-			Integer exitCode = response.getExitCode();
-			Integer testCaseId = response.getTestCaseId();
-			String outputMsg = response.getOutputMsg();
-			Long time = response.getTime();
-			Long memory = response.getMemory();
-			var debugResponse = new MultiTestCaseDebugResponse();
-
-			/* 越权操作 */
-			if (exitCode == 1) {
-				debugResponse = DRBuilder.resultStatus(1)
-						.testCaseId(testCaseId)
-						.time(time)
-						.memory(memory)
-						.resultMessage(outputMsg)
-						.build();
-			}
-			/* 判断系统正常运行 */
-			else if (exitCode == 1000) {
-				debugResponse = DRBuilder.resultStatus(1000)
-						.testCaseId(testCaseId)
-						.resultMessage(outputMsg)
-						.time(time)
-						.memory(memory)
-						.build();
-			}
-			/* 运行时错误 RE */
-			else if (exitCode == 1002) {
-				debugResponse = DRBuilder.resultStatus(1002)
-						.testCaseId(testCaseId)
-						.resultMessage(outputMsg)
-						.time(time)
-						.memory(memory)
-						.build();
-			}
-			/* 运行超时 TLE */
-			else if (exitCode == 1003) {
-				debugResponse = DRBuilder.resultStatus(1003)
-						.testCaseId(testCaseId)
-						.resultMessage(outputMsg)
-						.time(-1L)
-						.memory(memory)
-						.build();
-			}
-			/* 运行占用内存超出限制 MLE */
-			else if (exitCode == 1004) {
-				debugResponse = DRBuilder.resultStatus(1004)
-						.testCaseId(testCaseId)
-						.resultMessage(outputMsg)
-						.time(time)
-						.memory(-1L)
-						.build();
-			}
-			/* 未知错误 */
-			else {
-				debugResponse = DRBuilder.resultStatus(777)
-						.testCaseId(testCaseId)
-						.resultMessage(Base64.encode("未知错误: ") + outputMsg)
-						.time(time)
-						.memory(memory)
-						.build();
-			}
-			resultList.add(debugResponse);
-		}
-		codeFileClean(codeFileParentDir.toString());
-		return resultList;
-	}
-}
\ No newline at end of file
+}
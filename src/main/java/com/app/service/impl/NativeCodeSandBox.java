@@ -0,0 +1,312 @@
+package com.app.service.impl;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.io.resource.ResourceUtil;
+import cn.hutool.core.util.ArrayUtil;
+import cn.hutool.core.util.IdUtil;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.app.common.LangType;
+import com.app.common.StatusEnum;
+import com.app.config.ContainerPoolProperties;
+import com.app.config.NativeSandBoxProperties;
+import com.app.docker.CpuSlot;
+import com.app.docker.CpuSlotManager;
+import com.app.exception.BusinessException;
+import com.app.module.ProcessExecuteResult;
+import com.app.module.execute.Response;
+import com.app.scheduler.CancellationContext;
+import com.app.utils.CodeLangAdaptUtil;
+import com.app.utils.ProcessUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 直接在本机编译运行的代码沙箱 —— 每次编译/运行都是一个 systemd-run 临时服务:
+ *              cgroup v2 限制内存/进程数/CPU 核心, 独立的 mount/network/IPC/UTS 命名空间,
+ *              代码存放目录中只可见本次提交的目录 (运行时只读挂载), 运行时的系统调用过滤取自 permission 下的 seccomp 配置,
+ *              编译时使用单独的过滤规则 (编译器需要创建和删除临时文件)
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "sandbox.backend", havingValue = "native")
+public class NativeCodeSandBox extends AbstractCodeSandBox<CpuSlot> {
+	@Resource
+	NativeSandBoxProperties nativeSandBoxProperties;
+
+	@Resource
+	ContainerPoolProperties containerPoolProperties;
+
+	@Resource
+	CpuSlotManager cpuSlotManager;
+
+	/* 代码存放根目录 (本机绝对路径) */
+	private final String codeStoreRootPath = System.getProperty("user.dir") + File.separator + CODE_STORE_ROOT_PATH;
+
+	/* 读取 systemd-run 错误输出的线程 (阻塞读取, 不占用公共线程池) */
+	private static final ExecutorService outputReader = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "native-sandbox-output");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/* 由 seccomp 配置转换的 systemd 系统调用过滤规则 (运行时) */
+	private String systemCallFilter;
+
+	@PostConstruct
+	public void init() {
+		systemCallFilter = toSystemCallFilter(ResourceUtil.readUtf8Str(nativeSandBoxProperties.getSeccompProfile()));
+		log.info("本机代码沙箱已启用, 运行时系统调用过滤: " + systemCallFilter + ", 编译时系统调用过滤: "
+				+ nativeSandBoxProperties.getCompileSystemCallFilter());
+	}
+
+	@Override
+	protected String getWorkspaceRootPath() {
+		return codeStoreRootPath;
+	}
+
+	/**
+	 * 在本机编译代码, 本次提交的目录以读写方式挂载
+	 *
+	 * @param codeFileParentDir 代码存储路径 (本机)
+	 * @param lang              语言
+	 * @param isolcationDirName 隔离目录名
+	 * @return 编译结果
+	 */
+	@Override
+	protected ProcessExecuteResult codeCompile(String codeFileParentDir, String lang, String isolcationDirName) {
+		var messageBuild = ProcessExecuteResult.builder();
+		// python 不需要编译
+		if (lang.equals("python"))
+			return messageBuild.exitValue(0).build();
+		// 编译产物由沙箱用户写入
+		try {
+			Files.setPosixFilePermissions(Paths.get(codeFileParentDir), PosixFilePermissions.fromString("rwxrwxrwx"));
+		} catch (IOException e) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "设置代码目录权限失败. " + e);
+		}
+		String[] compileCommand = codeLangAdaptUtil.codeCompileCommandArgsAdapt(LangType.getByLangName(lang),
+				codeFileParentDir);
+		List<String> properties = sandBoxProperties(codeFileParentDir, false,
+				nativeSandBoxProperties.getCompileMemory(), nativeSandBoxProperties.getCompileTimeout(),
+				cpuSlotManager.getReservedCpuset(), nativeSandBoxProperties.getCompileSystemCallFilter());
+		var compileResult = execute(properties, compileCommand, null);
+		/* 编译成功 */
+		if (compileResult.getExitValue() == 0) {
+			return messageBuild.exitValue(0)
+					.normalResult(compileResult.getNormalResult())
+					.build();
+		}
+		/* 编译失败 */
+		return messageBuild.exitValue(1001)
+				.errorResult(compileResult.getErrorResult())
+				.build();
+	}
+
+	/**
+	 * 占用一个执行槽位
+	 *
+	 * @param codeFileParentDir 代码存储路径 (本机)
+	 * @param lang              语言
+	 * @return 执行槽位, 未启用槽位时为 null
+	 */
+	@Override
+	protected CpuSlot reserveRunner(Path codeFileParentDir, String lang) {
+		return cpuSlotManager.acquire(codeFileParentDir.getFileName().toString(),
+				containerPoolProperties.getLeaseTimeout());
+	}
+
+	@Override
+	protected void releaseRunner(CpuSlot slot) {
+		cpuSlotManager.release(slot);
+	}
+
+	/**
+	 * 在本机运行 execute_core, 本次提交的目录以只读方式挂载, 绑定占用的执行槽位
+	 *
+	 * @param slot              执行槽位, 为 null 时不绑定 CPU 核心
+	 * @param codeFileParentDir 代码存储路径 (本机)
+	 * @param lang              语言
+	 * @param onResult          单个测试数据运行完成时的回调 (全部运行完成后依次回调)
+	 * @return 各个测试数据的运行结果
+	 */
+	@Override
+	protected List<Response> codeRun(CpuSlot slot, Path codeFileParentDir, String lang, Consumer<Response> onResult) {
+		String executeCorePath = Paths.get(System.getProperty("user.dir"), nativeSandBoxProperties.getExecuteCorePath())
+				.toString();
+		File fileDirFile = new File(codeFileParentDir + File.separator + "file-dir.txt");
+		List<String> properties = sandBoxProperties(codeFileParentDir.toString(), true,
+				nativeSandBoxProperties.getRunMemory(), nativeSandBoxProperties.getRunTimeout(),
+				slot == null ? null : slot.getCpuset(), systemCallFilter);
+		ProcessExecuteResult runResult = execute(properties, new String[] { executeCorePath }, fileDirFile);
+		/* execute_core 正常运行 */
+		if (runResult.getExitValue() == 0) {
+			String normalOutput = Base64.decodeStr(runResult.getNormalResult());
+			List<Response> responses = JSONArray.parseArray(normalOutput, Response.class);
+			if (onResult != null) {
+				responses.forEach(onResult);
+			}
+			return responses;
+		}
+		/* execute_core 系统异常 (500 错误) */
+		String errorOutput = runResult.getErrorResult();
+		log.info("execute_core 出错: \n" + errorOutput);
+		throw new BusinessException(StatusEnum.SYSTEM_ERROR, errorOutput);
+	}
+
+	/**
+	 * systemd 临时服务的隔离和资源限制属性
+	 *
+	 * @param workDir  本次提交的目录 (本机)
+	 * @param readOnly 是否只读挂载本次提交的目录
+	 * @param memory   内存上限 (单位: B)
+	 * @param timeout  最长运行时间 (单位: s)
+	 * @param cpuset   绑定的 CPU 核心, 为 null 时不绑定
+	 * @param filter   系统调用过滤规则, 为空时不过滤
+	 * @return systemd-run 的 -p 参数
+	 */
+	private List<String> sandBoxProperties(String workDir, boolean readOnly, Long memory, Long timeout, String cpuset,
+			String filter) {
+		List<String> properties = new ArrayList<>(List.of(
+				"User=" + nativeSandBoxProperties.getUser(),
+				"NoNewPrivileges=yes",
+				/* 命名空间隔离 */
+				"PrivateNetwork=yes",
+				"PrivateTmp=yes",
+				"PrivateDevices=yes",
+				"PrivateIPC=yes",
+				"ProtectHostname=yes",
+				"ProtectSystem=strict",
+				"ProtectHome=read-only",
+				"ProtectKernelTunables=yes",
+				"ProtectKernelModules=yes",
+				"ProtectControlGroups=yes",
+				/* 代码存放目录中只挂载本次提交的目录 */
+				"TemporaryFileSystem=" + codeStoreRootPath + ":ro",
+				(readOnly ? "BindReadOnlyPaths=" : "BindPaths=") + workDir,
+				"WorkingDirectory=" + workDir,
+				/* cgroup v2 资源限制 */
+				"MemoryMax=" + memory,
+				"MemorySwapMax=0",
+				"TasksMax=" + nativeSandBoxProperties.getTasksMax(),
+				"RuntimeMaxSec=" + timeout));
+		/* 系统调用过滤 */
+		if (filter != null && !filter.isBlank()) {
+			properties.add("SystemCallFilter=" + filter);
+			properties.add("SystemCallErrorNumber=EPERM");
+		}
+		if (cpuset != null) {
+			properties.add("AllowedCPUs=" + cpuset);
+		}
+		return properties;
+	}
+
+	/**
+	 * 以 systemd 临时服务的方式执行命令, 并等待其结束; 请求取消时结束该临时服务
+	 *
+	 * @param properties 服务属性
+	 * @param command    命令
+	 * @param stdinFile  标准输入, 为 null 时不重定向
+	 * @return 执行结果
+	 */
+	private ProcessExecuteResult execute(List<String> properties, String[] command, File stdinFile) {
+		String unitName = "codesandbox-" + IdUtil.getSnowflakeNextIdStr();
+		List<String> systemdRunCommand = new ArrayList<>(List.of(nativeSandBoxProperties.getSystemdRun(),
+				"--quiet", "--wait", "--pipe", "--collect", "--service-type=exec", "--unit=" + unitName));
+		properties.forEach(property -> {
+			systemdRunCommand.add("-p");
+			systemdRunCommand.add(property);
+		});
+		systemdRunCommand.add("--");
+		var processBuilder = new ProcessBuilder(ArrayUtil.append(systemdRunCommand.toArray(new String[0]), command));
+		if (stdinFile != null) {
+			processBuilder.redirectInput(stdinFile);
+		}
+		try {
+			Process process = processBuilder.start();
+			String normalOutput;
+			int exitValue;
+			CompletableFuture<String> errorOutput;
+			try (var registration = CancellationContext.current().onCancel(() -> killUnit(unitName))) {
+				// 同时读取两个输出流, 避免输出较多时进程阻塞
+				errorOutput = CompletableFuture
+						.supplyAsync(() -> ProcessUtil.getProcessOutput(process.getErrorStream(), 1), outputReader);
+				normalOutput = ProcessUtil.getProcessOutput(process.getInputStream(), 0);
+				exitValue = process.waitFor();
+			}
+			return ProcessExecuteResult.builder()
+					.exitValue(exitValue)
+					.normalResult(normalOutput)
+					.errorResult(errorOutput.join())
+					.build();
+		} catch (IOException e) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "systemd-run 执行失败. " + e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "systemd-run 执行被中断. " + e);
+		}
+	}
+
+	/**
+	 * 强制结束临时服务中的全部进程
+	 *
+	 * @param unitName 临时服务名
+	 */
+	private void killUnit(String unitName) {
+		try {
+			new ProcessBuilder(nativeSandBoxProperties.getSystemctl(), "kill", "--signal=SIGKILL", unitName + ".service")
+					.start()
+					.waitFor();
+		} catch (IOException e) {
+			log.warn("结束临时服务 " + unitName + " 失败: " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 将 Docker 格式的 seccomp 配置转换为 systemd 的 SystemCallFilter
+	 * (默认放行时为禁止列表 "~name ...", 默认拒绝时为允许列表)
+	 *
+	 * @param seccompProfile seccomp 配置内容
+	 * @return SystemCallFilter 的值
+	 */
+	private static String toSystemCallFilter(String seccompProfile) {
+		JSONObject profile = JSON.parseObject(seccompProfile);
+		boolean defaultAllow = "SCMP_ACT_ALLOW".equals(profile.getString("defaultAction"));
+		List<String> names = new ArrayList<>();
+		JSONArray syscalls = profile.getJSONArray("syscalls");
+		for (int i = 0; syscalls != null && i < syscalls.size(); i++) {
+			JSONObject syscall = syscalls.getJSONObject(i);
+			boolean allow = "SCMP_ACT_ALLOW".equals(syscall.getString("action"));
+			// 只取与默认动作相反的规则
+			if (allow != defaultAllow) {
+				names.addAll(syscall.getJSONArray("names").toJavaList(String.class));
+			}
+		}
+		return (defaultAllow ? "~" : "") + String.join(" ", names);
+	}
+}
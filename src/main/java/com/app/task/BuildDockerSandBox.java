@@ -1,38 +1,67 @@
 package com.app.task;
 
-import java.io.File;
-import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.Resource;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
-import com.app.utils.DockerUtil;
+import com.app.docker.ContainerPoolManager;
+
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * @author HDD
  * @date 2024年02月04日
- * @description 单次任务 —— 构建编译镜像和代码沙箱镜像并启动相关容器
+ * @description 单次任务 —— 在后台并行构建编译镜像和代码沙箱镜像并预热相关容器池, 随后运行启动预热, 不阻塞服务启动
  */
 @Component
+@Slf4j
 public class BuildDockerSandBox implements ApplicationRunner {
 
-  private static final String SANDBOX_DOCKER_IMAGE = "sandbox:2.0";
-  private static final String SANDBOX_CONTAINER_NAME = "sandbox";
-  private static final String COMPILE_ENV_DOCKER_IMAGE = "compile_env:1.0";
-  private static final String COMPILE_ENV_CONTAINER_NAME = "compile_env";
+  @Resource
+  private ContainerPoolManager containerPoolManager;
 
   @Resource
-  private DockerUtil dockerUtil;
+  private SandBoxWarmUp sandBoxWarmUp;
+
+  /* 代码沙箱实现 docker / native */
+  @Value("${sandbox.backend:docker}")
+  private String backend;
+
+  /* 启动预热是否已结束 (无论成功与否) */
+  private volatile boolean warmedUp = false;
 
   @Override
   public void run(ApplicationArguments args) throws Exception {
-    String codeFileParentDir = new String();
-    String projectDir = System.getProperty("user.dir");
-    codeFileParentDir = projectDir + File.separator + "tempCodeRepository";
-    dockerUtil.getContainerId(Paths.get(codeFileParentDir), COMPILE_ENV_DOCKER_IMAGE, COMPILE_ENV_CONTAINER_NAME, 0);
-    dockerUtil.getContainerId(Paths.get(codeFileParentDir), SANDBOX_DOCKER_IMAGE, SANDBOX_CONTAINER_NAME, 1);
+    // 本机代码沙箱不使用容器池
+    CompletableFuture<Void> bootstrap = isNativeBackend() ? CompletableFuture.completedFuture(null)
+        : containerPoolManager.warmUp();
+    bootstrap.thenRunAsync(() -> {
+      try {
+        // 容器池启动失败时跳过预热, 由健康检查补齐容器
+        if (isNativeBackend() || containerPoolManager.isReady()) {
+          sandBoxWarmUp.run();
+        }
+      } catch (Exception e) {
+        log.error("启动预热失败", e);
+      } finally {
+        warmedUp = true;
+      }
+    });
+  }
+
+  /**
+   * 代码沙箱是否已可接收请求 (容器池已就绪且启动预热已结束)
+   */
+  public boolean isReady() {
+    return warmedUp && (isNativeBackend() || containerPoolManager.isReady());
+  }
+
+  private boolean isNativeBackend() {
+    return "native".equals(backend);
   }
 }
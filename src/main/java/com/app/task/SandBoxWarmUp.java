@@ -0,0 +1,100 @@
+package com.app.task;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import com.app.config.WarmUpProperties;
+import com.app.module.debug.DebugRequest;
+import com.app.module.debug.DebugResponse;
+import com.app.module.warmup.WarmUpReport;
+import com.app.service.CodeSandBox;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.io.resource.ResourceUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 启动预热 —— 通过完整的代码沙箱流程多次编译运行 testCode 中的程序,
+ *              预热编译器, JRE/python 的页缓存, JIT 以及容器池, 并记录各语言冷启动与预热后的耗时
+ */
+@Component
+@Slf4j
+public class SandBoxWarmUp {
+  /* 编程语言 -> (testCode 中的程序, 输入, 期望输出) */
+  private static final Map<String, String[]> PROGRAMS = new LinkedHashMap<>();
+
+  static {
+    PROGRAMS.put("c", new String[] { "testCode/main.c", "1 2", "3" });
+    PROGRAMS.put("cpp", new String[] { "testCode/main.cpp", "4 5\n1 2\n2 4\n3 4\n4 5", "10" });
+    PROGRAMS.put("rust", new String[] { "testCode/main.rs", "1 2", "3" });
+    PROGRAMS.put("java", new String[] { "testCode/Main.java", "1 2", "3" });
+    PROGRAMS.put("python", new String[] { "testCode/main.py", "1 2", "3" });
+  }
+
+  @Resource
+  private CodeSandBox codeSandBox;
+
+  @Resource
+  private WarmUpProperties warmUpProperties;
+
+  /**
+   * 各语言的预热结果
+   */
+  @Getter
+  private final Map<String, WarmUpReport> reports = new ConcurrentHashMap<>();
+
+  /**
+   * 运行预热, 单个语言预热失败不影响其他语言
+   */
+  public void run() {
+    if (!Boolean.TRUE.equals(warmUpProperties.getEnabled())) {
+      return;
+    }
+    int rounds = Math.max(1, warmUpProperties.getRounds());
+    PROGRAMS.forEach((lang, program) -> {
+      String code = ResourceUtil.readUtf8Str(program[0]);
+      var debugRequest = new DebugRequest(Base64.encode(program[1]), Base64.encode(code), lang);
+      long coldLatency = 0;
+      long warmLatencySum = 0;
+      int succeeded = 0;
+      for (int round = 0; round < rounds; round++) {
+        long startTime = System.currentTimeMillis();
+        try {
+          DebugResponse debugResponse = codeSandBox.codeDebug(debugRequest);
+          if (debugResponse.getResultStatus() == 1000
+              && program[2].equals(Base64.decodeStr(debugResponse.getResultMessage()).trim())) {
+            succeeded++;
+          } else {
+            log.warn(lang + " 预热结果不正确: " + debugResponse);
+          }
+        } catch (Exception e) {
+          log.warn(lang + " 预热失败: " + e.getMessage());
+        }
+        long latency = System.currentTimeMillis() - startTime;
+        if (round == 0) {
+          coldLatency = latency;
+        } else {
+          warmLatencySum += latency;
+        }
+      }
+      var report = WarmUpReport.builder()
+          .lang(lang)
+          .rounds(rounds)
+          .succeeded(succeeded)
+          .coldLatency(coldLatency)
+          .warmLatency(rounds > 1 ? warmLatencySum / (rounds - 1) : null)
+          .build();
+      reports.put(lang, report);
+      log.info(lang + " 预热完成: 成功 " + succeeded + "/" + rounds + ", 冷启动耗时 " + coldLatency + "ms, 预热后平均耗时 "
+          + report.getWarmLatency() + "ms");
+    });
+  }
+}
@@ -1,65 +1,75 @@
 package com.app.utils;
 
-import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
 
 import com.app.common.LangType;
 import com.app.common.StatusEnum;
+import com.app.config.LangProfileProperties;
+import com.app.config.LangProfileProperties.LangProfile;
 import com.app.exception.BusinessException;
 
-import cn.hutool.core.util.ArrayUtil;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * @author HDD
  * @date 2024年02月27日
- * @description 语言类型适配工具类
+ * @description 语言类型适配工具类 —— 代码文件名, 编译命令, 执行命令和资源限制均取自 application.yml 中的语言配置
  */
+@Component
+@Slf4j
 public class CodeLangAdaptUtil {
-  /* rust */
-  private static final String RUST_CODE_FILE_NAME = "main.rs";
-	private static final String[] RUST_COMPILE_COMMAND = new String[] {"rustc"};
-
-  /* cpp */
-	private static final String CPP_CODE_FILE_NAME = "main.cpp";
-	private static final String[] CPP_COMPILE_COMMAND = new String[] {"g++"};
-	
-  /* c */
-  private static final String C_CODE_FILE_NAME = "main.c";
-	private static final String[] C_COMPILE_COMMAND = new String[] {"gcc"};
-	
-  /* java */
-  private static final String JAVA_CODE_FILE_NAME = "Main.java";
-	private static final String[] JAVA_COMPILE_COMMAND = new String[] {"javac", "-encoding", "utf-8"};
-	
-  /* python */
-  private static final String PYTHON_CODE_FILE_NAME = "main.py";
-  
+  /* 命令模板中的代码目录占位符 */
+  private static final String DIR_PLACEHOLDER = "{dir}";
+
+  @Resource
+  private LangProfileProperties langProfileProperties;
+
+  /* 启动时按语言类型建立的索引 */
+  private final Map<LangType, LangProfile> profiles = new EnumMap<>(LangType.class);
+
+  @PostConstruct
+  public void init() {
+    langProfileProperties.getProfiles().forEach((langName, profile) -> {
+      LangType langType;
+      try {
+        langType = LangType.getByLangName(langName);
+      } catch (BusinessException e) {
+        log.warn("忽略未支持的编程语言配置: " + langName);
+        return;
+      }
+      profiles.put(langType, profile);
+    });
+    for (LangType langType : LangType.values()) {
+      if (!profiles.containsKey(langType)) {
+        throw new BusinessException(StatusEnum.SYSTEM_ERROR, "未配置编程语言 " + langType.getLangName() + " 的语言配置");
+      }
+    }
+  }
+
+  /**
+   * 获取语言配置
+   * @param langType 语言类型枚举
+   * @return 语言配置
+   */
+  public LangProfile getProfile(LangType langType) {
+    return profiles.get(langType);
+  }
+
   /**
    * 不同编程语言存储文件名适配
    * @param langType 语言类型枚举
    * @return 存储文件名
    */
-  public static String codeStoreFileNameAdapt(LangType langType){
-    String codeStoreFileName = new String();
-    switch (langType) {
-      case RUST:
-        codeStoreFileName = RUST_CODE_FILE_NAME;
-        break;
-      case CPP:
-        codeStoreFileName = CPP_CODE_FILE_NAME;   
-        break; 
-      case C:
-        codeStoreFileName = C_CODE_FILE_NAME;
-        break;
-      case JAVA:
-        codeStoreFileName = JAVA_CODE_FILE_NAME;
-        break;
-      case PYTHON:
-        codeStoreFileName = PYTHON_CODE_FILE_NAME;
-        break;
-      default:
-        throw new BusinessException(StatusEnum.SYSTEM_NOT_IMPLEMENTED);
-    }
-    return codeStoreFileName;
+  public String codeStoreFileNameAdapt(LangType langType) {
+    return getProfile(langType).getCodeFileName();
   }
 
   /**
@@ -68,41 +78,75 @@ public class CodeLangAdaptUtil {
    * @param compileFilePath 待编译文件存储路径
    * @return 编译命令
    */
-  public static String[] codeCompileCommandArgsAdapt(LangType langType, String compileFilePath) {
-    String[] compileCommand = new String[]{};
-    switch (langType) {
-      case RUST:
-        compileCommand = ArrayUtil.append(
-          RUST_COMPILE_COMMAND, 
-          "-o", 
-          compileFilePath + File.separator + "main",
-          compileFilePath + File.separator + RUST_CODE_FILE_NAME);
-        break;
-
-      case CPP:
-        compileCommand = ArrayUtil.append(
-          CPP_COMPILE_COMMAND, 
-          compileFilePath + File.separator + CPP_CODE_FILE_NAME,
-          "-o", 
-          compileFilePath + File.separator + "main");
-        break;
-
-      case C:
-        compileCommand = ArrayUtil.append(
-          C_COMPILE_COMMAND, 
-          compileFilePath + File.separator + C_CODE_FILE_NAME,
-          "-o", 
-          compileFilePath + File.separator + "main");
-        break;
-      
-      case JAVA:
-        compileCommand = ArrayUtil.append(
-          JAVA_COMPILE_COMMAND, 
-          compileFilePath + File.separator + JAVA_CODE_FILE_NAME);
-        break;
-      default:
-        throw new BusinessException(StatusEnum.SYSTEM_NOT_IMPLEMENTED);
+  public String[] codeCompileCommandArgsAdapt(LangType langType, String compileFilePath) {
+    return codeCompileCommandArgsAdapt(langType, compileFilePath, false);
+  }
+
+  /**
+   * 不同编程语言的 "编译命令" 适配: 编译器 + 编译选项 + 编译参数
+   * @param langType 语言类型枚举
+   * @param compileFilePath 待编译文件存储路径
+   * @param compileEnv 是否在编译容器 (compile_env) 中编译, 是则使用其中的 ccache 和预编译头
+   * @return 编译命令
+   */
+  public String[] codeCompileCommandArgsAdapt(LangType langType, String compileFilePath, boolean compileEnv) {
+    LangProfile profile = getProfile(langType);
+    if (profile.getCompiler().isEmpty()) {
+      throw new BusinessException(StatusEnum.SYSTEM_NOT_IMPLEMENTED);
     }
-    return compileCommand;
+    List<String> compileCommand = new ArrayList<>(
+        compileEnv && !profile.getCompileEnvCompiler().isEmpty() ? profile.getCompileEnvCompiler() : profile.getCompiler());
+    compileCommand.addAll(profile.getCompileFlags());
+    profile.getCompileArgs().forEach(arg -> compileCommand.add(arg.replace(DIR_PLACEHOLDER, compileFilePath)));
+    return compileCommand.toArray(String[]::new);
+  }
+
+  /**
+   * 编译器 (编译命令的第一个参数)
+   * @param langType 语言类型枚举
+   * @return 编译器, 不需要编译时为 null
+   */
+  public String compilerAdapt(LangType langType) {
+    List<String> compiler = getProfile(langType).getCompiler();
+    return compiler.isEmpty() ? null : compiler.get(0);
+  }
+
+  /**
+   * execute_core 的执行方式适配
+   * @param langType 语言类型枚举
+   * @return 1: 可执行文件, 2: jvm, 3: python
+   */
+  public Integer executeCoreLangAdapt(LangType langType) {
+    return getProfile(langType).getExecuteCoreLang();
+  }
+
+  /**
+   * 执行命令模板 ({dir} 由 execute_core 替换)
+   * @param langType 语言类型枚举
+   * @return 执行命令模板, 未配置时为 null
+   */
+  public List<String> runCommandAdapt(LangType langType) {
+    List<String> runCommand = getProfile(langType).getRunCommand();
+    return runCommand.isEmpty() ? null : runCommand;
+  }
+
+  /**
+   * 按语言的时间限制倍数调整时间限制
+   * @param langType 语言类型枚举
+   * @param timeLimit 请求中的时间限制 (单位: ms)
+   * @return 调整后的时间限制
+   */
+  public Long timeLimitAdapt(LangType langType, Long timeLimit) {
+    return timeLimit == null ? null : Math.round(timeLimit * getProfile(langType).getTimeMultiplier());
+  }
+
+  /**
+   * 按语言的内存限制倍数调整内存限制
+   * @param langType 语言类型枚举
+   * @param memoryLimit 请求中的内存限制 (单位: B)
+   * @return 调整后的内存限制
+   */
+  public Long memoryLimitAdapt(LangType langType, Long memoryLimit) {
+    return memoryLimit == null ? null : Math.round(memoryLimit * getProfile(langType).getMemoryMultiplier());
   }
 }
@@ -2,25 +2,39 @@ package com.app.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Resource;
 
 import org.springframework.stereotype.Component;
 
 import com.app.common.StatusEnum;
+import com.app.config.ContainerPoolProperties.PoolConfig;
+import com.app.docker.ContainerRegistry;
 import com.app.exception.BusinessException;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.BuildImageCmd;
 import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.InspectImageResponse;
+import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.Bind;
 import com.github.dockerjava.api.model.BuildResponseItem;
 import com.github.dockerjava.api.model.Container;
 import com.github.dockerjava.api.model.HostConfig;
-import com.github.dockerjava.api.model.Image;
 import com.github.dockerjava.api.model.Volume;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientBuilder;
@@ -29,6 +43,7 @@ import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
 import com.github.dockerjava.transport.DockerHttpClient;
 
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
 import lombok.extern.slf4j.Slf4j;
 
 @Component
@@ -36,7 +51,24 @@ import lombok.extern.slf4j.Slf4j;
 @SuppressWarnings("deprecation")
 public class DockerUtil {
 	public static final String CODE_STORE_ROOT_PATH = "tempCodeRepository";
+	/* 常驻 execute_core 的 Unix Socket 存放目录 (本机, 相对项目根目录), 每个沙箱容器只挂载其中属于自己的子目录 */
+	public static final String EXECUTE_CORE_SOCKET_DIR = "executeCoreSocket";
+	/* 沙箱容器内 Unix Socket 所在目录的挂载点 (不在用户代码可见的 /codeStore 中) */
+	public static final String EXECUTE_CORE_SOCKET_MOUNT_PATH = "/run/execute_core";
+	public static final String EXECUTE_CORE_SOCKET_NAME = "execute_core.sock";
+	public static final String VOLUMN_CODE_STORE_ROOT_PATH = "/codeStore";
+	/* 镜像标签: 构建镜像时 Dockerfile 的摘要 */
+	public static final String DOCKERFILE_DIGEST_LABEL = "codesandbox.dockerfile.digest";
+	/* 编译容器内 ccache 的缓存目录 */
+	public static final String COMPILE_CACHE_PATH = "/ccache";
 	public static DockerClient dockerClient;
+
+	/* 镜像名 -> 构建锁 */
+	private final Map<String, Object> imageLocks = new ConcurrentHashMap<>();
+
+	@Resource
+	private ContainerRegistry containerRegistry;
+
 	static {
 		/* 创建代码存放的 "根目录" 的绝对路径 */
 		String projectDirPath = System.getProperty("user.dir");
@@ -44,6 +76,7 @@ public class DockerUtil {
 		if (!FileUtil.exist(codeStoreRootPath)) {
 			FileUtil.mkdir(codeStoreRootPath);
 		}
+		FileUtil.mkdir(projectDirPath + File.separator + EXECUTE_CORE_SOCKET_DIR);
 		/* 初始化 Docker 客户端 */
 		try {
 			DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder().build();
@@ -66,44 +99,186 @@ public class DockerUtil {
 	}
 
 	/**
-	 * 根据 Dockerfile 文件构建 编译/运行时 镜像
+	 * 确保镜像存在且与当前 Dockerfile 一致. 构建时将 Dockerfile 及其 COPY 的文件摘要写入镜像标签,
+	 * 摘要未变化时直接复用已有镜像, 不重新构建
+	 * 
+	 * @param poolConfig 容器池配置 (镜像名, Dockerfile 等)
+	 * @return 镜像 ID
+	 */
+	public String ensureImage(PoolConfig poolConfig) {
+		String imageName = poolConfig.getImage();
+		String imageId = containerRegistry.getImageId(imageName);
+		if (imageId != null) {
+			return imageId;
+		}
+		// 多个容器池可能共用同一镜像, 同一镜像只构建一次
+		synchronized (imageLocks.computeIfAbsent(imageName, name -> new Object())) {
+			imageId = containerRegistry.getImageId(imageName);
+			if (imageId != null) {
+				return imageId;
+			}
+			File dockerfile = resolveDockerfile(poolConfig.getDockerfile(), poolConfig.getFlag());
+			String digest = getDockerfileDigest(dockerfile, poolConfig.getTarget());
+			InspectImageResponse imageInfo = inspectImage(imageName);
+			String builtDigest = imageInfo == null || imageInfo.getConfig() == null
+					|| imageInfo.getConfig().getLabels() == null ? null
+							: imageInfo.getConfig().getLabels().get(DOCKERFILE_DIGEST_LABEL);
+			// Dockerfile 不可读 (如仅部署了 jar 包) 时只要求镜像存在
+			if (imageInfo == null || (digest != null && !digest.equals(builtDigest))) {
+				if (imageInfo != null) {
+					log.info("镜像 " + imageName + " 的 Dockerfile 已变更, 重新构建");
+				}
+				createImage(imageName, dockerfile, poolConfig.getTarget(), poolConfig.getFlag(), digest);
+				imageInfo = inspectImage(imageName);
+				if (imageInfo == null) {
+					throw new BusinessException(StatusEnum.SYSTEM_ERROR, "镜像 " + imageName + " 构建后不存在");
+				}
+			}
+			containerRegistry.registerImage(imageName, imageInfo.getId());
+			return imageInfo.getId();
+		}
+	}
+
+	private static InspectImageResponse inspectImage(String imageName) {
+		try {
+			return dockerClient.inspectImageCmd(imageName).exec();
+		} catch (NotFoundException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 获取构建镜像使用的 Dockerfile
 	 * 
-	 * @param imageName 镜像名
-	 * @param flag      0: 编译镜像, 1: 运行时镜像
+	 * @param dockerfile Dockerfile 路径 (相对项目根目录), 为空时按 flag 选择
+	 * @param flag       0: 编译镜像, 1: 运行时镜像
 	 */
-	private static void createImage(String imageName, Integer flag) {
+	private static File resolveDockerfile(String dockerfile, Integer flag) {
 		String projectDirPath = System.getProperty("user.dir");
+		if (dockerfile != null) {
+			return new File(projectDirPath + File.separator + dockerfile);
+		}
+		if (flag.equals(0)) {
+			return new File(projectDirPath + File.separator + "compile_env" + File.separator + "Dockerfile");
+		}
+		return new File(projectDirPath + File.separator + "Dockerfile");
+	}
 
-		File DockerfilePath = null;
-		if (flag.equals(0))
-			DockerfilePath = new File(projectDirPath + File.separator + "compile_env" + File.separator + "Dockerfile");
-		else
-			DockerfilePath = new File(projectDirPath + File.separator + "Dockerfile");
+	/**
+	 * 计算 Dockerfile, 构建目标及其从构建上下文中 COPY/ADD 的文件的摘要
+	 * 
+	 * @param dockerfile Dockerfile
+	 * @param target     构建的目标阶段, 可为 null
+	 * @return SHA-256 摘要, Dockerfile 不存在时返回 null
+	 */
+	private static String getDockerfileDigest(File dockerfile, String target) {
+		if (!dockerfile.isFile()) {
+			return null;
+		}
+		Path buildContext = getBuildContext(dockerfile).toPath();
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			List<String> lines = Files.readAllLines(dockerfile.toPath());
+			messageDigest.update(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+			if (target != null) {
+				messageDigest.update(("--target=" + target).getBytes(StandardCharsets.UTF_8));
+			}
+			for (String line : lines) {
+				String[] tokens = line.trim().split("\\s+");
+				if (tokens.length < 3
+						|| !("COPY".equalsIgnoreCase(tokens[0]) || "ADD".equalsIgnoreCase(tokens[0]))
+						|| line.contains("--from")) {
+					continue;
+				}
+				// 最后一个参数为目标路径, 其余非选项参数为构建上下文中的源路径
+				for (int i = 1; i < tokens.length - 1; i++) {
+					if (tokens[i].startsWith("--")) {
+						continue;
+					}
+					List<Path> sources;
+					try (Stream<Path> walk = Files.walk(buildContext.resolve(tokens[i]).normalize())) {
+						sources = walk.filter(Files::isRegularFile)
+								.filter(path -> !isBuildOutput(buildContext.relativize(path)))
+								.sorted()
+								.collect(Collectors.toList());
+					}
+					for (Path source : sources) {
+						messageDigest.update(buildContext.relativize(source).toString().getBytes(StandardCharsets.UTF_8));
+						messageDigest.update(Files.readAllBytes(source));
+					}
+				}
+			}
+			return HexUtil.encodeHexStr(messageDigest.digest());
+		} catch (IOException | NoSuchAlgorithmException e) {
+			log.warn("计算 Dockerfile 摘要失败: " + e.getMessage());
+			return null;
+		}
+	}
 
-		System.out.println("Dockerfile 文件路径： " + DockerfilePath);
+	/**
+	 * 是否为本地构建产物 (target 目录下的文件), 不影响镜像内容
+	 */
+	private static boolean isBuildOutput(Path relativePath) {
+		for (Path element : relativePath) {
+			if (element.toString().equals("target")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 构建上下文目录: 项目根目录下的 Dockerfile 使用项目根目录, compile_env 使用其所在目录
+	 */
+	private static File getBuildContext(File dockerfile) {
+		File projectDir = new File(System.getProperty("user.dir"));
+		if (dockerfile.getParentFile().getName().equals("compile_env")) {
+			return dockerfile.getParentFile();
+		}
+		return projectDir;
+	}
+
+	/**
+	 * 根据 Dockerfile 文件构建 编译/运行时 镜像
+	 * 
+	 * @param imageName  镜像名
+	 * @param dockerfile Dockerfile 文件
+	 * @param target     构建的目标阶段, 为 null 时构建最后一个阶段
+	 * @param flag       0: 编译镜像, 1: 运行时镜像
+	 * @param digest     Dockerfile 摘要, 写入镜像标签
+	 */
+	private static void createImage(String imageName, File dockerfile, String target, Integer flag, String digest) {
+		log.info("Dockerfile 文件路径: " + dockerfile + (target == null ? "" : ", 构建目标: " + target));
+		BuildImageCmd buildImageCmd = dockerClient.buildImageCmd()
+				.withDockerfile(dockerfile)
+				.withBaseDirectory(getBuildContext(dockerfile));
+		if (target != null) {
+			buildImageCmd.withTarget(target);
+		}
 
-		BuildImageCmd buildImageCmd = dockerClient.buildImageCmd(DockerfilePath);
 		Set<String> name = new HashSet<String>();
 		name.add(imageName);
 		buildImageCmd.withTags(name);
+		if (digest != null) {
+			buildImageCmd.withLabels(Map.of(DOCKERFILE_DIGEST_LABEL, digest));
+		}
 		var buildImageResultCallback = new BuildImageResultCallback() {
 			@Override
 			public void onNext(BuildResponseItem item) {
-				if (flag.equals(0))
-					log.info("创建编译环境镜像中: " + item.toString());
-				else
-					log.info("创建代码沙箱环境镜像中: " + item.toString());
+				if (item.getStream() != null) {
+					log.info("[" + imageName + "] " + item.getStream().trim());
+				}
 				super.onNext(item);
 			}
 		};
 		try {
 			buildImageCmd.exec(buildImageResultCallback)
-					.awaitCompletion();
+					.awaitImageId();
 			if (flag.equals(0))
-				log.info("编译环境创建成功");
+				log.info("编译环境创建成功: " + imageName);
 			else
-				log.info("代码沙箱创建成功");
-		} catch (InterruptedException e) {
+				log.info("代码沙箱创建成功: " + imageName);
+		} catch (Exception e) {
 			if (flag.equals(0))
 				throw new BusinessException(StatusEnum.SYSTEM_ERROR, "创建编译环境镜像失败" + e);
 			else
@@ -115,27 +290,48 @@ public class DockerUtil {
 	 * 根据镜像创建容器
 	 * 
 	 * @param codeFileParentDir 容器挂载目录
-	 * @param imageName         镜像名
+	 * @param poolConfig        容器池配置 (镜像, 资源限制等)
 	 * @param containerName     容器名
-	 * @param flag              0: 编译镜像, 1: 运行时镜像
+	 * @param cpuset            容器绑定的 CPU 核心 (如 "2" 或 "2-3"), 为 null 时不绑定
+	 * @param memory            容器的内存上限 (单位: B)
 	 * @return 创建的容器的 ID
 	 */
-	private static String createContainer(Path codeFileParentDir, String imageName, String containerName,
-			Integer flag) {
-		var containerCmd = dockerClient.createContainerCmd(imageName).withName(containerName);
+	private static String createContainer(Path codeFileParentDir, PoolConfig poolConfig, String containerName,
+			String cpuset, Long memory) {
+		Integer flag = poolConfig.getFlag();
+		var containerCmd = dockerClient.createContainerCmd(poolConfig.getImage()).withName(containerName);
 		var hostConfig = new HostConfig();
 		log.info("挂载目录:" + codeFileParentDir.toString());
 
-		hostConfig.setBinds(
-				new Bind(codeFileParentDir.toString(), new Volume("/codeStore")));
-		hostConfig.withMemory(256 * 1024 * 1024L);
-		hostConfig.withCpuCount(1L);
+		List<Bind> binds = new ArrayList<>(List.of(
+				new Bind(codeFileParentDir.toString(), new Volume(VOLUMN_CODE_STORE_ROOT_PATH))));
+		String cacheVolume = poolConfig.getCacheVolume();
+		boolean cacheEnabled = flag.equals(0) && cacheVolume != null && !cacheVolume.isBlank();
+		// 编译缓存卷 (ccache), 同一容器池的编译容器共用
+		if (cacheEnabled) {
+			binds.add(new Bind(cacheVolume, new Volume(COMPILE_CACHE_PATH)));
+		}
+		// 常驻 execute_core 的 socket 目录, 只挂载到所属的沙箱容器中
+		if (flag.equals(1)) {
+			binds.add(new Bind(createExecuteCoreSocketDir(containerName).toString(),
+					new Volume(EXECUTE_CORE_SOCKET_MOUNT_PATH)));
+		}
+		hostConfig.setBinds(binds.toArray(Bind[]::new));
+		hostConfig.withMemory(memory);
+		// CpuCount 仅在 Windows 容器上生效, Linux 上通过 cpuset 将容器固定到指定核心
+		if (cpuset != null) {
+			hostConfig.withCpusetCpus(cpuset);
+		} else {
+			hostConfig.withCpuCount(poolConfig.getCpuCount());
+		}
 
 		// 编译环境
 		if (flag.equals(0)) {
 			CreateContainerResponse containerInstance = null;
 			try {
 				containerInstance = containerCmd
+						// 未挂载缓存卷时 ccache 无处写入, 直接调用编译器
+						.withEnv(cacheEnabled ? List.of() : List.of("CCACHE_DISABLE=1"))
 						.withReadonlyRootfs(true)
 						.withHostConfig(hostConfig)
 						.withNetworkDisabled(true)
@@ -165,6 +361,9 @@ public class DockerUtil {
 			CreateContainerResponse containerInstance = null;
 			try {
 				containerInstance = containerCmd
+						// 容器主进程为常驻模式的 execute_core
+						.withCmd("/execute_core/execute_core", "--server",
+								EXECUTE_CORE_SOCKET_MOUNT_PATH + "/" + EXECUTE_CORE_SOCKET_NAME)
 						.withReadonlyRootfs(true)
 						.withHostConfig(hostConfig)
 						.withNetworkDisabled(true)
@@ -184,31 +383,60 @@ public class DockerUtil {
 	 * 获取容器ID
 	 * 
 	 * @param codeFileParentDir 容器挂载目录
-	 * @param imageName         镜像名
+	 * @param poolConfig        容器池配置 (镜像, 资源限制等)
 	 * @param containerName     容器名
-	 * @param flag              0: 编译镜像, 1: 运行时镜像
+	 * @param cpuset            容器绑定的 CPU 核心, 为 null 时不绑定
+	 * @param memory            容器的内存上限 (单位: B)
 	 * @return 容器ID
 	 */
-	public String getContainerId(Path codeFileParentDir, String imageName, String containerName, Integer flag) {
-		var listContainersCmd = dockerClient.listContainersCmd().withNameFilter(List.of(containerName))
+	public String getContainerId(Path codeFileParentDir, PoolConfig poolConfig, String containerName, String cpuset,
+			Long memory) {
+		Integer flag = poolConfig.getFlag();
+		/* 已缓存且运行中的容器直接返回, 不访问 Docker API */
+		String cachedContainerId = containerRegistry.getRunningContainerId(containerName);
+		if (cachedContainerId != null) {
+			return cachedContainerId;
+		}
+		String imageId = ensureImage(poolConfig);
+		// 名称过滤为正则匹配, 需锚定完整容器名 (避免 sandbox 匹配到 sandbox-0 等容器)
+		var listContainersCmd = dockerClient.listContainersCmd().withNameFilter(List.of("^/" + containerName + "$"))
 				.withShowAll(true);
-		var listImageCmd = dockerClient.listImagesCmd().withReferenceFilter(imageName);
-
-		List<Image> existedImage = listImageCmd.exec();
 		List<Container> existedContainer = listContainersCmd.exec();
 
-		String containerId = new String();
-		if (existedImage.isEmpty() && existedContainer.isEmpty()) {
-			createImage(containerId, flag);
-			containerId = createContainer(codeFileParentDir, imageName, containerName, flag);
-		} else if (!existedImage.isEmpty() && existedContainer.isEmpty()) {
-			containerId = createContainer(codeFileParentDir, imageName, containerName, flag);
+		String containerId;
+		if (!existedContainer.isEmpty() && !imageId.equals(existedContainer.get(0).getImageId())) {
+			// 镜像已重新构建, 旧容器仍在使用旧镜像
+			log.info("容器 " + containerName + " 的镜像已更新, 重新创建");
+			removeContainer(existedContainer.get(0).getId());
+			existedContainer = List.of();
+		}
+		if (!existedContainer.isEmpty() && flag.equals(1) && !hasExecuteCoreSocketMount(existedContainer.get(0))) {
+			// 旧版本创建的沙箱容器将 socket 放在共享的代码存放目录中
+			log.info("容器 " + containerName + " 未挂载独立的 socket 目录, 重新创建");
+			removeContainer(existedContainer.get(0).getId());
+			existedContainer = List.of();
+		}
+		if (existedContainer.isEmpty()) {
+			containerId = createContainer(codeFileParentDir, poolConfig, containerName, cpuset, memory);
 		} else {
 			containerId = existedContainer.get(0).getId();
+			// 已存在的容器按当前槽位重新绑定 CPU 核心
+			if (cpuset != null) {
+				try {
+					dockerClient.updateContainerCmd(containerId).withCpusetCpus(cpuset).exec();
+				} catch (Exception e) {
+					log.warn("更新容器 " + containerName + " 的 CPU 绑定失败: " + e.getMessage());
+				}
+			}
 		}
 		// 并启动容器
 		var containerInfo = dockerClient.inspectContainerCmd(containerId).exec();
 		if (Boolean.FALSE.equals(containerInfo.getState().getRunning())) {
+			// 沙箱容器内禁止 unlink, 由宿主机清理上次残留的 socket 文件
+			if (flag.equals(1)) {
+				createExecuteCoreSocketDir(containerName);
+				FileUtil.del(getExecuteCoreSocketPath(containerName));
+			}
 			try {
 				dockerClient.startContainerCmd(containerId).exec();
 			} catch (Exception e) {
@@ -219,6 +447,78 @@ public class DockerUtil {
 				}
 			}
 		}
+		containerRegistry.registerContainer(containerName, containerId, true);
 		return containerId;
 	}
+
+	/**
+	 * 获取沙箱容器内常驻 execute_core 的 Unix Socket 路径 (本机)
+	 *
+	 * @param containerName 容器名
+	 * @return socket 文件路径
+	 */
+	public static Path getExecuteCoreSocketPath(String containerName) {
+		return getExecuteCoreSocketDir(containerName).resolve(EXECUTE_CORE_SOCKET_NAME);
+	}
+
+	private static Path getExecuteCoreSocketDir(String containerName) {
+		return Paths.get(System.getProperty("user.dir"), EXECUTE_CORE_SOCKET_DIR, containerName);
+	}
+
+	/**
+	 * 创建沙箱容器的 socket 目录, 只允许本服务的用户访问 (execute_core 按该目录的属主设置 socket 的属主)
+	 *
+	 * @param containerName 容器名
+	 * @return socket 目录 (本机)
+	 */
+	private static Path createExecuteCoreSocketDir(String containerName) {
+		Path socketDir = getExecuteCoreSocketDir(containerName);
+		try {
+			Files.createDirectories(socketDir);
+			Files.setPosixFilePermissions(socketDir, PosixFilePermissions.fromString("rwx------"));
+		} catch (IOException e) {
+			throw new BusinessException(StatusEnum.SYSTEM_ERROR, "创建 execute_core 的 socket 目录失败. " + e);
+		}
+		return socketDir;
+	}
+
+	/**
+	 * 沙箱容器是否挂载了独立的 socket 目录
+	 */
+	private static boolean hasExecuteCoreSocketMount(Container container) {
+		return container.getMounts() != null && container.getMounts().stream()
+				.anyMatch(mount -> EXECUTE_CORE_SOCKET_MOUNT_PATH.equals(mount.getDestination()));
+	}
+
+	/**
+	 * 容器是否处于运行状态
+	 *
+	 * @param containerId 容器 ID
+	 * @return 是否运行中
+	 */
+	public boolean isContainerRunning(String containerId) {
+		/* 优先使用由 Docker 事件流维护的缓存状态 */
+		Boolean running = containerRegistry.getRunningState(containerId);
+		if (running != null) {
+			return running;
+		}
+		var containerInfo = dockerClient.inspectContainerCmd(containerId).exec();
+		running = Boolean.TRUE.equals(containerInfo.getState().getRunning());
+		containerRegistry.registerContainer(containerInfo.getName().replaceFirst("^/", ""), containerId, running);
+		return running;
+	}
+
+	/**
+	 * 强制删除容器
+	 *
+	 * @param containerId 容器 ID
+	 */
+	public void removeContainer(String containerId) {
+		containerRegistry.removeContainer(containerId);
+		try {
+			dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+		} catch (NotFoundException e) {
+			log.warn("待删除的容器不存在: " + containerId);
+		}
+	}
 }
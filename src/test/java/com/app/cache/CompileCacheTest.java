@@ -0,0 +1,205 @@
+package com.app.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.app.config.CompileCacheProperties;
+
+import cn.hutool.core.io.FileUtil;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 编译缓存的 LRU 淘汰, 以及并发保存/恢复/淘汰时不会读到不完整的编译产物
+ */
+public class CompileCacheTest {
+	/* 编译缓存目录相对项目根目录 */
+	private static final String CACHE_DIR = "target" + File.separator + "compile-cache-test";
+
+	/* 每个编译产物的文件数和单个文件大小 */
+	private static final int FILES_PER_ENTRY = 4;
+	private static final int FILE_SIZE = 4096;
+
+	@TempDir
+	Path workDir;
+
+	@AfterEach
+	void clean() {
+		FileUtil.del(cacheDir());
+	}
+
+	@Test
+	void restoresSavedArtifacts() throws IOException {
+		CompileCache compileCache = newCache(Long.MAX_VALUE);
+		compileCache.save("a", artifacts("a"));
+		Path target = Files.createDirectories(workDir.resolve("restore"));
+		assertTrue(compileCache.restore("a", target));
+		assertComplete("a", target);
+		assertFalse(compileCache.restore("b", target));
+		assertEquals(1L, compileCache.getMetrics().get("hits"));
+		assertEquals(1L, compileCache.getMetrics().get("misses"));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsed() throws IOException {
+		// 容量只够两个编译产物
+		CompileCache compileCache = newCache(2L * FILES_PER_ENTRY * FILE_SIZE);
+		compileCache.save("a", artifacts("a"));
+		compileCache.save("b", artifacts("b"));
+		// 访问 a 之后 b 成为最久未使用的
+		assertTrue(compileCache.restore("a", Files.createDirectories(workDir.resolve("touch"))));
+		compileCache.save("c", artifacts("c"));
+
+		assertFalse(Files.exists(cacheDir().resolve("b")));
+		assertFalse(compileCache.restore("b", Files.createDirectories(workDir.resolve("b"))));
+		assertTrue(compileCache.restore("a", Files.createDirectories(workDir.resolve("a"))));
+		assertTrue(compileCache.restore("c", Files.createDirectories(workDir.resolve("c"))));
+		assertEquals(1L, compileCache.getMetrics().get("evictions"));
+		assertEquals(2L, compileCache.getMetrics().get("entries"));
+		assertEquals(2L * FILES_PER_ENTRY * FILE_SIZE, compileCache.getMetrics().get("size"));
+	}
+
+	@Test
+	void concurrentSaveOfSameKeyKeepsOneEntry() throws Exception {
+		CompileCache compileCache = newCache(Long.MAX_VALUE);
+		List<Path> artifacts = artifacts("a");
+		runConcurrently(8, 20, (thread, i) -> compileCache.save("a", artifacts));
+		assertEquals(1L, compileCache.getMetrics().get("entries"));
+		assertEquals((long) FILES_PER_ENTRY * FILE_SIZE, compileCache.getMetrics().get("size"));
+		assertNoTempDirs();
+	}
+
+	@Test
+	void restoreRacingEvictionNeverReportsPartialHit() throws Exception {
+		// 容量只够一个编译产物, 每次保存都会淘汰正在被恢复的编译产物
+		CompileCache compileCache = newCache((long) FILES_PER_ENTRY * FILE_SIZE);
+		String[] keys = { "k0", "k1", "k2", "k3" };
+		List<List<Path>> artifacts = new ArrayList<>();
+		for (String key : keys) {
+			artifacts.add(artifacts(key));
+		}
+		AtomicInteger hits = new AtomicInteger();
+		runConcurrently(8, 50, (thread, i) -> {
+			int index = (thread + i) % keys.length;
+			if (thread % 2 == 0) {
+				compileCache.save(keys[index], artifacts.get(index));
+				return;
+			}
+			Path target = Files.createDirectories(workDir.resolve("t" + thread + "-" + i));
+			// 命中时编译产物必须完整, 复制期间被淘汰只能按未命中处理
+			if (compileCache.restore(keys[index], target)) {
+				assertComplete(keys[index], target);
+				hits.incrementAndGet();
+			}
+		});
+		assertTrue(compileCache.getMetrics().get("size") <= FILES_PER_ENTRY * FILE_SIZE);
+		assertEquals(hits.get(), compileCache.getMetrics().get("hits"));
+		assertNoTempDirs();
+	}
+
+	private CompileCache newCache(long maxSize) throws IOException {
+		CompileCacheProperties properties = new CompileCacheProperties();
+		properties.setDir(CACHE_DIR);
+		properties.setMaxSize(maxSize);
+		CompileCache compileCache = new CompileCache();
+		ReflectionTestUtils.setField(compileCache, "compileCacheProperties", properties);
+		FileUtil.del(cacheDir());
+		compileCache.init();
+		return compileCache;
+	}
+
+	private static Path cacheDir() {
+		return Paths.get(System.getProperty("user.dir"), CACHE_DIR);
+	}
+
+	/**
+	 * 在提交目录中生成一个编译产物, 每个文件的内容都由键和文件名决定
+	 */
+	private List<Path> artifacts(String key) throws IOException {
+		Path dir = Files.createDirectories(workDir.resolve("src-" + key));
+		List<Path> artifacts = new ArrayList<>();
+		for (int i = 0; i < FILES_PER_ENTRY; i++) {
+			Path artifact = dir.resolve("Main" + i + ".class");
+			Files.write(artifact, content(key, i));
+			artifacts.add(artifact);
+		}
+		return artifacts;
+	}
+
+	private static byte[] content(String key, int index) {
+		byte[] pattern = (key + "-" + index + ";").getBytes(StandardCharsets.UTF_8);
+		byte[] content = new byte[FILE_SIZE];
+		for (int i = 0; i < FILE_SIZE; i++) {
+			content[i] = pattern[i % pattern.length];
+		}
+		return content;
+	}
+
+	private static void assertComplete(String key, Path target) throws IOException {
+		for (int i = 0; i < FILES_PER_ENTRY; i++) {
+			assertArrayEquals(content(key, i), Files.readAllBytes(target.resolve("Main" + i + ".class")));
+		}
+	}
+
+	private static void assertNoTempDirs() throws IOException {
+		try (Stream<Path> dirs = Files.list(cacheDir())) {
+			assertFalse(dirs.anyMatch(dir -> dir.getFileName().toString().startsWith("tmp-")));
+		}
+	}
+
+	private interface Step {
+		void run(int thread, int iteration) throws Exception;
+	}
+
+	/**
+	 * 多个线程同时开始, 各执行若干次, 任一线程出错时测试失败
+	 */
+	private static void runConcurrently(int threads, int iterations, Step step) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Throwable> errors = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			executor.execute(() -> {
+				try {
+					start.await();
+					for (int i = 0; i < iterations; i++) {
+						step.run(thread, i);
+					}
+				} catch (Throwable e) {
+					synchronized (errors) {
+						errors.add(e);
+					}
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+		if (!errors.isEmpty()) {
+			throw new AssertionError(errors.get(0));
+		}
+	}
+}
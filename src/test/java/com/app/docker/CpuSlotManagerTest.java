@@ -0,0 +1,29 @@
+package com.app.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 执行槽位的 cpuset 解析与格式化
+ */
+public class CpuSlotManagerTest {
+
+	@Test
+	void parseNonContiguousCpuset() {
+		assertEquals(List.of(0, 1, 2, 3, 6, 8, 9), CpuSlotManager.parseCpuset("0-3,6,8-9\n"));
+		assertEquals(List.of(4), CpuSlotManager.parseCpuset("4"));
+		assertEquals(List.of(), CpuSlotManager.parseCpuset("\n"));
+	}
+
+	@Test
+	void formatMergesContiguousCpus() {
+		assertEquals("2", CpuSlotManager.toCpuset(List.of(2)));
+		assertEquals("2-3,6", CpuSlotManager.toCpuset(List.of(2, 3, 6)));
+		assertEquals("0-3,6,8-9", CpuSlotManager.toCpuset(CpuSlotManager.parseCpuset("0-3,6,8-9")));
+	}
+}
@@ -0,0 +1,149 @@
+package com.app.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 调度通道的加权公平排队, 排队上限, 取消和关闭后的拒绝
+ */
+public class SchedulerLaneTest {
+	private SchedulerLane lane;
+
+	/* 占住唯一的执行线程, 之后提交的任务全部排队 */
+	private final CountDownLatch blocker = new CountDownLatch(1);
+
+	/* 任务的执行顺序 */
+	private final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+	@AfterEach
+	void shutdown() {
+		blocker.countDown();
+		if (lane != null) {
+			lane.shutdown();
+		}
+	}
+
+	@Test
+	void interleavesCallersByFinishTag() throws InterruptedException {
+		lane = newLane(Map.of(), 16);
+		CountDownLatch done = new CountDownLatch(5);
+		// a 连续提交 4 个任务, b 随后提交 1 个, b 不需要等 a 的全部任务执行完
+		for (int i = 1; i <= 4; i++) {
+			offer("a", 1, "a" + i, done);
+		}
+		offer("b", 1, "b1", done);
+		blocker.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("a1", "b1", "a2", "a3", "a4"), executed);
+	}
+
+	@Test
+	void heavierCallerGetsProportionallyMoreTurns() throws InterruptedException {
+		lane = newLane(Map.of("heavy", 2D), 16);
+		CountDownLatch done = new CountDownLatch(6);
+		for (int i = 1; i <= 3; i++) {
+			offer("light", 1, "light" + i, done);
+		}
+		for (int i = 1; i <= 3; i++) {
+			offer("heavy", 1, "heavy" + i, done);
+		}
+		blocker.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		// 结束标签: light 1, 2, 3; heavy 0.5, 1, 1.5 (相同标签按提交顺序)
+		assertEquals(List.of("heavy1", "light1", "heavy2", "heavy3", "light2", "light3"), executed);
+	}
+
+	@Test
+	void costDelaysCallersNextTask() throws InterruptedException {
+		lane = newLane(Map.of(), 16);
+		CountDownLatch done = new CountDownLatch(4);
+		offer("a", 10, "a-big", done);
+		offer("a", 1, "a-small", done);
+		offer("b", 1, "b1", done);
+		offer("b", 1, "b2", done);
+		blocker.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("b1", "b2", "a-big", "a-small"), executed);
+	}
+
+	@Test
+	void rejectsWhenQueueIsFull() {
+		lane = newLane(Map.of(), 2);
+		assertNotNull(lane.offer("a", 1, () -> executed.add("a1")));
+		assertNotNull(lane.offer("a", 1, () -> executed.add("a2")));
+		assertNull(lane.offer("a", 1, () -> executed.add("a3")));
+		LaneMetrics metrics = lane.getMetrics();
+		assertEquals(2, metrics.getQueued());
+		assertEquals(1, metrics.getRejected());
+	}
+
+	@Test
+	void cancelledTaskNeverRuns() throws InterruptedException {
+		lane = newLane(Map.of(), 16);
+		CountDownLatch done = new CountDownLatch(1);
+		SchedulerLane.ScheduledTask cancelled = lane.offer("a", 1, () -> executed.add("cancelled"));
+		offer("b", 1, "b1", done);
+		assertTrue(cancelled.cancel());
+		assertEquals(1, lane.getMetrics().getQueued());
+		blocker.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("b1"), executed);
+	}
+
+	/**
+	 * 单线程通道, 先提交一个阻塞任务占住执行线程
+	 */
+	@Test
+	void rejectsTaskAfterShutdown() {
+		lane = new SchedulerLane("test", 1, 16, caller -> 1D, null);
+		lane.shutdown();
+		List<String> rejected = new ArrayList<>();
+		assertNotNull(lane.offer("a", 1, () -> executed.add("a1"), () -> rejected.add("a1")));
+		// 无法执行的任务立即以拒绝结束, 不占用并发数
+		assertEquals(List.of("a1"), rejected);
+		assertTrue(executed.isEmpty());
+		assertEquals(0, lane.getMetrics().getRunning());
+		assertEquals(1, lane.getMetrics().getRejected());
+	}
+
+	private SchedulerLane newLane(Map<String, Double> weights, int queueSize) {
+		SchedulerLane schedulerLane = new SchedulerLane("test", 1, queueSize,
+				caller -> weights.getOrDefault(caller, 1D), null);
+		CountDownLatch started = new CountDownLatch(1);
+		schedulerLane.offer("blocker", 1, () -> {
+			started.countDown();
+			try {
+				blocker.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		try {
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			throw new AssertionError(e);
+		}
+		return schedulerLane;
+	}
+
+	private void offer(String caller, long cost, String name, CountDownLatch done) {
+		assertNotNull(lane.offer(caller, cost, () -> {
+			executed.add(name);
+			done.countDown();
+		}));
+	}
+}
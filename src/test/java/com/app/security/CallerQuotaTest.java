@@ -0,0 +1,53 @@
+package com.app.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.security.CallerQuota.Admission;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 调用方配额的同时执行数量, 超出频率时的名额回退和异步提交名额的释放
+ */
+public class CallerQuotaTest {
+	@Test
+	void rejectsBeyondMaxConcurrentUntilReleased() {
+		CallerQuota caller = new CallerQuota("oj", 0, 0, 2);
+		assertEquals(Admission.ACCEPTED, caller.tryAcquire());
+		assertEquals(Admission.ACCEPTED, caller.tryAcquire());
+		assertEquals(Admission.CONCURRENCY_LIMITED, caller.tryAcquire());
+		assertEquals(2L, caller.getMetrics().get("inFlight"));
+		caller.release();
+		assertEquals(Admission.ACCEPTED, caller.tryAcquire());
+		assertEquals(1L, caller.getMetrics().get("concurrencyLimited"));
+	}
+
+	@Test
+	void rateLimitedAttemptRollsBackInFlight() {
+		CallerQuota caller = new CallerQuota("oj", 0.001, 1, 5);
+		assertEquals(Admission.ACCEPTED, caller.tryAcquire());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Admission.RATE_LIMITED, caller.tryAcquire());
+		}
+		// 被限频的提交没有占用同时执行名额
+		assertEquals(1L, caller.getMetrics().get("inFlight"));
+		assertEquals(10L, caller.getMetrics().get("rateLimited"));
+		caller.release();
+		assertEquals(0L, caller.getMetrics().get("inFlight"));
+	}
+
+	@Test
+	void permitReleasesOnceAndCountsForcedAcquire() {
+		CallerQuota caller = new CallerQuota("oj", 0, 0, 1);
+		// 恢复的异步提交不检查配额, 但占用名额
+		CallerPermit recovered = caller.forceAcquire();
+		assertEquals(Admission.CONCURRENCY_LIMITED, caller.tryAcquire());
+		recovered.release();
+		recovered.release();
+		assertEquals(0L, caller.getMetrics().get("inFlight"));
+		assertEquals(Admission.ACCEPTED, caller.tryAcquire());
+		assertEquals(Admission.CONCURRENCY_LIMITED, caller.tryAcquire());
+	}
+}
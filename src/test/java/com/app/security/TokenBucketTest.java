@@ -0,0 +1,80 @@
+package com.app.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author HDD
+ * @date 2026年10月18日
+ * @description 令牌桶 (GCRA) 的突发容量和生成速率边界
+ */
+public class TokenBucketTest {
+	@Test
+	void allowsExactlyBurstThenRejects() {
+		// 每 1000 秒生成一个令牌, 测试期间不会补充
+		TokenBucket tokenBucket = new TokenBucket(0.001, 3);
+		assertTrue(tokenBucket.tryAcquire());
+		assertTrue(tokenBucket.tryAcquire());
+		assertTrue(tokenBucket.tryAcquire());
+		assertFalse(tokenBucket.tryAcquire());
+		assertFalse(tokenBucket.tryAcquire());
+	}
+
+	@Test
+	void refillsAfterEmissionInterval() throws InterruptedException {
+		// 每 200ms 生成一个令牌, 桶容量为 1
+		TokenBucket tokenBucket = new TokenBucket(5, 1);
+		assertTrue(tokenBucket.tryAcquire());
+		assertFalse(tokenBucket.tryAcquire());
+		Thread.sleep(250);
+		assertTrue(tokenBucket.tryAcquire());
+		assertFalse(tokenBucket.tryAcquire());
+	}
+
+	@Test
+	void rejectedAttemptsDoNotConsumeTokens() throws InterruptedException {
+		TokenBucket tokenBucket = new TokenBucket(5, 1);
+		assertTrue(tokenBucket.tryAcquire());
+		// 被拒绝的请求不推后理论到达时间, 否则持续重试的调用方永远取不到令牌
+		for (int i = 0; i < 100; i++) {
+			assertFalse(tokenBucket.tryAcquire());
+		}
+		Thread.sleep(250);
+		assertTrue(tokenBucket.tryAcquire());
+	}
+
+	@Test
+	void concurrentAcquireNeverExceedsBurst() throws InterruptedException {
+		TokenBucket tokenBucket = new TokenBucket(0.001, 50);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger acquired = new AtomicInteger();
+		for (int i = 0; i < 8; i++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int j = 0; j < 100; j++) {
+					if (tokenBucket.tryAcquire()) {
+						acquired.incrementAndGet();
+					}
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(50, acquired.get());
+	}
+}